@@ -0,0 +1,22 @@
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Point of entry to run the benchmarks, reporting the throughput and allocation rate of every
+ * carving stage. Runs every benchmark, or only those matching the regular expression given as the
+ * first argument.
+ */
+public class RunBenchmarks {
+
+  public static void main(String[] args) throws RunnerException {
+    String include = args.length > 0 ? args[0] : "seammanipulators\\..*Benchmark";
+    Options options = new OptionsBuilder()
+        .include(include)
+        .addProfiler(GCProfiler.class)
+        .build();
+    new Runner(options).run();
+  }
+}
@@ -0,0 +1,83 @@
+package seammanipulators;
+
+import com.sun.management.ThreadMXBean;
+import energymaps.AverageSurroundingGradient;
+import energymaps.VectorAverageSurroundingGradient;
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import pixel.IntPackedImage;
+import pixel.PackedImage;
+
+/**
+ * Checks that computing an energy map allocates nothing per pixel, failing with a non zero exit
+ * status if any energy map allocates more than a few small objects per pass - such as the
+ * iterator walking the image - however large the image. Run from the project root, after warming
+ * up each energy map so only steady state allocations are measured.
+ */
+public class AllocationCheck {
+
+  private static final String[] imageNames = {"baron.png", "bird.png", "mountains.png",
+      "yidris.png"};
+
+  private static final int size = 256;
+
+  private static final int warmupPasses = 2000;
+
+  private static final int measuredPasses = 50;
+
+  /**
+   * Most bytes a single pass may allocate, whatever the size of the image.
+   */
+  private static final long maxBytesPerPass = 1024;
+
+  private static final ThreadMXBean threadBean =
+      (ThreadMXBean)ManagementFactory.getThreadMXBean();
+
+  public static void main(String[] args) throws IOException {
+    boolean passed = true;
+    for (String imageName : imageNames) {
+      BufferedImage image = BenchmarkImages.load(imageName, size);
+
+      DefaultSeamManipulator seamManipulator = new DefaultSeamManipulator(image,
+          new AverageSurroundingGradient(), false);
+      passed &= check(imageName + " pixel energy map", seamManipulator::computeEnergyMap);
+
+      PackedImage packedImage = new PackedImage(image);
+      AverageSurroundingGradient scalarEnergyMapMaker = new AverageSurroundingGradient();
+      passed &= check(imageName + " packed energy map",
+          () -> packedImage.computeEnergyMap(scalarEnergyMapMaker));
+
+      VectorAverageSurroundingGradient vectorEnergyMapMaker =
+          new VectorAverageSurroundingGradient();
+      passed &= check(imageName + " vector packed energy map",
+          () -> packedImage.computeEnergyMap(vectorEnergyMapMaker));
+
+      IntPackedImage intPackedImage = new IntPackedImage(image);
+      passed &= check(imageName + " fixed point energy map",
+          () -> intPackedImage.computeEnergyMap(scalarEnergyMapMaker));
+    }
+
+    if (!passed) {
+      System.exit(1);
+    }
+  }
+
+  private static boolean check(String name, Runnable pass) {
+    for (int i = 0; i < warmupPasses; i += 1) {
+      pass.run();
+    }
+
+    long threadId = Thread.currentThread().getId();
+    long before = threadBean.getThreadAllocatedBytes(threadId);
+    for (int i = 0; i < measuredPasses; i += 1) {
+      pass.run();
+    }
+    long bytesPerPass = (threadBean.getThreadAllocatedBytes(threadId) - before) / measuredPasses;
+
+    boolean passed = bytesPerPass <= maxBytesPerPass;
+    System.out.println((passed ? "PASS " : "FAIL ") + name + ": " + bytesPerPass
+        + " bytes per pass");
+    return passed;
+  }
+}
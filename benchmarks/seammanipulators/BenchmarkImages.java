@@ -0,0 +1,52 @@
+package seammanipulators;
+
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import javax.imageio.ImageIO;
+
+/**
+ * Loads the images bundled in the resources directory for the benchmarks, scaled so their longer
+ * side is a given size so every stage can be measured at the same sizes whatever the input.
+ */
+final class BenchmarkImages {
+
+  private BenchmarkImages() {
+  }
+
+  /**
+   * @param imageName file name of the image in the resources directory
+   * @param size length in pixels of the longer side of the returned image
+   * @return the named image scaled to the given size
+   * @throws IOException if the image does not exist or can't be read
+   */
+  static BufferedImage load(String imageName, int size) throws IOException {
+    if (imageName == null) {
+      throw new IllegalArgumentException("Given image name can't be null!");
+    }
+    else if (size <= 0) {
+      throw new IllegalArgumentException("Given size must be positive!");
+    }
+
+    Path imagePath = Paths.get("resources", imageName).toAbsolutePath();
+    BufferedImage loadedImage = ImageIO.read(imagePath.toFile());
+    if (loadedImage == null) {
+      throw new IOException("Could not read " + imagePath + "!");
+    }
+
+    double scale = (double)size / Math.max(loadedImage.getWidth(), loadedImage.getHeight());
+    int width = Math.max(1, (int)Math.round(loadedImage.getWidth() * scale));
+    int height = Math.max(1, (int)Math.round(loadedImage.getHeight() * scale));
+
+    BufferedImage scaledImage = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+    Graphics2D graphics = scaledImage.createGraphics();
+    graphics.setRenderingHint(RenderingHints.KEY_INTERPOLATION,
+        RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+    graphics.drawImage(loadedImage, 0, 0, width, height, null);
+    graphics.dispose();
+    return scaledImage;
+  }
+}
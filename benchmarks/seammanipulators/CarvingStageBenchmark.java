@@ -0,0 +1,86 @@
+package seammanipulators;
+
+import energymaps.AverageSurroundingGradient;
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import pixel.Pixel;
+import seams.Seam;
+
+/**
+ * Measures the stages of finding a seam that leave the image unchanged, so every invocation can
+ * share the same DefaultSeamManipulator.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class CarvingStageBenchmark {
+
+  @Param({"baron.png", "bird.png", "mountains.png", "yidris.png"})
+  public String imageName;
+
+  @Param({"128", "256", "512"})
+  public int size;
+
+  private BufferedImage image;
+
+  private DefaultSeamManipulator seamManipulator;
+
+  @Setup(Level.Trial)
+  public void setUp() throws IOException {
+    image = BenchmarkImages.load(imageName, size);
+    seamManipulator = new DefaultSeamManipulator(image, new AverageSurroundingGradient(), false);
+
+    // Leave an up to date energy map and cost matrix behind for the backtracking benchmarks
+    seamManipulator.findMinimumVerticalSeam();
+  }
+
+  @Benchmark
+  public Pixel ingest() {
+    return seamManipulator.bufferedImageToPixel(image);
+  }
+
+  @Benchmark
+  public void energyMap() {
+    seamManipulator.computeEnergyMap();
+  }
+
+  @Benchmark
+  public void verticalCostMatrix() {
+    seamManipulator.computeVerticalCostMatrix();
+  }
+
+  @Benchmark
+  public void horizontalCostMatrix() {
+    seamManipulator.computeHorizontalCostMatrix();
+  }
+
+  /**
+   * The energy map and cost matrix stay current between invocations, so only the backtracking
+   * through the cost matrix is measured.
+   */
+  @Benchmark
+  public Seam verticalBacktracking() {
+    return seamManipulator.findMinimumVerticalSeam();
+  }
+
+  @Benchmark
+  public BufferedImage currentImage() {
+    return seamManipulator.getCurrentImage();
+  }
+}
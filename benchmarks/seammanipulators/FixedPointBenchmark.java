@@ -0,0 +1,90 @@
+package seammanipulators;
+
+import costmatricies.horizontal.IntHorizontalCostMatrix;
+import costmatricies.horizontal.IntHorizontalEnergy;
+import costmatricies.vertical.IntVerticalCostMatrix;
+import costmatricies.vertical.IntVerticalEnergy;
+import energymaps.AverageSurroundingGradient;
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import pixel.IntPackedImage;
+import pixel.PackedImage;
+
+/**
+ * Measures the energy map and cost matrices of a PackedImage, with double energies, against those
+ * of an IntPackedImage, with fixed point int energies, of the same image.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class FixedPointBenchmark {
+
+  @Param({"baron.png", "bird.png", "mountains.png", "yidris.png"})
+  public String imageName;
+
+  @Param({"128", "256", "512"})
+  public int size;
+
+  private final AverageSurroundingGradient energyMapMaker = new AverageSurroundingGradient();
+
+  private final IntVerticalCostMatrix verticalCostMatrix = new IntVerticalEnergy();
+
+  private final IntHorizontalCostMatrix horizontalCostMatrix = new IntHorizontalEnergy();
+
+  private PackedImage packedImage;
+
+  private IntPackedImage intPackedImage;
+
+  @Setup(Level.Trial)
+  public void setUp() throws IOException {
+    packedImage = new PackedImage(BenchmarkImages.load(imageName, size));
+    intPackedImage = new IntPackedImage(BenchmarkImages.load(imageName, size));
+    packedImage.computeEnergyMap(energyMapMaker);
+    intPackedImage.computeEnergyMap(energyMapMaker);
+  }
+
+  @Benchmark
+  public double doubleEnergyMap() {
+    return packedImage.computeEnergyMap(energyMapMaker);
+  }
+
+  @Benchmark
+  public void intEnergyMap() {
+    intPackedImage.computeEnergyMap(energyMapMaker);
+  }
+
+  @Benchmark
+  public double doubleVerticalCostMatrix() {
+    return packedImage.computeVerticalCostMatrix();
+  }
+
+  @Benchmark
+  public void intVerticalCostMatrix() {
+    intPackedImage.computeVerticalCostMatrix(verticalCostMatrix);
+  }
+
+  @Benchmark
+  public double doubleHorizontalCostMatrix() {
+    return packedImage.computeHorizontalCostMatrix();
+  }
+
+  @Benchmark
+  public void intHorizontalCostMatrix() {
+    intPackedImage.computeHorizontalCostMatrix(horizontalCostMatrix);
+  }
+}
@@ -0,0 +1,71 @@
+package seammanipulators;
+
+import energymaps.AverageSurroundingGradient;
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures computing the cost matrices of large images with each parallelism and minimum task
+ * size, against computing them on the calling thread with a parallelism of 1. The speedup is
+ * bounded by the cores of the machine running the benchmark.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ParallelCostMatrixBenchmark {
+
+  @Param({"mountains.png"})
+  public String imageName;
+
+  @Param({"1024", "4096"})
+  public int size;
+
+  @Param({"1", "2", "4", "8"})
+  public int parallelism;
+
+  @Param({"128", "512", "2048"})
+  public int minimumCostMatrixTask;
+
+  private DefaultSeamManipulator seamManipulator;
+
+  @Setup(Level.Trial)
+  public void setUp() throws IOException {
+    BufferedImage image = BenchmarkImages.load(imageName, size);
+    seamManipulator = new DefaultSeamManipulator(image, new AverageSurroundingGradient(), false);
+    seamManipulator.setParallelism(parallelism);
+    seamManipulator.setMinimumCostMatrixTask(minimumCostMatrixTask);
+    seamManipulator.computeEnergyMap();
+  }
+
+  @TearDown(Level.Trial)
+  public void tearDown() {
+    seamManipulator.close();
+  }
+
+  @Benchmark
+  public void verticalCostMatrix() {
+    seamManipulator.computeVerticalCostMatrix();
+  }
+
+  @Benchmark
+  public void horizontalCostMatrix() {
+    seamManipulator.computeHorizontalCostMatrix();
+  }
+}
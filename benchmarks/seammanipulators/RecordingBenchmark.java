@@ -0,0 +1,69 @@
+package seammanipulators;
+
+import energymaps.AverageSurroundingGradient;
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures encoding the recorded states of a resize into a video with
+ * {@link SeamManipulator#saveCurrentProcess(Path)}.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MINUTES)
+@Warmup(iterations = 2, time = 5)
+@Measurement(iterations = 3, time = 5)
+@Fork(1)
+public class RecordingBenchmark {
+
+  @Param({"baron.png", "bird.png", "mountains.png", "yidris.png"})
+  public String imageName;
+
+  @Param({"128", "256"})
+  public int size;
+
+  /**
+   * Number of seams removed from each side of the image, each recording one frame.
+   */
+  @Param({"16"})
+  public int seamsRemoved;
+
+  private SeamManipulator seamManipulator;
+
+  private Path videoPath;
+
+  @Setup(Level.Trial)
+  public void setUp() throws IOException {
+    BufferedImage image = BenchmarkImages.load(imageName, size);
+    seamManipulator = new DefaultSeamManipulator(image, new AverageSurroundingGradient(), true);
+    seamManipulator.resize(image.getWidth() - seamsRemoved, image.getHeight() - seamsRemoved);
+    videoPath = Files.createTempFile("recording-benchmark", ".mp4");
+  }
+
+  @TearDown(Level.Trial)
+  public void tearDown() throws IOException {
+    Files.deleteIfExists(videoPath);
+  }
+
+  @Benchmark
+  public Path saveCurrentProcess() throws IOException {
+    seamManipulator.saveCurrentProcess(videoPath);
+    return videoPath;
+  }
+}
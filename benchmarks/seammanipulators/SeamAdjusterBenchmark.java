@@ -0,0 +1,86 @@
+package seammanipulators;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import utility.DefaultSeamAdjuster;
+import utility.FenwickSeamAdjuster;
+import utility.SeamAdjuster;
+
+/**
+ * Measures the bookkeeping of doubling the width of an image - mapping every seam found on the
+ * shrinking copy back to the original image, then onto the growing image - with each
+ * SeamAdjuster, leaving out finding and inserting the seams themselves.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class SeamAdjusterBenchmark {
+
+  @Param({"default", "fenwick"})
+  public String adjuster;
+
+  @Param({"1920", "7680"})
+  public int width;
+
+  @Param({"64"})
+  public int height;
+
+  /**
+   * Seams as found on the shrinking copy, each a random walk starting within its width.
+   */
+  private int[][] foundSeams;
+
+  private int[][] seams;
+
+  @Setup(Level.Trial)
+  public void setUp() {
+    Random random = new Random(42);
+    foundSeams = new int[width][height];
+    for (int i = 0; i < width; i += 1) {
+      int copyWidth = width - i;
+      int x = random.nextInt(copyWidth);
+      for (int row = 0; row < height; row += 1) {
+        x = Math.max(0, Math.min(copyWidth - 1, x + random.nextInt(3) - 1));
+        foundSeams[i][row] = x;
+      }
+    }
+    seams = new int[width][height];
+  }
+
+  private SeamAdjuster newAdjuster() {
+    return adjuster.equals("fenwick") ? new FenwickSeamAdjuster(width)
+        : new DefaultSeamAdjuster(width);
+  }
+
+  @Benchmark
+  public int[][] adjustSeams() {
+    for (int i = 0; i < width; i += 1) {
+      System.arraycopy(foundSeams[i], 0, seams[i], 0, height);
+    }
+
+    SeamAdjuster removalSeamAdjuster = newAdjuster();
+    for (int[] seam : seams) {
+      removalSeamAdjuster.adjustPositionsInclusive(seam);
+    }
+    SeamAdjuster upscalingSeamAdjuster = newAdjuster();
+    for (int[] seam : seams) {
+      upscalingSeamAdjuster.adjustPositionsExclusive(seam);
+    }
+    return seams;
+  }
+}
@@ -0,0 +1,85 @@
+package seammanipulators;
+
+import energymaps.AverageSurroundingGradient;
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import seams.Seam;
+import utility.Coordinate;
+
+/**
+ * Measures removing and inserting a single seam. Both change the image, so a fresh
+ * DefaultSeamManipulator and seam are set up outside the measurement before every invocation.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class SeamMutationBenchmark {
+
+  @Param({"baron.png", "bird.png", "mountains.png", "yidris.png"})
+  public String imageName;
+
+  @Param({"128", "256", "512"})
+  public int size;
+
+  private BufferedImage image;
+
+  private DefaultSeamManipulator seamManipulator;
+
+  private Seam verticalSeam;
+
+  private Seam horizontalSeam;
+
+  @Setup(Level.Trial)
+  public void loadImage() throws IOException {
+    image = BenchmarkImages.load(imageName, size);
+  }
+
+  @Setup(Level.Invocation)
+  public void setUp() {
+    seamManipulator = new DefaultSeamManipulator(image, new AverageSurroundingGradient(), false);
+    verticalSeam = seamManipulator.findMinimumVerticalSeam();
+    horizontalSeam = seamManipulator.findMinimumHorizontalSeam();
+  }
+
+  @Benchmark
+  public Seam removeVerticalSeam() {
+    verticalSeam.remove();
+    return verticalSeam;
+  }
+
+  @Benchmark
+  public Seam removeHorizontalSeam() {
+    horizontalSeam.remove();
+    return horizontalSeam;
+  }
+
+  @Benchmark
+  public DefaultSeamManipulator insertVerticalSeam() {
+    Coordinate[] coordinates = verticalSeam.getCoordinates();
+    seamManipulator.insertVerticalCoordinates(coordinates);
+    return seamManipulator;
+  }
+
+  @Benchmark
+  public DefaultSeamManipulator insertHorizontalSeam() {
+    Coordinate[] coordinates = horizontalSeam.getCoordinates();
+    seamManipulator.insertHorizontalCoordinates(coordinates);
+    return seamManipulator;
+  }
+}
@@ -0,0 +1,64 @@
+package seammanipulators;
+
+import energymaps.AverageSurroundingGradient;
+import energymaps.VectorAverageSurroundingGradient;
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import pixel.PackedImage;
+
+/**
+ * Measures computing the energy map of a PackedImage a pixel at a time against a row at a time
+ * with the Vector API. The forked JVM is given the Vector API's module, so the vectorized energy
+ * map doesn't fall back to computing a pixel at a time.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "--add-modules=jdk.incubator.vector")
+public class VectorEnergyBenchmark {
+
+  @Param({"baron.png", "bird.png", "mountains.png", "yidris.png"})
+  public String imageName;
+
+  @Param({"128", "256", "512"})
+  public int size;
+
+  private final AverageSurroundingGradient scalarEnergyMapMaker = new AverageSurroundingGradient();
+
+  private final VectorAverageSurroundingGradient vectorEnergyMapMaker =
+      new VectorAverageSurroundingGradient();
+
+  private PackedImage image;
+
+  @Setup(Level.Trial)
+  public void setUp() throws IOException {
+    image = new PackedImage(BenchmarkImages.load(imageName, size));
+    if (!VectorAverageSurroundingGradient.isVectorized()) {
+      throw new IllegalStateException("The Vector API isn't available to benchmark!");
+    }
+  }
+
+  @Benchmark
+  public double scalarEnergyMap() {
+    return image.computeEnergyMap(scalarEnergyMapMaker);
+  }
+
+  @Benchmark
+  public double vectorEnergyMap() {
+    return image.computeEnergyMap(vectorEnergyMapMaker);
+  }
+}
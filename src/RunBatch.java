@@ -0,0 +1,49 @@
+import batch.BatchImage;
+import batch.BatchReport;
+import batch.BatchRunner;
+import batch.TargetSize;
+import energymaps.EnergyMapMaker;
+import energymaps.VectorAverageSurroundingGradient;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.List;
+import java.util.Map;
+import seammanipulators.ArraySeamManipulator;
+
+/**
+ * Point of entry to resize a batch of images, given as a directory of images or a manifest file
+ * listing them, then report the throughput and latency of the batch.
+ *
+ * Usage: {@code RunBatch <input directory or manifest> <output directory> <WIDTHxHEIGHT> [workers]}
+ */
+public class RunBatch {
+
+  public static void main(String[] args) throws IOException, InterruptedException {
+    if (args.length < 3 || args.length > 4) {
+      System.err.println("Usage: RunBatch <input directory or manifest> <output directory> "
+          + "<WIDTHxHEIGHT> [workers]");
+      System.exit(1);
+    }
+
+    Path input = Paths.get(args[0]);
+    Path outputDirectory = Paths.get(args[1]);
+    TargetSize targetSize = TargetSize.parse(args[2]);
+    int workers = args.length == 4 ? Integer.parseInt(args[3])
+        : Runtime.getRuntime().availableProcessors();
+
+    List<BatchImage> images = Files.isDirectory(input)
+        ? BatchImage.fromDirectory(input, targetSize) : BatchImage.fromManifest(input, targetSize);
+    EnergyMapMaker energyMap = new VectorAverageSurroundingGradient();
+    BatchRunner runner = new BatchRunner(
+        image -> new ArraySeamManipulator(image, energyMap, false), workers);
+
+    BatchReport report = runner.run(images, outputDirectory);
+    for (Map.Entry<Path, Exception> failure : report.getFailures().entrySet()) {
+      System.err.println("Failed to resize " + failure.getKey() + ": "
+          + failure.getValue().getMessage());
+    }
+    System.out.println(report);
+  }
+}
@@ -6,6 +6,7 @@ import java.nio.file.Paths;
 import javax.imageio.ImageIO;
 import masks.DefaultMask;
 import masks.Mask;
+import masks.RunLengthMask;
 import seammanipulators.DefaultSeamManipulator;
 import seammanipulators.SeamManipulator;
 
@@ -22,7 +23,7 @@ public class RunSeamUtilities {
     EnergyMapMaker energyMap = new AverageSurroundingGradient();
 
     Mask rectMask = new DefaultMask(300, 100, 450, 200);
-    Mask pathMask = new DefaultMask(maskPath);
+    Mask pathMask = new RunLengthMask(maskPath);
 
     SeamManipulator seamManipulator = new DefaultSeamManipulator(inputPath, energyMap, true);
     seamManipulator.replaceArea(pathMask);
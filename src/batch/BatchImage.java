@@ -0,0 +1,107 @@
+package batch;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * An image of a batch, and the size to resize it to.
+ */
+public final class BatchImage {
+
+  private final Path inputPath;
+
+  private final TargetSize targetSize;
+
+  public BatchImage(Path inputPath, TargetSize targetSize) {
+    if (inputPath == null) {
+      throw new IllegalArgumentException("Given input path can't be null!");
+    }
+    else if (targetSize == null) {
+      throw new IllegalArgumentException("Given target size can't be null!");
+    }
+    this.inputPath = inputPath;
+    this.targetSize = targetSize;
+  }
+
+  public Path getInputPath() {
+    return inputPath;
+  }
+
+  public TargetSize getTargetSize() {
+    return targetSize;
+  }
+
+  /**
+   * Lists every PNG, JPEG, GIF and BMP image directly inside the given {@param directory}, in
+   * order of file name, each to be resized to the given size.
+   *
+   * @param directory directory of images
+   * @param targetSize size to resize every image to
+   * @return the images of the batch
+   * @throws IOException if the given {@param directory} can't be listed
+   */
+  public static List<BatchImage> fromDirectory(Path directory, TargetSize targetSize)
+      throws IOException {
+    if (directory == null) {
+      throw new IllegalArgumentException("Given directory can't be null!");
+    }
+
+    try (Stream<Path> files = Files.list(directory)) {
+      return files
+          .filter(Files::isRegularFile)
+          .filter(file -> file.getFileName().toString().toLowerCase()
+              .matches(".*\\.(png|jpe?g|gif|bmp)"))
+          .sorted()
+          .map(file -> new BatchImage(file, targetSize))
+          .collect(Collectors.toList());
+    }
+  }
+
+  /**
+   * Reads the images listed in the given {@param manifest}, one per line as a file path -
+   * relative to the manifest's directory if not absolute - optionally followed by whitespace and
+   * a size to resize that image to instead of the given size, as {@link TargetSize#parse(String)}
+   * reads it. Blank lines and lines starting with {@code #} are skipped.
+   *
+   * @param manifest file listing the images of the batch
+   * @param targetSize size to resize each image to that isn't given its own
+   * @return the images of the batch
+   * @throws IOException if the given {@param manifest} can't be read
+   */
+  public static List<BatchImage> fromManifest(Path manifest, TargetSize targetSize)
+      throws IOException {
+    if (manifest == null) {
+      throw new IllegalArgumentException("Given manifest can't be null!");
+    }
+
+    Path directory = manifest.toAbsolutePath().getParent();
+    List<BatchImage> images = new ArrayList<>();
+    for (String line : Files.readAllLines(manifest)) {
+      line = line.trim();
+      if (line.isEmpty() || line.startsWith("#")) {
+        continue;
+      }
+
+      // The last word is the image's own size if it is one, else part of a path with spaces
+      String path = line;
+      TargetSize imageSize = targetSize;
+      int lastSpace = Math.max(line.lastIndexOf(' '), line.lastIndexOf('\t'));
+      if (lastSpace > 0) {
+        try {
+          imageSize = TargetSize.parse(line.substring(lastSpace + 1));
+          path = line.substring(0, lastSpace).trim();
+        }
+        catch (IllegalArgumentException e) {
+          imageSize = targetSize;
+        }
+      }
+      images.add(new BatchImage(directory.resolve(path), imageSize));
+    }
+    return images;
+  }
+}
@@ -0,0 +1,74 @@
+package batch;
+
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Map;
+
+/**
+ * Throughput and per image latency of a finished batch, along with the images that failed.
+ */
+public final class BatchReport {
+
+  private final long[] latencies;
+
+  private final long elapsedNanos;
+
+  private final Map<Path, Exception> failures;
+
+  /**
+   * @param latencies time taken by each image that was resized, from the start of its decode to
+   *                  the end of its save, in nanoseconds
+   * @param elapsedNanos time taken by the whole batch in nanoseconds
+   * @param failures each image that failed, and why
+   */
+  BatchReport(long[] latencies, long elapsedNanos, Map<Path, Exception> failures) {
+    this.latencies = latencies.clone();
+    Arrays.sort(this.latencies);
+    this.elapsedNanos = elapsedNanos;
+    this.failures = Collections.unmodifiableMap(failures);
+  }
+
+  /**
+   * @return number of images resized
+   */
+  public int getImageCount() {
+    return latencies.length;
+  }
+
+  public Map<Path, Exception> getFailures() {
+    return failures;
+  }
+
+  public double getElapsedSeconds() {
+    return elapsedNanos / 1e9;
+  }
+
+  public double getImagesPerSecond() {
+    return elapsedNanos == 0 ? 0 : latencies.length / getElapsedSeconds();
+  }
+
+  /**
+   * @param percentile percentile to find, between 0 and 100
+   * @return the given percentile of the time taken per image in milliseconds, by nearest rank, or
+   *         0 if no image was resized
+   */
+  public double getLatencyMillis(double percentile) {
+    if (!(percentile >= 0 && percentile <= 100)) {
+      throw new IllegalArgumentException("Given percentile must be between 0 and 100!");
+    }
+    else if (latencies.length == 0) {
+      return 0;
+    }
+
+    int rank = (int)Math.ceil(percentile / 100 * latencies.length);
+    return latencies[Math.max(0, rank - 1)] / 1e6;
+  }
+
+  @Override
+  public String toString() {
+    return String.format("%d images resized, %d failed, in %.2fs: %.2f images/s, "
+        + "p50 %.1fms, p99 %.1fms", getImageCount(), failures.size(), getElapsedSeconds(),
+        getImagesPerSecond(), getLatencyMillis(50), getLatencyMillis(99));
+  }
+}
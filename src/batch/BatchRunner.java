@@ -0,0 +1,239 @@
+package batch;
+
+import java.awt.image.BufferedImage;
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.Function;
+import javax.imageio.ImageIO;
+import seammanipulators.SeamManipulator;
+
+/**
+ * Resizes a batch of images concurrently. A fixed pool of workers each take the next decoded image,
+ * carve it with a SeamManipulator of its own - as a SeamManipulator holds the state of the image it
+ * carves, none is ever shared between threads - and save it. Meanwhile a decoder thread reads the
+ * images ahead of the workers, holding at most as many decoded images as there are workers, so
+ * each worker can start on its next image as soon as it finishes the last. SeamManipulators that
+ * are Closeable are closed once their image is saved, so threads they started don't outlive them.
+ */
+public class BatchRunner {
+
+  /**
+   * Placed after the last decoded image, telling each worker there are no more to take.
+   */
+  private static final DecodedImage endOfBatch = new DecodedImage(null, null, 0);
+
+  private final Function<BufferedImage, SeamManipulator> seamManipulatorFactory;
+
+  private final int workerCount;
+
+  /**
+   * @param seamManipulatorFactory creates a new SeamManipulator to carve the given image
+   * @param workerCount number of images to carve at once
+   * @throws IllegalArgumentException if the given {@param seamManipulatorFactory} is null or the
+   *                                  given {@param workerCount} is less than 1
+   */
+  public BatchRunner(Function<BufferedImage, SeamManipulator> seamManipulatorFactory,
+      int workerCount) {
+    if (seamManipulatorFactory == null) {
+      throw new IllegalArgumentException("Given seam manipulator factory can't be null!");
+    }
+    else if (workerCount < 1) {
+      throw new IllegalArgumentException("Given worker count must be at least 1!");
+    }
+    this.seamManipulatorFactory = seamManipulatorFactory;
+    this.workerCount = workerCount;
+  }
+
+  /**
+   * An image read by the decoder thread, waiting for a worker.
+   */
+  private static final class DecodedImage {
+
+    private final BatchImage batchImage;
+
+    private final BufferedImage image;
+
+    private final long decodeNanos;
+
+    private DecodedImage(BatchImage batchImage, BufferedImage image, long decodeNanos) {
+      this.batchImage = batchImage;
+      this.image = image;
+      this.decodeNanos = decodeNanos;
+    }
+  }
+
+  /**
+   * Resizes every given image, saving each as a PNG of the same name in the given
+   * {@param outputDirectory}. An image that fails is reported rather than stopping the batch, but
+   * an Error, such as running out of memory, stops every thread of the batch and is rethrown.
+   *
+   * @param images images to resize
+   * @param outputDirectory directory to save the resized images to
+   * @return throughput and latency of the batch
+   * @throws IllegalArgumentException if any two of the given {@param images} would be saved to
+   *                                  the same file
+   * @throws IOException if the given {@param outputDirectory} can't be created
+   * @throws InterruptedException if interrupted while waiting for the batch to finish
+   */
+  public BatchReport run(List<BatchImage> images, Path outputDirectory) throws IOException,
+      InterruptedException {
+    if (images == null) {
+      throw new IllegalArgumentException("Given images can't be null!");
+    }
+    else if (outputDirectory == null) {
+      throw new IllegalArgumentException("Given output directory can't be null!");
+    }
+    checkOutputNames(images);
+    Files.createDirectories(outputDirectory);
+
+    BlockingQueue<DecodedImage> decodedImages = new ArrayBlockingQueue<>(workerCount);
+    List<Long> latencies = Collections.synchronizedList(new ArrayList<>());
+    Map<Path, Exception> failures = Collections.synchronizedMap(new LinkedHashMap<>());
+
+    long batchStart = System.nanoTime();
+    ExecutorService pool = Executors.newFixedThreadPool(workerCount + 1);
+    CompletionService<Void> tasks = new ExecutorCompletionService<>(pool);
+    try {
+      tasks.submit(() -> {
+        decode(images, decodedImages, failures);
+        return null;
+      });
+      for (int i = 0; i < workerCount; i += 1) {
+        tasks.submit(() -> {
+          carve(decodedImages, outputDirectory, latencies, failures);
+          return null;
+        });
+      }
+
+      // Waits on the tasks in the order they finish, so one dying stops the batch at once rather
+      // than leaving the others blocked on a queue it would have filled or emptied
+      for (int i = 0; i < workerCount + 1; i += 1) {
+        try {
+          tasks.take().get();
+        }
+        catch (ExecutionException e) {
+          Throwable cause = e.getCause();
+          if (cause instanceof Error) {
+            throw (Error)cause;
+          }
+          else if (cause instanceof RuntimeException) {
+            throw (RuntimeException)cause;
+          }
+          throw new IllegalStateException("Batch failed!", cause);
+        }
+      }
+    }
+    finally {
+      pool.shutdownNow();
+    }
+    long elapsedNanos = System.nanoTime() - batchStart;
+
+    long[] latencyArray = new long[latencies.size()];
+    for (int i = 0; i < latencyArray.length; i += 1) {
+      latencyArray[i] = latencies.get(i);
+    }
+    return new BatchReport(latencyArray, elapsedNanos, failures);
+  }
+
+  private static void checkOutputNames(List<BatchImage> images) {
+    Map<String, Path> inputPaths = new HashMap<>();
+    for (BatchImage batchImage : images) {
+      if (batchImage == null) {
+        throw new IllegalArgumentException("Given images can't contain null!");
+      }
+
+      Path inputPath = batchImage.getInputPath();
+      String outputName = getOutputName(inputPath);
+      Path clashingPath = inputPaths.putIfAbsent(outputName, inputPath);
+      if (clashingPath != null) {
+        throw new IllegalArgumentException("Given images " + clashingPath + " and " + inputPath
+            + " would both be saved as " + outputName + "!");
+      }
+    }
+  }
+
+  /**
+   * Reads each image in turn, blocking while the workers already have an image waiting each. The
+   * end of the batch is placed after the last image even if reading fails outright.
+   */
+  private void decode(List<BatchImage> images, BlockingQueue<DecodedImage> decodedImages,
+      Map<Path, Exception> failures) throws InterruptedException {
+    try {
+      for (BatchImage batchImage : images) {
+        long decodeStart = System.nanoTime();
+        try {
+          BufferedImage image = ImageIO.read(batchImage.getInputPath().toFile());
+          if (image == null) {
+            throw new IOException("Given file isn't an image that can be read!");
+          }
+          decodedImages.put(new DecodedImage(batchImage, image, System.nanoTime() - decodeStart));
+        }
+        catch (IOException | RuntimeException e) {
+          failures.put(batchImage.getInputPath(), e);
+        }
+      }
+    }
+    finally {
+      decodedImages.put(endOfBatch);
+    }
+  }
+
+  /**
+   * Carves and saves decoded images until the end of the batch, recording how long each took from
+   * the start of its decode, less any time it spent waiting for a worker.
+   */
+  private void carve(BlockingQueue<DecodedImage> decodedImages, Path outputDirectory,
+      List<Long> latencies, Map<Path, Exception> failures) throws InterruptedException {
+    while (true) {
+      DecodedImage decoded = decodedImages.take();
+      if (decoded == endOfBatch) {
+        // Leave the end in place for the other workers
+        decodedImages.put(endOfBatch);
+        return;
+      }
+
+      long carveStart = System.nanoTime();
+      Path inputPath = decoded.batchImage.getInputPath();
+      try {
+        TargetSize targetSize = decoded.batchImage.getTargetSize();
+        SeamManipulator seamManipulator = seamManipulatorFactory.apply(decoded.image);
+        try {
+          seamManipulator.resize(targetSize.getWidth(decoded.image.getWidth()),
+              targetSize.getHeight(decoded.image.getHeight()));
+          seamManipulator.saveCurrentImage(outputDirectory.resolve(getOutputName(inputPath)));
+        }
+        finally {
+          // Lets go of whatever the seam manipulator holds, such as a pool of its own
+          if (seamManipulator instanceof Closeable) {
+            ((Closeable)seamManipulator).close();
+          }
+        }
+        latencies.add(decoded.decodeNanos + System.nanoTime() - carveStart);
+      }
+      catch (IOException | RuntimeException e) {
+        failures.put(inputPath, e);
+      }
+    }
+  }
+
+  private static String getOutputName(Path inputPath) {
+    String fileName = inputPath.getFileName().toString();
+    int extension = fileName.lastIndexOf('.');
+    return (extension > 0 ? fileName.substring(0, extension) : fileName) + ".png";
+  }
+}
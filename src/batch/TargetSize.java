@@ -0,0 +1,96 @@
+package batch;
+
+/**
+ * Size to resize each image of a batch to, written as {@code WIDTHxHEIGHT} where each dimension
+ * is a number of pixels ({@code 800}), a percentage of the image's own ({@code 75%}), or
+ * {@code *} to leave it as it is - such as {@code 800x600}, {@code 50%x100%} or {@code 1024x*}.
+ */
+public final class TargetSize {
+
+  /**
+   * Each dimension as a number of pixels, or as the negated percentage of the image's own.
+   */
+  private final int width;
+
+  private final int height;
+
+  private TargetSize(int width, int height) {
+    this.width = width;
+    this.height = height;
+  }
+
+  /**
+   * Parses the given size.
+   *
+   * @param spec size written as {@code WIDTHxHEIGHT}
+   * @return the parsed size
+   * @throws IllegalArgumentException if the given {@param spec} is null or malformed
+   */
+  public static TargetSize parse(String spec) {
+    if (spec == null) {
+      throw new IllegalArgumentException("Given size can't be null!");
+    }
+
+    String[] dimensions = spec.trim().toLowerCase().split("x", -1);
+    if (dimensions.length != 2) {
+      throw new IllegalArgumentException("Given size must be written as WIDTHxHEIGHT!");
+    }
+    return new TargetSize(parseDimension(dimensions[0]), parseDimension(dimensions[1]));
+  }
+
+  private static int parseDimension(String dimension) {
+    try {
+      if (dimension.equals("*")) {
+        return -100;
+      }
+      else if (dimension.endsWith("%")) {
+        int percentage = Integer.parseInt(dimension.substring(0, dimension.length() - 1));
+        if (percentage < 1) {
+          throw new IllegalArgumentException("Given percentages must be at least 1%!");
+        }
+        return -percentage;
+      }
+
+      int pixels = Integer.parseInt(dimension);
+      if (pixels < 1) {
+        throw new IllegalArgumentException("Given sizes must be at least 1 pixel!");
+      }
+      return pixels;
+    }
+    catch (NumberFormatException e) {
+      throw new IllegalArgumentException("Given size has a malformed dimension: " + dimension);
+    }
+  }
+
+  private static int resolve(int dimension, int originalDimension) {
+    if (dimension > 0) {
+      return dimension;
+    }
+    return Math.max(1, (int)Math.round(originalDimension * -dimension / 100.0));
+  }
+
+  /**
+   * @param originalWidth width of the image being resized
+   * @return width to resize the image to
+   */
+  public int getWidth(int originalWidth) {
+    return resolve(width, originalWidth);
+  }
+
+  /**
+   * @param originalHeight height of the image being resized
+   * @return height to resize the image to
+   */
+  public int getHeight(int originalHeight) {
+    return resolve(height, originalHeight);
+  }
+
+  @Override
+  public String toString() {
+    return format(width) + "x" + format(height);
+  }
+
+  private static String format(int dimension) {
+    return dimension > 0 ? Integer.toString(dimension) : -dimension + "%";
+  }
+}
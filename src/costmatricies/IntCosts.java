@@ -0,0 +1,44 @@
+package costmatricies;
+
+/**
+ * Sentinels and overflow safe arithmetic for cost matrices of fixed point int energies. Costs
+ * saturate rather than wrap, staying strictly below the cost of a pixel outside of the image so a
+ * seam never strays outside, just as BorderPixels keep it inside.
+ */
+public final class IntCosts {
+
+  /**
+   * Cost of a pixel outside of the image, matching that of a BorderPixel.
+   */
+  public static final int BORDER_COST = Integer.MAX_VALUE;
+
+  /**
+   * Largest cost of a pixel inside of the image.
+   */
+  public static final int MAX_COST = Integer.MAX_VALUE - 1;
+
+  /**
+   * Smallest cost of a pixel inside of the image, reached through many removal masks.
+   */
+  public static final int MIN_COST = Integer.MIN_VALUE;
+
+  private IntCosts() {
+  }
+
+  /**
+   * Adds the given energy to the given cost, saturating at {@link #MIN_COST} and
+   * {@link #MAX_COST} rather than overflowing.
+   *
+   * @param energy energy of a pixel
+   * @param cost least cost of the pixels leading to it
+   * @return the pixel's cost
+   */
+  public static int add(int energy, int cost) {
+    int sum = energy + cost;
+    // Overflowed if the sum's sign differs from that of both operands
+    if (((energy ^ sum) & (cost ^ sum)) < 0) {
+      return cost < 0 ? MIN_COST : MAX_COST;
+    }
+    return Math.min(sum, MAX_COST);
+  }
+}
@@ -0,0 +1,21 @@
+package costmatricies.horizontal;
+
+/**
+ * Computes a horizontal cost matrix of fixed point int energies stored in row-major order, one
+ * column at a time from the left column right.
+ */
+public interface IntHorizontalCostMatrix {
+
+  /**
+   * Computes the cost of every pixel in the given {@param column}, from the costs of the column to
+   * its left.
+   *
+   * @param energies fixed point energies of the image, pixel (x, y) found at
+   *                 {@code y * stride + x}
+   * @param costs costs of the image, laid out as the energies, to write the column's costs to
+   * @param stride distance between the start of two consecutive rows
+   * @param height height of the image
+   * @param column column to compute the costs of
+   */
+  void computeColumn(int[] energies, int[] costs, int stride, int height, int column);
+}
@@ -0,0 +1,30 @@
+package costmatricies.horizontal;
+
+import costmatricies.IntCosts;
+
+public class IntHorizontalEnergy implements IntHorizontalCostMatrix {
+
+  @Override
+  public void computeColumn(int[] energies, int[] costs, int stride, int height, int column) {
+    if (energies == null || costs == null) {
+      throw new IllegalArgumentException("Given arrays can't be null!");
+    }
+
+    if (column == 0) {
+      for (int idx = 0; idx < height * stride; idx += stride) {
+        costs[idx] = energies[idx];
+      }
+      return;
+    }
+
+    for (int y = 0; y < height; y += 1) {
+      int idx = y * stride + column;
+      int upperLeftCost = y > 0 ? costs[idx - stride - 1] : IntCosts.BORDER_COST;
+      int leftCost = costs[idx - 1];
+      int lowerLeftCost = y < height - 1 ? costs[idx + stride - 1] : IntCosts.BORDER_COST;
+
+      costs[idx] = IntCosts.add(energies[idx], Math.min(upperLeftCost,
+          Math.min(leftCost, lowerLeftCost)));
+    }
+  }
+}
@@ -0,0 +1,20 @@
+package costmatricies.vertical;
+
+/**
+ * Computes a vertical cost matrix of fixed point int energies stored in row-major order, one row
+ * at a time from the top row down.
+ */
+public interface IntVerticalCostMatrix {
+
+  /**
+   * Computes the cost of every pixel in the given {@param row}, from the costs of the row above.
+   *
+   * @param energies fixed point energies of the image, pixel (x, y) found at
+   *                 {@code y * stride + x}
+   * @param costs costs of the image, laid out as the energies, to write the row's costs to
+   * @param stride distance between the start of two consecutive rows
+   * @param width width of the image
+   * @param row row to compute the costs of
+   */
+  void computeRow(int[] energies, int[] costs, int stride, int width, int row);
+}
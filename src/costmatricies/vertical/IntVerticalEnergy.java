@@ -0,0 +1,29 @@
+package costmatricies.vertical;
+
+import costmatricies.IntCosts;
+
+public class IntVerticalEnergy implements IntVerticalCostMatrix {
+
+  @Override
+  public void computeRow(int[] energies, int[] costs, int stride, int width, int row) {
+    if (energies == null || costs == null) {
+      throw new IllegalArgumentException("Given arrays can't be null!");
+    }
+
+    int rowStart = row * stride;
+    if (row == 0) {
+      System.arraycopy(energies, rowStart, costs, rowStart, width);
+      return;
+    }
+
+    int aboveStart = rowStart - stride;
+    for (int x = 0; x < width; x += 1) {
+      int upperLeftCost = x > 0 ? costs[aboveStart + x - 1] : IntCosts.BORDER_COST;
+      int upperCenterCost = costs[aboveStart + x];
+      int upperRightCost = x < width - 1 ? costs[aboveStart + x + 1] : IntCosts.BORDER_COST;
+
+      costs[rowStart + x] = IntCosts.add(energies[rowStart + x], Math.min(upperLeftCost,
+          Math.min(upperCenterCost, upperRightCost)));
+    }
+  }
+}
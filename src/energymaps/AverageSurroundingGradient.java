@@ -1,9 +1,10 @@
 package energymaps;
 
-import java.awt.Color;
+import pixel.PackedColors;
 import pixel.Pixel;
 
-public class AverageSurroundingGradient implements EnergyMapMaker {
+public class AverageSurroundingGradient implements EnergyMapMaker, PackedEnergyMapMaker,
+    IntEnergyMapMaker {
 
   @Override
   public void computeEnergy(Pixel pixel) {
@@ -14,24 +15,105 @@ public class AverageSurroundingGradient implements EnergyMapMaker {
       throw new IllegalArgumentException("Given pixel can't be a border pixel!");
     }
 
-    Color[] colors = new Color[]{pixel.getLeftPixel().getColor(),
-        pixel.getUpperLeftPixel().getColor(), pixel.getAbovePixel().getColor(),
-        pixel.getUpperRightPixel().getColor(), pixel.getRightPixel().getColor(),
-        pixel.getLowerRightPixel().getColor(), pixel.getLowerLeftPixel().getColor()};
+    // Packed colors rather than Colors, so computing an energy allocates nothing
+    int current = pixel.getRGB();
+    int cumulativeDifference = difference(current, pixel.getLeftPixel().getRGB());
+    cumulativeDifference += difference(current, pixel.getUpperLeftPixel().getRGB());
+    cumulativeDifference += difference(current, pixel.getAbovePixel().getRGB());
+    cumulativeDifference += difference(current, pixel.getUpperRightPixel().getRGB());
+    cumulativeDifference += difference(current, pixel.getRightPixel().getRGB());
+    cumulativeDifference += difference(current, pixel.getLowerRightPixel().getRGB());
+    cumulativeDifference += difference(current, pixel.getLowerLeftPixel().getRGB());
+    pixel.setEnergyMapEnergy((double)cumulativeDifference / 8);
+  }
 
-    Color currentColor = pixel.getColor();
-    int currentRed = currentColor.getRed();
-    int currentGreen = currentColor.getGreen();
-    int currentBlue = currentColor.getBlue();
+  @Override
+  public void computeEnergy(int[] pixels, int stride, int width, int height, int row,
+      double[] energies) {
+    computeEnergy(pixels, stride, width, height, row, 0, width, energies);
+  }
 
-    double cumulativeDifference = 0;
+  @Override
+  public void computeEnergy(int[] pixels, int stride, int width, int height, int row, int fromX,
+      int toX, double[] energies) {
+    if (pixels == null || energies == null) {
+      throw new IllegalArgumentException("Given arrays can't be null!");
+    }
+    else if (row < 0 || row >= height) {
+      throw new IllegalArgumentException("Given row must be in the bounds of the image!");
+    }
+    else if (fromX < 0 || toX > width) {
+      throw new IllegalArgumentException("Given x coordinates must be in the bounds of the image!");
+    }
 
-    for (Color color : colors) {
-      int red = Math.abs(color.getRed() - currentRed);
-      int green = Math.abs(color.getGreen() - currentGreen);
-      int blue = Math.abs(color.getBlue() - currentBlue);
-      cumulativeDifference += (double)((red + green + blue) / 3);
+    for (int x = fromX; x < toX; x += 1) {
+      energies[x] = (double)getCumulativeDifference(pixels, stride, width, height, row, x) / 8;
     }
-    pixel.setEnergyMapEnergy(cumulativeDifference / 8);
+  }
+
+  /**
+   * Computes the same energies as {@link #computeEnergy(int[], int, int, int, int, double[])} as
+   * fixed point ints. The energy is a sum of whole differences divided by 8, the
+   * {@link IntEnergyMapMaker#ENERGY_SCALE}, so the fixed point energies are exact.
+   */
+  @Override
+  public void computeEnergy(int[] pixels, int stride, int width, int height, int row,
+      int[] energies) {
+    computeEnergy(pixels, stride, width, height, row, 0, width, energies);
+  }
+
+  @Override
+  public void computeEnergy(int[] pixels, int stride, int width, int height, int row, int fromX,
+      int toX, int[] energies) {
+    if (pixels == null || energies == null) {
+      throw new IllegalArgumentException("Given arrays can't be null!");
+    }
+    else if (row < 0 || row >= height) {
+      throw new IllegalArgumentException("Given row must be in the bounds of the image!");
+    }
+    else if (fromX < 0 || toX > width) {
+      throw new IllegalArgumentException("Given x coordinates must be in the bounds of the image!");
+    }
+
+    for (int x = fromX; x < toX; x += 1) {
+      energies[x] = getCumulativeDifference(pixels, stride, width, height, row, x);
+    }
+  }
+
+  /**
+   * Sums the differences between the pixel at (x, row) and seven of its neighbours, all but the
+   * one below it, as the Pixel energy does.
+   */
+  private int getCumulativeDifference(int[] pixels, int stride, int width, int height, int row,
+      int x) {
+    boolean hasAbove = row > 0;
+    boolean hasBelow = row < height - 1;
+    boolean hasLeft = x > 0;
+    boolean hasRight = x < width - 1;
+    int idx = row * stride + x;
+    int current = pixels[idx];
+
+    int cumulativeDifference = difference(current, hasLeft ? pixels[idx - 1]
+        : PackedColors.BLACK);
+    cumulativeDifference += difference(current, hasAbove && hasLeft
+        ? pixels[idx - stride - 1] : PackedColors.BLACK);
+    cumulativeDifference += difference(current, hasAbove ? pixels[idx - stride]
+        : PackedColors.BLACK);
+    cumulativeDifference += difference(current, hasAbove && hasRight
+        ? pixels[idx - stride + 1] : PackedColors.BLACK);
+    cumulativeDifference += difference(current, hasRight ? pixels[idx + 1]
+        : PackedColors.BLACK);
+    cumulativeDifference += difference(current, hasBelow && hasRight
+        ? pixels[idx + stride + 1] : PackedColors.BLACK);
+    cumulativeDifference += difference(current, hasBelow && hasLeft
+        ? pixels[idx + stride - 1] : PackedColors.BLACK);
+    return cumulativeDifference;
+  }
+
+  private int difference(int rgb, int otherRgb) {
+    int red = Math.abs(PackedColors.getRed(otherRgb) - PackedColors.getRed(rgb));
+    int green = Math.abs(PackedColors.getGreen(otherRgb) - PackedColors.getGreen(rgb));
+    int blue = Math.abs(PackedColors.getBlue(otherRgb) - PackedColors.getBlue(rgb));
+    return (red + green + blue) / 3;
   }
 }
@@ -0,0 +1,39 @@
+package energymaps;
+
+/**
+ * Computes the energy map of an image stored as packed ARGB ints in row-major order, one row at a
+ * time. Pixels outside of the image are treated as black, just as BorderPixels are.
+ */
+public interface PackedEnergyMapMaker {
+
+  /**
+   * Computes the energy of every pixel in the given {@param row} of the image.
+   *
+   * @param pixels packed colors of the image, pixel (x, y) found at {@code y * stride + x}
+   * @param stride distance between the start of two consecutive rows in {@param pixels}
+   * @param width width of the image
+   * @param height height of the image
+   * @param row row to compute the energies of
+   * @param energies array to write the energy of pixel (x, row) to at index x
+   */
+  void computeEnergy(int[] pixels, int stride, int width, int height, int row, double[] energies);
+
+  /**
+   * Computes the energy of the pixels from {@param fromX} up to {@param toX} in the given
+   * {@param row} of the image, for when only part of the energy map is needed. Energies of other
+   * pixels in the row may be written too.
+   *
+   * @param pixels packed colors of the image, pixel (x, y) found at {@code y * stride + x}
+   * @param stride distance between the start of two consecutive rows in {@param pixels}
+   * @param width width of the image
+   * @param height height of the image
+   * @param row row to compute the energies of
+   * @param fromX first x coordinate to compute the energy of
+   * @param toX x coordinate after the last to compute the energy of
+   * @param energies array to write the energy of pixel (x, row) to at index x
+   */
+  default void computeEnergy(int[] pixels, int stride, int width, int height, int row, int fromX,
+      int toX, double[] energies) {
+    computeEnergy(pixels, stride, width, height, row, energies);
+  }
+}
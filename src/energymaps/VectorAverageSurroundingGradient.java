@@ -0,0 +1,66 @@
+package energymaps;
+
+/**
+ * The AverageSurroundingGradient, computing the energies of packed images a whole row at a time
+ * with the incubating Vector API - SIMD instructions working on many pixels at once - where it is
+ * available. The Vector API is only available when the {@code jdk.incubator.vector} module is
+ * added, with {@code --add-modules jdk.incubator.vector}; without it every energy is computed one
+ * pixel at a time as the AverageSurroundingGradient does. Either way the energies are identical to
+ * the AverageSurroundingGradient's, bit for bit.
+ */
+public class VectorAverageSurroundingGradient extends AverageSurroundingGradient {
+
+  private static final boolean vectorApiAvailable = isVectorApiAvailable();
+
+  private static boolean isVectorApiAvailable() {
+    try {
+      Class.forName("jdk.incubator.vector.IntVector");
+      return true;
+    }
+    catch (ClassNotFoundException | LinkageError e) {
+      return false;
+    }
+  }
+
+  /**
+   * @return if energies are being computed with the Vector API, rather than one pixel at a time
+   */
+  public static boolean isVectorized() {
+    return vectorApiAvailable;
+  }
+
+  @Override
+  public void computeEnergy(int[] pixels, int stride, int width, int height, int row, int fromX,
+      int toX, double[] energies) {
+    if (!vectorApiAvailable) {
+      super.computeEnergy(pixels, stride, width, height, row, fromX, toX, energies);
+      return;
+    }
+    validRow(pixels, energies, width, height, row, fromX, toX);
+    VectorGradientKernel.computeEnergies(pixels, stride, width, height, row, fromX, toX, energies);
+  }
+
+  @Override
+  public void computeEnergy(int[] pixels, int stride, int width, int height, int row,
+      int[] energies) {
+    if (!vectorApiAvailable) {
+      super.computeEnergy(pixels, stride, width, height, row, energies);
+      return;
+    }
+    validRow(pixels, energies, width, height, row, 0, width);
+    VectorGradientKernel.computeSums(pixels, stride, width, height, row, 0, width, energies);
+  }
+
+  private static void validRow(int[] pixels, Object energies, int width, int height, int row,
+      int fromX, int toX) {
+    if (pixels == null || energies == null) {
+      throw new IllegalArgumentException("Given arrays can't be null!");
+    }
+    else if (row < 0 || row >= height) {
+      throw new IllegalArgumentException("Given row must be in the bounds of the image!");
+    }
+    else if (fromX < 0 || toX > width) {
+      throw new IllegalArgumentException("Given x coordinates must be in the bounds of the image!");
+    }
+  }
+}
@@ -0,0 +1,184 @@
+package energymaps;
+
+import jdk.incubator.vector.IntVector;
+import jdk.incubator.vector.VectorOperators;
+import jdk.incubator.vector.VectorSpecies;
+
+/**
+ * Computes the sums of differences of the AverageSurroundingGradient for a whole row at once with
+ * the incubating Vector API. The three rows involved are first split into arrays of red, green and
+ * blue channels, padded with black either side, so every neighbour of a run of pixels is a single
+ * vector load away. Only loaded by the VectorAverageSurroundingGradient once the Vector API is
+ * known to be available.
+ */
+final class VectorGradientKernel {
+
+  private static final VectorSpecies<Integer> SPECIES = IntVector.SPECIES_PREFERRED;
+
+  /**
+   * Multiplying a difference by this then shifting it right by {@link #divideByThreeShift}
+   * divides it by 3, exactly for every difference up to 3 * 255.
+   */
+  private static final int divideByThreeMultiplier = 43691;
+
+  private static final int divideByThreeShift = 17;
+
+  /**
+   * Channel row - 0 above, 1 at and 2 below the row being computed - and offset into the channel
+   * arrays of the left, upper left, above, upper right, right, lower right and lower left
+   * neighbours of the pixel at the offset's index less one.
+   */
+  private static final int[] neighbourRows = {1, 0, 0, 0, 1, 2, 2};
+
+  private static final int[] neighbourOffsets = {0, 0, 1, 2, 2, 2, 0};
+
+  /**
+   * Channel arrays of the rows above, at and below the row being computed, each one pixel longer
+   * either side than the row, followed by the sums of the row, kept per thread so the kernel can
+   * be shared.
+   */
+  private static final ThreadLocal<int[][]> scratch =
+      ThreadLocal.withInitial(() -> new int[10][0]);
+
+  private VectorGradientKernel() {
+  }
+
+  /**
+   * Writes the energy, the sum of the differences divided by 8, of each pixel from {@param fromX}
+   * up to {@param toX} of the given {@param row} to the given {@param energies}, at index x.
+   */
+  static void computeEnergies(int[] pixels, int stride, int width, int height, int row,
+      int fromX, int toX, double[] energies) {
+    computeSums(pixels, stride, width, height, row, fromX, toX, null);
+    int[] sums = scratch.get()[9];
+    for (int x = fromX; x < toX; x += 1) {
+      energies[x] = (double)sums[x] / 8;
+    }
+  }
+
+  /**
+   * Writes the sum of the differences between each pixel from {@param fromX} up to {@param toX} of
+   * the given {@param row} and seven of its neighbours to the given {@param sums}, at index x, or to
+   * the scratch sums if null.
+   */
+  static void computeSums(int[] pixels, int stride, int width, int height, int row, int fromX,
+      int toX, int[] sums) {
+    int[][] channels = scratch.get();
+    if (channels[0].length < width + 2) {
+      channels = new int[10][width + 2];
+      scratch.set(channels);
+    }
+    if (sums == null) {
+      sums = channels[9];
+    }
+
+    // Only the channels of the pixels next to the computed ones are needed
+    int unpackFrom = Math.max(0, fromX - 1);
+    int unpackTo = Math.min(width, toX + 1);
+    for (int i = 0; i < 3; i += 1) {
+      int channelRow = row - 1 + i;
+      if (channelRow < 0 || channelRow >= height) {
+        clear(channels, i, unpackFrom, unpackTo);
+      }
+      else {
+        unpack(pixels, channelRow * stride, unpackFrom, unpackTo, channels, i);
+      }
+      // Black either side of the row
+      channels[i * 3][0] = 0;
+      channels[i * 3 + 1][0] = 0;
+      channels[i * 3 + 2][0] = 0;
+      channels[i * 3][width + 1] = 0;
+      channels[i * 3 + 1][width + 1] = 0;
+      channels[i * 3 + 2][width + 1] = 0;
+    }
+
+    int[] aboveRed = channels[0];
+    int[] aboveGreen = channels[1];
+    int[] aboveBlue = channels[2];
+    int[] red = channels[3];
+    int[] green = channels[4];
+    int[] blue = channels[5];
+    int[] belowRed = channels[6];
+    int[] belowGreen = channels[7];
+    int[] belowBlue = channels[8];
+
+    // Pixel x of the row is at index x + 1 of each channel array, so the neighbours of a run of
+    // pixels starting at x are runs starting at x, x + 1 or x + 2 of one of the rows
+    int x = fromX;
+    int bound = fromX + SPECIES.loopBound(toX - fromX);
+    for (; x < bound; x += SPECIES.length()) {
+      IntVector currentRed = IntVector.fromArray(SPECIES, red, x + 1);
+      IntVector currentGreen = IntVector.fromArray(SPECIES, green, x + 1);
+      IntVector currentBlue = IntVector.fromArray(SPECIES, blue, x + 1);
+
+      // Kept in one method rather than a helper per neighbour, as the vectors are only kept out
+      // of the heap while every vector operation is inlined
+      IntVector sum = IntVector.zero(SPECIES);
+      for (int i = 0; i < neighbourOffsets.length; i += 1) {
+        int channel = neighbourRows[i] * 3;
+        int offset = x + neighbourOffsets[i];
+        IntVector total = IntVector.fromArray(SPECIES, channels[channel], offset)
+            .sub(currentRed).abs()
+            .add(IntVector.fromArray(SPECIES, channels[channel + 1], offset)
+                .sub(currentGreen).abs())
+            .add(IntVector.fromArray(SPECIES, channels[channel + 2], offset)
+                .sub(currentBlue).abs());
+        sum = sum.add(total.mul(divideByThreeMultiplier)
+            .lanewise(VectorOperators.LSHR, divideByThreeShift));
+      }
+      sum.intoArray(sums, x);
+    }
+
+    for (; x < toX; x += 1) {
+      int idx = x + 1;
+      int sum = difference(red, green, blue, idx, red, green, blue, idx - 1);
+      sum += difference(red, green, blue, idx, aboveRed, aboveGreen, aboveBlue, idx - 1);
+      sum += difference(red, green, blue, idx, aboveRed, aboveGreen, aboveBlue, idx);
+      sum += difference(red, green, blue, idx, aboveRed, aboveGreen, aboveBlue, idx + 1);
+      sum += difference(red, green, blue, idx, red, green, blue, idx + 1);
+      sum += difference(red, green, blue, idx, belowRed, belowGreen, belowBlue, idx + 1);
+      sum += difference(red, green, blue, idx, belowRed, belowGreen, belowBlue, idx - 1);
+      sums[x] = sum;
+    }
+  }
+
+  private static int difference(int[] red, int[] green, int[] blue, int idx, int[] otherRed,
+      int[] otherGreen, int[] otherBlue, int otherIdx) {
+    return (Math.abs(otherRed[otherIdx] - red[idx]) + Math.abs(otherGreen[otherIdx] - green[idx])
+        + Math.abs(otherBlue[otherIdx] - blue[idx])) / 3;
+  }
+
+  /**
+   * Splits the pixels from {@param fromX} up to {@param toX} of the row starting at
+   * {@param rowStart} into the red, green and blue arrays of the given channel row.
+   */
+  private static void unpack(int[] pixels, int rowStart, int fromX, int toX, int[][] channels,
+      int channelRow) {
+    int[] red = channels[channelRow * 3];
+    int[] green = channels[channelRow * 3 + 1];
+    int[] blue = channels[channelRow * 3 + 2];
+
+    int x = fromX;
+    int bound = fromX + SPECIES.loopBound(toX - fromX);
+    for (; x < bound; x += SPECIES.length()) {
+      IntVector rgb = IntVector.fromArray(SPECIES, pixels, rowStart + x);
+      rgb.lanewise(VectorOperators.LSHR, 16).and(0xFF).intoArray(red, x + 1);
+      rgb.lanewise(VectorOperators.LSHR, 8).and(0xFF).intoArray(green, x + 1);
+      rgb.and(0xFF).intoArray(blue, x + 1);
+    }
+    for (; x < toX; x += 1) {
+      int rgb = pixels[rowStart + x];
+      red[x + 1] = (rgb >>> 16) & 0xFF;
+      green[x + 1] = (rgb >>> 8) & 0xFF;
+      blue[x + 1] = rgb & 0xFF;
+    }
+  }
+
+  private static void clear(int[][] channels, int channelRow, int fromX, int toX) {
+    for (int i = channelRow * 3; i < channelRow * 3 + 3; i += 1) {
+      for (int x = fromX; x < toX; x += 1) {
+        channels[i][x + 1] = 0;
+      }
+    }
+  }
+}
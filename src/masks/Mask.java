@@ -15,6 +15,48 @@ public interface Mask {
    */
   Coordinate[] getCoordinates();
 
+  /**
+   * Receives each run of consecutive masked pixels along a row of a Mask.
+   */
+  @FunctionalInterface
+  interface RunConsumer {
+
+    /**
+     * @param y row of the run
+     * @param fromX x coordinate of the first pixel of the run
+     * @param toX x coordinate after the last pixel of the run
+     */
+    void accept(int y, int fromX, int toX);
+  }
+
+  /**
+   * Passes every run of consecutive masked pixels along a row to the given {@param consumer}, so
+   * whole spans can be masked at once rather than coordinate by coordinate. Runs are built from
+   * {@link #getCoordinates()} unless overridden.
+   *
+   * @param consumer receives each run
+   */
+  default void forEachRun(RunConsumer consumer) {
+    if (consumer == null) {
+      throw new IllegalArgumentException("Given consumer can't be null!");
+    }
+
+    Coordinate[] coordinates = getCoordinates();
+    int i = 0;
+    while (i < coordinates.length) {
+      int y = coordinates[i].getY();
+      int fromX = coordinates[i].getX();
+      int toX = fromX + 1;
+      i += 1;
+      while (i < coordinates.length && coordinates[i].getY() == y
+          && coordinates[i].getX() == toX) {
+        toX += 1;
+        i += 1;
+      }
+      consumer.accept(y, fromX, toX);
+    }
+  }
+
   int getMaxX();
 
   int getMinX();
@@ -0,0 +1,244 @@
+package masks;
+
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import javax.imageio.ImageIO;
+import utility.Coordinate;
+
+/**
+ * Mask that stores, for each row, the runs of consecutive masked pixels rather than a Coordinate
+ * per pixel, so even a mask covering most of a large image takes two ints per run. Masks are
+ * applied a run at a time through {@link #forEachRun(RunConsumer)}; the Coordinates of
+ * {@link #getCoordinates()} are only made if asked for.
+ */
+public class RunLengthMask implements Mask {
+
+  private static final int WHITE = 0xFFFFFF;
+
+  private final int maxX;
+
+  private final int minX;
+
+  private final int maxY;
+
+  private final int minY;
+
+  /**
+   * Index into {@link #runs} of the first run of each row from {@link #minY}, followed by the
+   * number of runs.
+   */
+  private final int[] rowStarts;
+
+  /**
+   * Start and end, exclusive, of every run, row by row.
+   */
+  private final int[] runs;
+
+  private final int pixelCount;
+
+  private Coordinate[] coordinates;
+
+  /**
+   * Constructor for this RunLengthMask that masks every pixel within the given rectangular box,
+   * corners included.
+   *
+   * @param upperLeftX x coordinate of the box's upper left corner
+   * @param upperLeftY y coordinate of the box's upper left corner
+   * @param lowerRightX x coordinate of the box's lower right corner
+   * @param lowerRightY y coordinate of the box's lower right corner
+   * @throws IllegalArgumentException if any of the four values are negative, or if any of the
+   *                                  values in the upper left corner are equal to or greater than
+   *                                  any of the associated values in the lower right corner
+   */
+  public RunLengthMask(int upperLeftX, int upperLeftY, int lowerRightX, int lowerRightY) {
+    if (upperLeftX < 0 || upperLeftY < 0 || lowerRightX < 0 || lowerRightY < 0) {
+      throw new IllegalArgumentException("Given coordinates can't be negative!");
+    }
+    else if (upperLeftX >= lowerRightX) {
+      throw new IllegalArgumentException("Given upper left x coordinate must be at least 1 unit "
+          + "less than the given lower right x coordinate!");
+    }
+    else if (upperLeftY >= lowerRightY) {
+      throw new IllegalArgumentException("Given upper left y coordinate must be at least 1 unit "
+          + "less than the given lower right y coordinate!");
+    }
+
+    maxX = lowerRightX;
+    minX = upperLeftX;
+    maxY = lowerRightY;
+    minY = upperLeftY;
+
+    int rows = lowerRightY - upperLeftY + 1;
+    rowStarts = new int[rows + 1];
+    runs = new int[rows * 2];
+    for (int row = 0; row < rows; row += 1) {
+      rowStarts[row] = row;
+      runs[row * 2] = upperLeftX;
+      runs[row * 2 + 1] = lowerRightX + 1;
+    }
+    rowStarts[rows] = rows;
+    pixelCount = rows * (lowerRightX - upperLeftX + 1);
+  }
+
+  /**
+   * Constructor for this RunLengthMask that a takes in a file path for an image consisting of only
+   * white or black pixels, masking every white pixel.
+   *
+   * @param maskPath file path to the mask to use
+   * @throws IllegalArgumentException if given {@param maskPath} is null
+   * @throws IOException if the given {@param maskPath} doesn't exist or can't be read
+   */
+  public RunLengthMask(Path maskPath) throws IOException {
+    this(readMask(maskPath));
+  }
+
+  /**
+   * Constructor for this RunLengthMask that masks every white pixel of the given {@param mask},
+   * reading it a row at a time.
+   *
+   * @param mask image consisting of only white or black pixels
+   * @throws IllegalArgumentException if given {@param mask} is null
+   */
+  public RunLengthMask(BufferedImage mask) {
+    if (mask == null) {
+      throw new IllegalArgumentException("Given mask can't be null!");
+    }
+
+    int width = mask.getWidth();
+    int height = mask.getHeight();
+    int[] row = new int[width];
+    int[] allRowStarts = new int[height + 1];
+    int[] allRuns = new int[16];
+    int runCount = 0;
+    int tempMaxX = -1;
+    int tempMinX = width;
+    int tempMaxY = -1;
+    int tempMinY = height;
+    int tempPixelCount = 0;
+
+    for (int y = 0; y < height; y += 1) {
+      allRowStarts[y] = runCount;
+      mask.getRGB(0, y, width, 1, row, 0, width);
+      int x = 0;
+      while (x < width) {
+        if ((row[x] & WHITE) != WHITE) {
+          x += 1;
+          continue;
+        }
+        int fromX = x;
+        while (x < width && (row[x] & WHITE) == WHITE) {
+          x += 1;
+        }
+        if (runCount * 2 == allRuns.length) {
+          allRuns = Arrays.copyOf(allRuns, allRuns.length * 2);
+        }
+        allRuns[runCount * 2] = fromX;
+        allRuns[runCount * 2 + 1] = x;
+        runCount += 1;
+        tempPixelCount += x - fromX;
+
+        tempMinX = Math.min(tempMinX, fromX);
+        tempMaxX = Math.max(tempMaxX, x - 1);
+        tempMinY = Math.min(tempMinY, y);
+        tempMaxY = y;
+      }
+    }
+    allRowStarts[height] = runCount;
+
+    if (runCount == 0) {
+      // Nothing masked, so no rows - the maximums are left below the minimums
+      minX = 0;
+      maxX = -1;
+      minY = 0;
+      maxY = -1;
+      rowStarts = new int[1];
+      runs = new int[0];
+    }
+    else {
+      minX = tempMinX;
+      maxX = tempMaxX;
+      minY = tempMinY;
+      maxY = tempMaxY;
+      rowStarts = Arrays.copyOfRange(allRowStarts, tempMinY, tempMaxY + 2);
+      int firstRun = rowStarts[0];
+      for (int i = 0; i < rowStarts.length; i += 1) {
+        rowStarts[i] -= firstRun;
+      }
+      runs = Arrays.copyOfRange(allRuns, firstRun * 2, runCount * 2);
+    }
+    pixelCount = tempPixelCount;
+  }
+
+  private static BufferedImage readMask(Path maskPath) throws IOException {
+    if (maskPath == null) {
+      throw new IllegalArgumentException("Given path can't be null!");
+    }
+    else if (Files.notExists(maskPath)) {
+      throw new IOException("Given path doesn't exist!");
+    }
+    BufferedImage mask = ImageIO.read(maskPath.toFile());
+    if (mask == null) {
+      throw new IOException("Given path isn't an image that can be read!");
+    }
+    return mask;
+  }
+
+  @Override
+  public void forEachRun(RunConsumer consumer) {
+    if (consumer == null) {
+      throw new IllegalArgumentException("Given consumer can't be null!");
+    }
+
+    for (int row = 0; row < rowStarts.length - 1; row += 1) {
+      for (int run = rowStarts[row]; run < rowStarts[row + 1]; run += 1) {
+        consumer.accept(minY + row, runs[run * 2], runs[run * 2 + 1]);
+      }
+    }
+  }
+
+  /**
+   * Makes a Coordinate for every masked pixel the first time it is called, so is best avoided in
+   * favour of {@link #forEachRun(RunConsumer)}.
+   */
+  @Override
+  public Coordinate[] getCoordinates() {
+    if (coordinates == null) {
+      Coordinate[] tempCoordinates = new Coordinate[pixelCount];
+      int[] curArrayPosn = {0};
+      forEachRun((y, fromX, toX) -> {
+        for (int x = fromX; x < toX; x += 1) {
+          tempCoordinates[curArrayPosn[0]] = new Coordinate(x, y);
+          curArrayPosn[0] += 1;
+        }
+      });
+      coordinates = tempCoordinates;
+    }
+    return coordinates;
+  }
+
+  /**
+   * @return number of masked pixels
+   */
+  public int getPixelCount() {
+    return pixelCount;
+  }
+
+  public int getMaxX() {
+    return maxX;
+  }
+
+  public int getMinX() {
+    return minX;
+  }
+
+  public int getMaxY() {
+    return maxY;
+  }
+
+  public int getMinY() {
+    return minY;
+  }
+}
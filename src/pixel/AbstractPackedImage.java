@@ -0,0 +1,555 @@
+package pixel;
+
+import java.awt.image.BufferedImage;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * An image stored as flat primitive arrays rather than as a graph of linked Pixels - colors packed
+ * into ARGB ints, alongside the mask status of every pixel and, in the arrays of each subclass,
+ * its energy map and cost matrix energies. Pixel (x, y) lives at index {@code y * stride + x} of
+ * each array, where the stride is the widest this image has been so far, so seams can be removed
+ * and inserted by shifting the affected part of each row or column in place.
+ *
+ * Holds everything that doesn't depend on how the energies are stored - the storage itself, the
+ * shifting of pixels as seams are removed and inserted, and tracing seams through the cost matrix
+ * - so subclasses only keep their energies and costs in step through the hooks below.
+ *
+ * Vertical seams are given as the x coordinate of the seam in each row, from the top row down, and
+ * horizontal seams as the y coordinate of the seam in each column, from the left column right.
+ *
+ * @param <T> type of the subclass, so images can be copied into others of their own type
+ */
+public abstract class AbstractPackedImage<T extends AbstractPackedImage<T>> {
+
+  /**
+   * Cost matrix energy of a pixel outside of the image, matching that of a BorderPixel.
+   */
+  protected static final double borderEnergy = Integer.MAX_VALUE;
+
+  protected int[] pixels;
+
+  protected boolean[] masks;
+
+  /**
+   * Number of pixels of the current image that are masks, kept up to date as masks are made and
+   * seams removed.
+   */
+  protected int maskCount = 0;
+
+  protected int stride;
+
+  protected int rowCapacity;
+
+  protected int width;
+
+  protected int height;
+
+  protected AbstractPackedImage(BufferedImage image) {
+    if (image == null) {
+      throw new IllegalArgumentException("Given image can't be null!");
+    }
+
+    width = image.getWidth();
+    height = image.getHeight();
+    stride = width;
+    rowCapacity = height;
+    pixels = image.getRGB(0, 0, width, height, null, 0, width);
+    for (int i = 0; i < pixels.length; i += 1) {
+      pixels[i] |= PackedColors.BLACK;
+    }
+    masks = new boolean[pixels.length];
+  }
+
+  /**
+   * @param pixels packed colors of the image, pixel (x, y) at index {@code y * width + x}, copied
+   * @param width width of the image
+   * @param height height of the image
+   */
+  protected AbstractPackedImage(int[] pixels, int width, int height) {
+    if (pixels == null) {
+      throw new IllegalArgumentException("Given pixels can't be null!");
+    }
+    else if (width < 1 || height < 1) {
+      throw new IllegalArgumentException("Given width and height must be at least 1!");
+    }
+    else if (pixels.length != width * height) {
+      throw new IllegalArgumentException("Given pixels must fill the given width and height!");
+    }
+
+    this.width = width;
+    this.height = height;
+    stride = width;
+    rowCapacity = height;
+    this.pixels = new int[pixels.length];
+    for (int i = 0; i < pixels.length; i += 1) {
+      this.pixels[i] = pixels[i] | PackedColors.BLACK;
+    }
+    masks = new boolean[pixels.length];
+  }
+
+  protected AbstractPackedImage(T toCopy) {
+    width = toCopy.width;
+    height = toCopy.height;
+    stride = toCopy.stride;
+    rowCapacity = toCopy.rowCapacity;
+    pixels = toCopy.pixels.clone();
+    masks = toCopy.masks.clone();
+    maskCount = toCopy.maskCount;
+  }
+
+  /**
+   * Creates an independent copy of this image, including its energies and masks.
+   *
+   * @return copy of this image
+   */
+  public abstract T copy();
+
+  /**
+   * Makes the energy map and cost matrix of the given {@param target} hold at least
+   * {@param capacity} pixels and a row of {@link #stride} energies, and copies the first
+   * {@param length} energies and costs of this image into them.
+   */
+  protected abstract void copyEnergiesInto(T target, int capacity, int length);
+
+  /**
+   * Moves the energy map and cost matrix into new arrays of {@param newStride} by
+   * {@param newRowCapacity} pixels, each row of the current image kept at the start of its row.
+   */
+  protected abstract void resizeEnergyStorage(int newStride, int newRowCapacity);
+
+  /**
+   * Copies {@param length} energies and costs from index {@param from} to index {@param to}, as
+   * {@link System#arraycopy(Object, int, Object, int, int)} does within one array.
+   */
+  protected abstract void copyEnergies(int from, int to, int length);
+
+  /**
+   * Copies the energy and cost at index {@param from} to index {@param to}.
+   */
+  protected abstract void moveEnergy(int from, int to);
+
+  /**
+   * Sets the energy and cost at index {@param idx} to 0, for a newly inserted pixel.
+   */
+  protected abstract void clearEnergy(int idx);
+
+  /**
+   * @return cost matrix energy of the pixel at the given position, in the same units for every
+   *         subclass' tie breaks, or {@link #borderEnergy} if it lies outside of the image
+   */
+  protected abstract double getCost(int x, int y);
+
+  /**
+   * Copies this image, including its energies and masks, into the given {@param target}, reusing
+   * the target's storage if it can hold as many pixels as this image has room for, so a scratch
+   * copy can be refreshed without allocating.
+   *
+   * @param target image to overwrite with a copy of this one
+   */
+  public void copyInto(T target) {
+    if (target == null) {
+      throw new IllegalArgumentException("Given target can't be null!");
+    }
+    else if (target == this) {
+      return;
+    }
+
+    int capacity = stride * rowCapacity;
+    if (target.pixels.length < capacity) {
+      target.pixels = new int[capacity];
+      target.masks = new boolean[capacity];
+    }
+    int length = stride * height;
+    System.arraycopy(pixels, 0, target.pixels, 0, length);
+    System.arraycopy(masks, 0, target.masks, 0, length);
+    target.width = width;
+    target.height = height;
+    target.stride = stride;
+    target.rowCapacity = rowCapacity;
+    target.maskCount = maskCount;
+    copyEnergiesInto(target, capacity, length);
+  }
+
+  /**
+   * Makes room for this image to grow to the given size without moving its pixels again, as
+   * inserting seams otherwise grows its storage half again at a time.
+   *
+   * @param width width to make room for
+   * @param height height to make room for
+   */
+  public void ensureCapacity(int width, int height) {
+    if (width > stride || height > rowCapacity) {
+      resizeStorage(Math.max(width, stride), Math.max(height, rowCapacity));
+    }
+  }
+
+  public int getWidth() {
+    return width;
+  }
+
+  public int getHeight() {
+    return height;
+  }
+
+  protected void inBounds(int x, int y) {
+    if (x < 0 || x >= width) {
+      throw new IllegalArgumentException("Given x coordinate must be in the bounds of the image!");
+    }
+    else if (y < 0 || y >= height) {
+      throw new IllegalArgumentException("Given y coordinate must be in the bounds of the image!");
+    }
+  }
+
+  public int getRGB(int x, int y) {
+    inBounds(x, y);
+    return pixels[y * stride + x];
+  }
+
+  public boolean isMask(int x, int y) {
+    inBounds(x, y);
+    return masks[y * stride + x];
+  }
+
+  /**
+   * Checks if any pixel of this image is a mask.
+   *
+   * @return if a mask pixel remains
+   */
+  public boolean hasMask() {
+    return maskCount > 0;
+  }
+
+  /**
+   * @return number of pixels of this image that are masks
+   */
+  public int getMaskCount() {
+    return maskCount;
+  }
+
+  /**
+   * Traces the vertical seam of least cost through the current vertical cost matrix, breaking ties
+   * the same way the linked Pixel seam search does.
+   *
+   * @return x coordinate of the seam in each row
+   */
+  public int[] findMinimumVerticalSeam() {
+    int[] seam = new int[height];
+    int currentX = -1;
+    double currentCost = borderEnergy;
+    for (int x = 0; x < width; x += 1) {
+      double cost = getCost(x, height - 1);
+      if (cost < currentCost) {
+        currentX = x;
+        currentCost = cost;
+      }
+    }
+    seam[height - 1] = currentX;
+
+    for (int row = height - 2; row >= 0; row -= 1) {
+      double upperLeftEnergy = getCost(currentX - 1, row);
+      double upperCenterEnergy = getCost(currentX, row);
+      double upperRightEnergy = getCost(currentX + 1, row);
+
+      double minEnergy = Math.min(upperLeftEnergy, Math.min(upperCenterEnergy, upperRightEnergy));
+
+      if (Double.compare(minEnergy, upperLeftEnergy) == 0) {
+        currentX -= 1;
+      }
+      else if (Double.compare(minEnergy, upperRightEnergy) == 0) {
+        currentX += 1;
+      }
+      seam[row] = currentX;
+    }
+    return seam;
+  }
+
+  /**
+   * Traces the horizontal seam of least cost through the current horizontal cost matrix, breaking
+   * ties the same way the linked Pixel seam search does.
+   *
+   * @return y coordinate of the seam in each column
+   */
+  public int[] findMinimumHorizontalSeam() {
+    int[] seam = new int[width];
+    int currentY = -1;
+    double currentCost = borderEnergy;
+    for (int y = 0; y < height; y += 1) {
+      double cost = getCost(width - 1, y);
+      if (cost < currentCost) {
+        currentY = y;
+        currentCost = cost;
+      }
+    }
+    seam[width - 1] = currentY;
+
+    for (int column = width - 2; column >= 0; column -= 1) {
+      double upperLeftEnergy = getCost(column, currentY - 1);
+      double leftEnergy = getCost(column, currentY);
+      double lowerLeftEnergy = getCost(column, currentY + 1);
+
+      double minEnergy = Math.min(upperLeftEnergy, Math.min(leftEnergy, lowerLeftEnergy));
+
+      if (Double.compare(minEnergy, upperLeftEnergy) == 0) {
+        currentY -= 1;
+      }
+      else if (Double.compare(minEnergy, lowerLeftEnergy) == 0) {
+        currentY += 1;
+      }
+      seam[column] = currentY;
+    }
+    return seam;
+  }
+
+  /**
+   * Traces up to {@param count} vertical seams through the current vertical cost matrix that never
+   * touch or cross. Starting from the least cost pixels of the bottom row, taken from left to
+   * right, each seam is traced the same way as {@link #findMinimumVerticalSeam()} but kept strictly
+   * to the right of the seam before it, and dropped if it can't be. A single seam is the same seam
+   * findMinimumVerticalSeam finds.
+   *
+   * @param count most seams to find
+   * @return x coordinate of each seam in each row, rightmost seam first so the seams can be removed
+   *         in order without adjusting the others
+   */
+  public int[][] findMinimumVerticalSeams(int count) {
+    return findMinimumSeams(count, true);
+  }
+
+  /**
+   * Traces up to {@param count} horizontal seams through the current horizontal cost matrix that
+   * never touch or cross, the same way as {@link #findMinimumVerticalSeams(int)} but with each seam
+   * kept strictly below the seam before it.
+   *
+   * @param count most seams to find
+   * @return y coordinate of each seam in each column, bottommost seam first so the seams can be
+   *         removed in order without adjusting the others
+   */
+  public int[][] findMinimumHorizontalSeams(int count) {
+    return findMinimumSeams(count, false);
+  }
+
+  private int[][] findMinimumSeams(int count, boolean isVerticalSeam) {
+    if (count < 1) {
+      throw new IllegalArgumentException("Given count must be at least 1!");
+    }
+
+    int lineCount = isVerticalSeam ? height : width;
+    int lineLength = isVerticalSeam ? width : height;
+    Integer[] ends = new Integer[lineLength];
+    for (int posn = 0; posn < lineLength; posn += 1) {
+      ends[posn] = posn;
+    }
+    // Stable, so ties keep the first position as findMinimumVerticalSeam does
+    Arrays.sort(ends, Comparator.comparingDouble(
+        (Integer posn) -> getSeamCost(posn, lineCount - 1, null, isVerticalSeam)));
+
+    int[] starts = new int[Math.min(count, lineLength)];
+    for (int i = 0; i < starts.length; i += 1) {
+      starts[i] = ends[i];
+    }
+    Arrays.sort(starts);
+
+    List<int[]> seams = new ArrayList<>();
+    int[] previousSeam = null;
+    for (int start : starts) {
+      int[] seam = traceSeam(start, previousSeam, isVerticalSeam);
+      if (seam != null) {
+        seams.add(seam);
+        previousSeam = seam;
+      }
+    }
+    Collections.reverse(seams);
+    return seams.toArray(new int[0][]);
+  }
+
+  /**
+   * Traces a seam back from the given position in the last row (or column), kept strictly after
+   * the given previous seam.
+   *
+   * @return the traced seam, or null if it couldn't be kept after the previous seam
+   */
+  private int[] traceSeam(int start, int[] previousSeam, boolean isVerticalSeam) {
+    int lineCount = isVerticalSeam ? height : width;
+    int[] seam = new int[lineCount];
+    int currentPosn = start;
+    seam[lineCount - 1] = currentPosn;
+
+    for (int line = lineCount - 2; line >= 0; line -= 1) {
+      double beforeEnergy = getSeamCost(currentPosn - 1, line, previousSeam, isVerticalSeam);
+      double centerEnergy = getSeamCost(currentPosn, line, previousSeam, isVerticalSeam);
+      double afterEnergy = getSeamCost(currentPosn + 1, line, previousSeam, isVerticalSeam);
+
+      double minEnergy = Math.min(beforeEnergy, Math.min(centerEnergy, afterEnergy));
+
+      if (minEnergy == Double.POSITIVE_INFINITY) {
+        return null;
+      }
+      else if (Double.compare(minEnergy, beforeEnergy) == 0) {
+        currentPosn -= 1;
+      }
+      else if (Double.compare(minEnergy, afterEnergy) == 0) {
+        currentPosn += 1;
+      }
+      seam[line] = currentPosn;
+    }
+    return seam;
+  }
+
+  /**
+   * Cost of the pixel at the given position of the given row (or column), or infinite if a seam
+   * there wouldn't be strictly after the given previous seam.
+   */
+  private double getSeamCost(int posn, int line, int[] previousSeam, boolean isVerticalSeam) {
+    int lineLength = isVerticalSeam ? width : height;
+    if (previousSeam != null && (posn <= previousSeam[line] || posn >= lineLength)) {
+      return Double.POSITIVE_INFINITY;
+    }
+    return isVerticalSeam ? getCost(posn, line) : getCost(line, posn);
+  }
+
+  protected void validSeam(int[] seam, boolean isVerticalSeam) {
+    if (seam == null) {
+      throw new IllegalArgumentException("Given seam can't be null!");
+    }
+    else if (seam.length != (isVerticalSeam ? height : width)) {
+      throw new IllegalArgumentException("Given seam must span the entire image!");
+    }
+
+    int bound = isVerticalSeam ? width : height;
+    for (int position : seam) {
+      if (position < 0 || position >= bound) {
+        throw new IllegalArgumentException("Given seam must lie in the bounds of the image!");
+      }
+    }
+  }
+
+  public void removeVerticalSeam(int[] seam) {
+    validSeam(seam, true);
+    for (int row = 0; row < height; row += 1) {
+      int idx = row * stride + seam[row];
+      if (masks[idx]) {
+        maskCount -= 1;
+      }
+      int toMove = width - seam[row] - 1;
+      System.arraycopy(pixels, idx + 1, pixels, idx, toMove);
+      System.arraycopy(masks, idx + 1, masks, idx, toMove);
+      copyEnergies(idx + 1, idx, toMove);
+    }
+    width -= 1;
+  }
+
+  public void removeHorizontalSeam(int[] seam) {
+    validSeam(seam, false);
+    for (int column = 0; column < width; column += 1) {
+      if (masks[seam[column] * stride + column]) {
+        maskCount -= 1;
+      }
+      for (int row = seam[column]; row < height - 1; row += 1) {
+        int idx = row * stride + column;
+        pixels[idx] = pixels[idx + stride];
+        masks[idx] = masks[idx + stride];
+        moveEnergy(idx + stride, idx);
+      }
+    }
+    height -= 1;
+  }
+
+  private void resizeStorage(int newStride, int newRowCapacity) {
+    int[] newPixels = new int[newStride * newRowCapacity];
+    boolean[] newMasks = new boolean[newPixels.length];
+    for (int row = 0; row < height; row += 1) {
+      System.arraycopy(pixels, row * stride, newPixels, row * newStride, width);
+      System.arraycopy(masks, row * stride, newMasks, row * newStride, width);
+    }
+    resizeEnergyStorage(newStride, newRowCapacity);
+    pixels = newPixels;
+    masks = newMasks;
+    stride = newStride;
+    rowCapacity = newRowCapacity;
+  }
+
+  /**
+   * Inserts a new column of pixels to the right of the given vertical seam, each the average of
+   * the seam pixel and the pixel to its right.
+   *
+   * @param seam x coordinate of the seam in each row
+   */
+  public void insertVerticalSeam(int[] seam) {
+    validSeam(seam, true);
+    if (width == stride) {
+      resizeStorage(stride + Math.max(1, stride / 2), rowCapacity);
+    }
+
+    for (int row = 0; row < height; row += 1) {
+      int idx = row * stride + seam[row];
+      int rightRGB = seam[row] < width - 1 ? pixels[idx + 1] : PackedColors.BLACK;
+      int toMove = width - seam[row] - 1;
+      System.arraycopy(pixels, idx + 1, pixels, idx + 2, toMove);
+      System.arraycopy(masks, idx + 1, masks, idx + 2, toMove);
+      copyEnergies(idx + 1, idx + 2, toMove);
+      pixels[idx + 1] = PackedColors.average(pixels[idx], rightRGB);
+      masks[idx + 1] = false;
+      clearEnergy(idx + 1);
+    }
+    width += 1;
+  }
+
+  /**
+   * Inserts a new row of pixels below the given horizontal seam, each the average of the seam
+   * pixel and the pixel below it.
+   *
+   * @param seam y coordinate of the seam in each column
+   */
+  public void insertHorizontalSeam(int[] seam) {
+    validSeam(seam, false);
+    if (height == rowCapacity) {
+      resizeStorage(stride, rowCapacity + Math.max(1, rowCapacity / 2));
+    }
+
+    for (int column = 0; column < width; column += 1) {
+      int seamIdx = seam[column] * stride + column;
+      int belowRGB = seam[column] < height - 1 ? pixels[seamIdx + stride] : PackedColors.BLACK;
+      for (int row = height; row > seam[column] + 1; row -= 1) {
+        int idx = row * stride + column;
+        pixels[idx] = pixels[idx - stride];
+        masks[idx] = masks[idx - stride];
+        moveEnergy(idx - stride, idx);
+      }
+      int newIdx = seamIdx + stride;
+      pixels[newIdx] = PackedColors.average(pixels[seamIdx], belowRGB);
+      masks[newIdx] = false;
+      clearEnergy(newIdx);
+    }
+    height += 1;
+  }
+
+  /**
+   * Writes this image's colors into a new BufferedImage of the given type.
+   *
+   * @param bufferedImageType type of BufferedImage to create
+   * @return image of this image's current colors
+   */
+  public BufferedImage toBufferedImage(int bufferedImageType) {
+    BufferedImage toReturn = new BufferedImage(width, height, bufferedImageType);
+    toReturn.setRGB(0, 0, width, height, pixels, 0, stride);
+    return toReturn;
+  }
+
+  /**
+   * Draws this image onto the upper left corner of the given image, cropping off whatever doesn't
+   * fit, without allocating a new image.
+   *
+   * @param target image to draw onto
+   */
+  public void drawOnto(BufferedImage target) {
+    if (target == null) {
+      throw new IllegalArgumentException("Given image can't be null!");
+    }
+    target.setRGB(0, 0, Math.min(width, target.getWidth()), Math.min(height, target.getHeight()),
+        pixels, 0, stride);
+  }
+}
@@ -7,6 +7,11 @@ public class BorderPixel implements Pixel {
   private final static UnsupportedOperationException unsupportedOperationException
       = new UnsupportedOperationException("Can't change the parameters of a border pixel!");
 
+  /**
+   * A BorderPixel holds no state of its own, so this one can stand in for every BorderPixel.
+   */
+  public static final BorderPixel INSTANCE = new BorderPixel();
+
   @Override
   public void makeMask(double maskValue) {
 
@@ -32,6 +37,11 @@ public class BorderPixel implements Pixel {
     return Color.BLACK;
   }
 
+  @Override
+  public int getRGB() {
+    return PackedColors.BLACK;
+  }
+
   @Override
   public boolean isBorderPixel() {
     return true;
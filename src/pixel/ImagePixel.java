@@ -1,11 +1,13 @@
 package pixel;
 
 import java.awt.Color;
-import java.util.function.IntBinaryOperator;
 
 public class ImagePixel implements Pixel{
 
-  private Color color;
+  /**
+   * Color of this pixel packed into an opaque ARGB int.
+   */
+  private int rgb;
 
   private boolean isMask =  false;
 
@@ -13,16 +15,23 @@ public class ImagePixel implements Pixel{
 
   private double costMatrixEnergy = 0;
 
-  private Pixel leftPixel = new BorderPixel();
+  private Pixel leftPixel = BorderPixel.INSTANCE;
 
-  private Pixel abovePixel = new BorderPixel();
+  private Pixel abovePixel = BorderPixel.INSTANCE;
 
-  private Pixel rightPixel = new BorderPixel();
+  private Pixel rightPixel = BorderPixel.INSTANCE;
 
-  private Pixel belowPixel = new BorderPixel();
+  private Pixel belowPixel = BorderPixel.INSTANCE;
 
   public ImagePixel(Color color) {
-    this.color = color;
+    setColor(color);
+  }
+
+  /**
+   * @param rgb color of the pixel packed into an ARGB int, always taken to be opaque
+   */
+  public ImagePixel(int rgb) {
+    this.rgb = rgb | PackedColors.BLACK;
   }
 
   private void checkPixelNull(Pixel toCheck) {
@@ -45,16 +54,7 @@ public class ImagePixel implements Pixel{
   }
 
   private Pixel createAvgPixel(Pixel otherPixel) {
-    Color otherColor = otherPixel.getColor();
-
-    IntBinaryOperator intAverage = (x, y) -> Math.round((x + y) / 2);
-
-    int avgRed = intAverage.applyAsInt(color.getRed(), otherColor.getRed());
-    int avgGreen = intAverage.applyAsInt(color.getGreen(), otherColor.getGreen());
-    int avgBlue = intAverage.applyAsInt(color.getBlue(), color.getBlue());
-
-    Color newPixelColor = new Color(avgRed, avgGreen, avgBlue);
-    return new ImagePixel(newPixelColor);
+    return new ImagePixel(PackedColors.average(rgb, otherPixel.getRGB()));
   }
 
   @Override
@@ -69,7 +69,12 @@ public class ImagePixel implements Pixel{
 
   @Override
   public Color getColor() {
-    return color;
+    return new Color(rgb);
+  }
+
+  @Override
+  public int getRGB() {
+    return rgb;
   }
 
   @Override
@@ -82,7 +87,7 @@ public class ImagePixel implements Pixel{
     if (color == null) {
       throw new IllegalArgumentException("Given color can't be null!");
     }
-    this.color = color;
+    rgb = color.getRGB() | PackedColors.BLACK;
   }
 
   @Override
@@ -0,0 +1,262 @@
+package pixel;
+
+import costmatricies.IntCosts;
+import costmatricies.horizontal.IntHorizontalCostMatrix;
+import costmatricies.vertical.IntVerticalCostMatrix;
+import energymaps.IntEnergyMapMaker;
+import java.awt.image.BufferedImage;
+
+/**
+ * A packed image with fixed point int energies and costs - each multiplied by
+ * {@link IntEnergyMapMaker#ENERGY_SCALE} - rather than the doubles of a PackedImage, holding the
+ * energy map and cost matrix in half the memory. Costs saturate rather than overflow, as
+ * {@link IntCosts} describes. Storage, seam shifting and seam search are shared with the
+ * PackedImage, so with energies that are exact in fixed point the same seams are found.
+ *
+ * Vertical seams are given as the x coordinate of the seam in each row, from the top row down, and
+ * horizontal seams as the y coordinate of the seam in each column, from the left column right.
+ */
+public class IntPackedImage extends AbstractPackedImage<IntPackedImage> {
+
+  private int[] energies;
+
+  private int[] costs;
+
+  private int[] rowEnergies;
+
+  public IntPackedImage(BufferedImage image) {
+    super(image);
+    energies = new int[pixels.length];
+    costs = new int[pixels.length];
+    rowEnergies = new int[stride];
+  }
+
+  private IntPackedImage(IntPackedImage toCopy) {
+    super(toCopy);
+    energies = toCopy.energies.clone();
+    costs = toCopy.costs.clone();
+    rowEnergies = new int[stride];
+  }
+
+  @Override
+  public IntPackedImage copy() {
+    return new IntPackedImage(this);
+  }
+
+  @Override
+  protected void copyEnergiesInto(IntPackedImage target, int capacity, int length) {
+    if (target.energies.length < capacity) {
+      target.energies = new int[capacity];
+      target.costs = new int[capacity];
+    }
+    if (target.rowEnergies.length < stride) {
+      target.rowEnergies = new int[stride];
+    }
+    System.arraycopy(energies, 0, target.energies, 0, length);
+    System.arraycopy(costs, 0, target.costs, 0, length);
+  }
+
+  @Override
+  protected void resizeEnergyStorage(int newStride, int newRowCapacity) {
+    int[] newEnergies = new int[newStride * newRowCapacity];
+    int[] newCosts = new int[newEnergies.length];
+    for (int row = 0; row < height; row += 1) {
+      System.arraycopy(energies, row * stride, newEnergies, row * newStride, width);
+      System.arraycopy(costs, row * stride, newCosts, row * newStride, width);
+    }
+    energies = newEnergies;
+    costs = newCosts;
+    rowEnergies = new int[newStride];
+  }
+
+  @Override
+  protected void copyEnergies(int from, int to, int length) {
+    System.arraycopy(energies, from, energies, to, length);
+    System.arraycopy(costs, from, costs, to, length);
+  }
+
+  @Override
+  protected void moveEnergy(int from, int to) {
+    energies[to] = energies[from];
+    costs[to] = costs[from];
+  }
+
+  @Override
+  protected void clearEnergy(int idx) {
+    energies[idx] = 0;
+    costs[idx] = 0;
+  }
+
+  /**
+   * Fixed point costs convert to doubles exactly, and the border cost of {@link IntCosts} is that
+   * of every packed image, so ties are broken just as they would be between the ints.
+   */
+  @Override
+  protected double getCost(int x, int y) {
+    if (x < 0 || x >= width || y < 0 || y >= height) {
+      return borderEnergy;
+    }
+    return costs[y * stride + x];
+  }
+
+  public int getEnergyMapEnergy(int x, int y) {
+    inBounds(x, y);
+    return energies[y * stride + x];
+  }
+
+  public int getCostMatrixEnergy(int x, int y) {
+    inBounds(x, y);
+    return costs[y * stride + x];
+  }
+
+  /**
+   * Marks the pixel at (x, y) as a mask with the given fixed point energy, which it keeps from
+   * then on regardless of how its surroundings change. Pixels that are already masks are left as
+   * is.
+   *
+   * @param x x coordinate of the pixel to mask
+   * @param y y coordinate of the pixel to mask
+   * @param maskValue fixed point energy to give the pixel
+   * @return if the pixel was not a mask before this call
+   */
+  public boolean makeMask(int x, int y, int maskValue) {
+    inBounds(x, y);
+    int idx = y * stride + x;
+    if (masks[idx]) {
+      return false;
+    }
+    masks[idx] = true;
+    energies[idx] = maskValue;
+    maskCount += 1;
+    return true;
+  }
+
+  /**
+   * Marks every pixel of the given row from {@param fromX} up to {@param toX} as a mask with the
+   * given fixed point energy, as {@link #makeMask(int, int, int)} does for a single pixel.
+   *
+   * @param y y coordinate of the run to mask
+   * @param fromX x coordinate of the first pixel to mask
+   * @param toX x coordinate after the last pixel to mask
+   * @param maskValue fixed point energy to give the pixels
+   * @return number of pixels that were not masks before this call
+   */
+  public int makeMaskRun(int y, int fromX, int toX, int maskValue) {
+    if (fromX >= toX) {
+      throw new IllegalArgumentException("Given run must contain at least one pixel!");
+    }
+    inBounds(fromX, y);
+    inBounds(toX - 1, y);
+    int newMasks = 0;
+    int rowStart = y * stride;
+    for (int idx = rowStart + fromX; idx < rowStart + toX; idx += 1) {
+      if (!masks[idx]) {
+        masks[idx] = true;
+        energies[idx] = maskValue;
+        newMasks += 1;
+      }
+    }
+    maskCount += newMasks;
+    return newMasks;
+  }
+
+  /**
+   * Computes the energy of every pixel that isn't a mask with the given {@param energyMapMaker}.
+   *
+   * @param energyMapMaker energy function to use
+   */
+  public void computeEnergyMap(IntEnergyMapMaker energyMapMaker) {
+    if (energyMapMaker == null) {
+      throw new IllegalArgumentException("Given energy map maker can't be null!");
+    }
+
+    for (int row = 0; row < height; row += 1) {
+      energyMapMaker.computeEnergy(pixels, stride, width, height, row, rowEnergies);
+      int rowStart = row * stride;
+      for (int x = 0; x < width; x += 1) {
+        if (!masks[rowStart + x]) {
+          energies[rowStart + x] = rowEnergies[x];
+        }
+      }
+    }
+  }
+
+  /**
+   * Computes the cost matrix for vertical seams from the current energy map.
+   *
+   * @param costMatrix cost function to use
+   */
+  public void computeVerticalCostMatrix(IntVerticalCostMatrix costMatrix) {
+    if (costMatrix == null) {
+      throw new IllegalArgumentException("Given cost matrix can't be null!");
+    }
+
+    for (int row = 0; row < height; row += 1) {
+      costMatrix.computeRow(energies, costs, stride, width, row);
+    }
+  }
+
+  /**
+   * Computes the cost matrix for horizontal seams from the current energy map.
+   *
+   * @param costMatrix cost function to use
+   */
+  public void computeHorizontalCostMatrix(IntHorizontalCostMatrix costMatrix) {
+    if (costMatrix == null) {
+      throw new IllegalArgumentException("Given cost matrix can't be null!");
+    }
+
+    for (int column = 0; column < width; column += 1) {
+      costMatrix.computeColumn(energies, costs, stride, height, column);
+    }
+  }
+
+  /**
+   * Averages the current cost matrix energies of the pixels along the given seam.
+   *
+   * @param seam seam to average
+   * @param isVerticalSeam if the seam is a vertical seam rather than a horizontal one
+   * @return average cost matrix energy along the seam, no longer in fixed point
+   */
+  public double getAverageEnergy(int[] seam, boolean isVerticalSeam) {
+    validSeam(seam, isVerticalSeam);
+    long totalEnergy = 0;
+    for (int i = 0; i < seam.length; i += 1) {
+      totalEnergy += isVerticalSeam ? costs[i * stride + seam[i]] : costs[seam[i] * stride + i];
+    }
+    return (double)totalEnergy / seam.length / IntEnergyMapMaker.ENERGY_SCALE;
+  }
+
+  /**
+   * Computes the average energy of the pixels along the given seam from their colors, whether or
+   * not the energy map is up to date, leaving the energy map as it is. Masks count their mask
+   * energy.
+   *
+   * @param energyMapMaker energy function to use
+   * @param seam seam to average
+   * @param isVerticalSeam if the seam is a vertical seam rather than a horizontal one
+   * @return average energy along the seam, no longer in fixed point
+   */
+  public double computeSeamEnergy(IntEnergyMapMaker energyMapMaker, int[] seam,
+      boolean isVerticalSeam) {
+    if (energyMapMaker == null) {
+      throw new IllegalArgumentException("Given energy map maker can't be null!");
+    }
+    validSeam(seam, isVerticalSeam);
+
+    long total = 0;
+    for (int i = 0; i < seam.length; i += 1) {
+      int x = isVerticalSeam ? seam[i] : i;
+      int y = isVerticalSeam ? i : seam[i];
+      int idx = y * stride + x;
+      if (masks[idx]) {
+        total += energies[idx];
+      }
+      else {
+        energyMapMaker.computeEnergy(pixels, stride, width, height, y, x, x + 1, rowEnergies);
+        total += rowEnergies[x];
+      }
+    }
+    return (double)total / seam.length / IntEnergyMapMaker.ENERGY_SCALE;
+  }
+}
@@ -0,0 +1,53 @@
+package pixel;
+
+/**
+ * Helpers for working with colors packed into a single ARGB int, as returned by
+ * {@link java.awt.Color#getRGB()}, so that pixels can be stored and compared without allocating a
+ * Color for each one.
+ */
+public final class PackedColors {
+
+  /**
+   * Packed value of an opaque black pixel, the color every BorderPixel reports.
+   */
+  public static final int BLACK = 0xFF000000;
+
+  private PackedColors() {
+  }
+
+  public static int getRed(int rgb) {
+    return (rgb >> 16) & 0xFF;
+  }
+
+  public static int getGreen(int rgb) {
+    return (rgb >> 8) & 0xFF;
+  }
+
+  public static int getBlue(int rgb) {
+    return rgb & 0xFF;
+  }
+
+  /**
+   * Packs the given channels into an opaque ARGB int.
+   *
+   * @param red red channel in [0, 255]
+   * @param green green channel in [0, 255]
+   * @param blue blue channel in [0, 255]
+   * @return packed opaque color
+   */
+  public static int pack(int red, int green, int blue) {
+    return BLACK | (red << 16) | (green << 8) | blue;
+  }
+
+  /**
+   * Creates the opaque color lying halfway between the two given colors, channel by channel.
+   *
+   * @param rgb first packed color
+   * @param otherRgb second packed color
+   * @return packed average of the two colors
+   */
+  public static int average(int rgb, int otherRgb) {
+    return pack((getRed(rgb) + getRed(otherRgb)) / 2, (getGreen(rgb) + getGreen(otherRgb)) / 2,
+        (getBlue(rgb) + getBlue(otherRgb)) / 2);
+  }
+}
@@ -0,0 +1,675 @@
+package pixel;
+
+import energymaps.PackedEnergyMapMaker;
+import java.awt.image.BufferedImage;
+import java.util.Arrays;
+
+/**
+ * A packed image with double energy map and cost matrix energies, as the linked Pixels hold.
+ * Besides the storage and seam search of every packed image, it can find seams within a corridor
+ * and be downsampled, as the PyramidSeamFinder does.
+ *
+ * Vertical seams are given as the x coordinate of the seam in each row, from the top row down, and
+ * horizontal seams as the y coordinate of the seam in each column, from the left column right.
+ */
+public class PackedImage extends AbstractPackedImage<PackedImage> {
+
+  private double[] energies;
+
+  private double[] costs;
+
+  private double[] rowEnergies;
+
+  /**
+   * Second cost matrix, swapped with the first by {@link #swapCostMatrices()}, so an image can keep
+   * both its vertical and horizontal cost matrix up to date as seams are removed. Null until first
+   * swapped in.
+   */
+  private double[] otherCosts;
+
+  /**
+   * Pixels within this many columns of a removed vertical seam, or rows of a removed horizontal
+   * seam, may have had their neighbours, and so their energies, change.
+   */
+  private static final int removalBand = 3;
+
+  public PackedImage(BufferedImage image) {
+    super(image);
+    energies = new double[pixels.length];
+    costs = new double[pixels.length];
+    rowEnergies = new double[stride];
+  }
+
+  /**
+   * Creates a PackedImage from a copy of the given packed colors, stored row after row.
+   *
+   * @param pixels packed colors of the image, pixel (x, y) at index {@code y * width + x}
+   * @param width width of the image
+   * @param height height of the image
+   */
+  public PackedImage(int[] pixels, int width, int height) {
+    super(pixels, width, height);
+    energies = new double[pixels.length];
+    costs = new double[pixels.length];
+    rowEnergies = new double[stride];
+  }
+
+  private PackedImage(PackedImage toCopy) {
+    super(toCopy);
+    energies = toCopy.energies.clone();
+    costs = toCopy.costs.clone();
+    otherCosts = toCopy.otherCosts == null ? null : toCopy.otherCosts.clone();
+    rowEnergies = new double[stride];
+  }
+
+  @Override
+  public PackedImage copy() {
+    return new PackedImage(this);
+  }
+
+  @Override
+  protected void copyEnergiesInto(PackedImage target, int capacity, int length) {
+    if (target.energies.length < capacity) {
+      target.energies = new double[capacity];
+      target.costs = new double[capacity];
+      target.otherCosts = null;
+    }
+    if (target.rowEnergies.length < stride) {
+      target.rowEnergies = new double[stride];
+    }
+    System.arraycopy(energies, 0, target.energies, 0, length);
+    System.arraycopy(costs, 0, target.costs, 0, length);
+    if (otherCosts != null) {
+      if (target.otherCosts == null) {
+        target.otherCosts = new double[target.costs.length];
+      }
+      System.arraycopy(otherCosts, 0, target.otherCosts, 0, length);
+    }
+  }
+
+  @Override
+  protected void resizeEnergyStorage(int newStride, int newRowCapacity) {
+    double[] newEnergies = new double[newStride * newRowCapacity];
+    double[] newCosts = new double[newEnergies.length];
+    double[] newOtherCosts = otherCosts == null ? null : new double[newEnergies.length];
+    for (int row = 0; row < height; row += 1) {
+      System.arraycopy(energies, row * stride, newEnergies, row * newStride, width);
+      System.arraycopy(costs, row * stride, newCosts, row * newStride, width);
+      if (otherCosts != null) {
+        System.arraycopy(otherCosts, row * stride, newOtherCosts, row * newStride, width);
+      }
+    }
+    energies = newEnergies;
+    costs = newCosts;
+    otherCosts = newOtherCosts;
+    rowEnergies = new double[newStride];
+  }
+
+  @Override
+  protected void copyEnergies(int from, int to, int length) {
+    System.arraycopy(energies, from, energies, to, length);
+    System.arraycopy(costs, from, costs, to, length);
+    if (otherCosts != null) {
+      System.arraycopy(otherCosts, from, otherCosts, to, length);
+    }
+  }
+
+  @Override
+  protected void moveEnergy(int from, int to) {
+    energies[to] = energies[from];
+    costs[to] = costs[from];
+    if (otherCosts != null) {
+      otherCosts[to] = otherCosts[from];
+    }
+  }
+
+  @Override
+  protected void clearEnergy(int idx) {
+    energies[idx] = 0;
+    costs[idx] = 0;
+    if (otherCosts != null) {
+      otherCosts[idx] = 0;
+    }
+  }
+
+  @Override
+  protected double getCost(int x, int y) {
+    if (x < 0 || x >= width || y < 0 || y >= height) {
+      return borderEnergy;
+    }
+    return costs[y * stride + x];
+  }
+
+  /**
+   * Creates a smaller copy of this PackedImage, each pixel the average color and average energy
+   * map energy of a square block of {@param scale} by {@param scale} pixels, the blocks along the
+   * right and bottom edges cropped to fit. Averaging the energies keeps the detail lost by
+   * averaging the colors, so the energies should be computed before downsampling and not
+   * recomputed after. Masks are carried over by their energies alone.
+   *
+   * @param scale width and height of the block of pixels averaged into each pixel
+   * @return the downsampled image
+   */
+  public PackedImage downsample(int scale) {
+    if (scale < 1) {
+      throw new IllegalArgumentException("Given scale must be at least 1!");
+    }
+
+    int coarseWidth = (width + scale - 1) / scale;
+    int coarseHeight = (height + scale - 1) / scale;
+    int[] coarsePixels = new int[coarseWidth * coarseHeight];
+    double[] coarseEnergies = new double[coarsePixels.length];
+    for (int coarseY = 0; coarseY < coarseHeight; coarseY += 1) {
+      for (int coarseX = 0; coarseX < coarseWidth; coarseX += 1) {
+        int red = 0;
+        int green = 0;
+        int blue = 0;
+        double energy = 0;
+        int count = 0;
+        for (int y = coarseY * scale; y < Math.min(height, (coarseY + 1) * scale); y += 1) {
+          for (int x = coarseX * scale; x < Math.min(width, (coarseX + 1) * scale); x += 1) {
+            int idx = y * stride + x;
+            red += PackedColors.getRed(pixels[idx]);
+            green += PackedColors.getGreen(pixels[idx]);
+            blue += PackedColors.getBlue(pixels[idx]);
+            energy += energies[idx];
+            count += 1;
+          }
+        }
+        int coarseIdx = coarseY * coarseWidth + coarseX;
+        coarsePixels[coarseIdx] = PackedColors.pack(red / count, green / count, blue / count);
+        coarseEnergies[coarseIdx] = energy / count;
+      }
+    }
+
+    PackedImage coarseImage = new PackedImage(coarsePixels, coarseWidth, coarseHeight);
+    coarseImage.energies = coarseEnergies;
+    return coarseImage;
+  }
+
+  public double getEnergyMapEnergy(int x, int y) {
+    inBounds(x, y);
+    return energies[y * stride + x];
+  }
+
+  public double getCostMatrixEnergy(int x, int y) {
+    inBounds(x, y);
+    return costs[y * stride + x];
+  }
+
+  /**
+   * Marks the pixel at (x, y) as a mask with the given energy, which it keeps from then on
+   * regardless of how its surroundings change. Pixels that are already masks are left as is.
+   *
+   * @param x x coordinate of the pixel to mask
+   * @param y y coordinate of the pixel to mask
+   * @param maskValue energy to give the pixel
+   * @return if the pixel was not a mask before this call
+   */
+  public boolean makeMask(int x, int y, double maskValue) {
+    inBounds(x, y);
+    int idx = y * stride + x;
+    if (masks[idx]) {
+      return false;
+    }
+    masks[idx] = true;
+    energies[idx] = maskValue;
+    maskCount += 1;
+    return true;
+  }
+
+  /**
+   * Marks every pixel of the given row from {@param fromX} up to {@param toX} as a mask with the
+   * given energy, as {@link #makeMask(int, int, double)} does for a single pixel.
+   *
+   * @param y y coordinate of the run to mask
+   * @param fromX x coordinate of the first pixel to mask
+   * @param toX x coordinate after the last pixel to mask
+   * @param maskValue energy to give the pixels
+   * @return number of pixels that were not masks before this call
+   */
+  public int makeMaskRun(int y, int fromX, int toX, double maskValue) {
+    if (fromX >= toX) {
+      throw new IllegalArgumentException("Given run must contain at least one pixel!");
+    }
+    inBounds(fromX, y);
+    inBounds(toX - 1, y);
+    int newMasks = 0;
+    int rowStart = y * stride;
+    for (int idx = rowStart + fromX; idx < rowStart + toX; idx += 1) {
+      if (!masks[idx]) {
+        masks[idx] = true;
+        energies[idx] = maskValue;
+        newMasks += 1;
+      }
+    }
+    maskCount += newMasks;
+    return newMasks;
+  }
+
+  /**
+   * Computes the energy of every pixel that isn't a mask with the given {@param energyMapMaker}.
+   *
+   * @param energyMapMaker energy function to use
+   * @return the largest energy in the resulting energy map
+   */
+  public double computeEnergyMap(PackedEnergyMapMaker energyMapMaker) {
+    if (energyMapMaker == null) {
+      throw new IllegalArgumentException("Given energy map maker can't be null!");
+    }
+
+    double maxEnergy = 0;
+    for (int row = 0; row < height; row += 1) {
+      energyMapMaker.computeEnergy(pixels, stride, width, height, row, rowEnergies);
+      int rowStart = row * stride;
+      for (int x = 0; x < width; x += 1) {
+        int idx = rowStart + x;
+        if (!masks[idx]) {
+          energies[idx] = rowEnergies[x];
+        }
+
+        if (energies[idx] > maxEnergy) {
+          maxEnergy = energies[idx];
+        }
+      }
+    }
+    return maxEnergy;
+  }
+
+  /**
+   * Computes the cost matrix for vertical seams from the current energy map, where each pixel's
+   * cost is its energy plus the least cost of the three pixels above it.
+   *
+   * @return the largest cost in the resulting cost matrix
+   */
+  public double computeVerticalCostMatrix() {
+    double maxCost = 0;
+    for (int row = 0; row < height; row += 1) {
+      int rowStart = row * stride;
+      for (int x = 0; x < width; x += 1) {
+        int idx = rowStart + x;
+        if (row == 0) {
+          costs[idx] = energies[idx];
+        }
+        else {
+          costs[idx] = energies[idx] + Math.min(getCost(x - 1, row - 1),
+              Math.min(getCost(x, row - 1), getCost(x + 1, row - 1)));
+        }
+
+        if (costs[idx] > maxCost) {
+          maxCost = costs[idx];
+        }
+      }
+    }
+    return maxCost;
+  }
+
+  /**
+   * Computes the cost matrix for horizontal seams from the current energy map, where each pixel's
+   * cost is its energy plus the least cost of the three pixels to its left.
+   *
+   * @return the largest cost in the resulting cost matrix
+   */
+  public double computeHorizontalCostMatrix() {
+    double maxCost = 0;
+    for (int column = 0; column < width; column += 1) {
+      for (int y = 0; y < height; y += 1) {
+        int idx = y * stride + column;
+        if (column == 0) {
+          costs[idx] = energies[idx];
+        }
+        else {
+          costs[idx] = energies[idx] + Math.min(getCost(column - 1, y - 1),
+              Math.min(getCost(column - 1, y), getCost(column - 1, y + 1)));
+        }
+
+        if (costs[idx] > maxCost) {
+          maxCost = costs[idx];
+        }
+      }
+    }
+    return maxCost;
+  }
+
+  /**
+   * Swaps the cost matrix seams are found in with a second one, kept up to date alongside it as
+   * seams are removed, so the vertical and horizontal cost matrix can each be updated from where
+   * they were rather than computed again.
+   */
+  public void swapCostMatrices() {
+    if (otherCosts == null) {
+      otherCosts = new double[costs.length];
+    }
+    double[] swappedCosts = costs;
+    costs = otherCosts;
+    otherCosts = swappedCosts;
+  }
+
+  /**
+   * Finds the positions of each row (or column) whose surroundings the given, just removed seam
+   * could have changed - those within {@link #removalBand} of where the seam crossed it.
+   *
+   * @param removedSeam seam that was just removed
+   * @param isVerticalSeam if the seam is a vertical seam rather than a horizontal one
+   * @param byRow if the positions are found in each row rather than each column
+   * @param bandStarts array to write the first changed position of each row (or column) to
+   * @param bandEnds array to write the last changed position of each row (or column) to, before
+   *                 its first if none were changed
+   */
+  private void getRemovalBands(int[] removedSeam, boolean isVerticalSeam, boolean byRow,
+      int[] bandStarts, int[] bandEnds) {
+    int lines = byRow ? height : width;
+    int lineLength = byRow ? width : height;
+    if (isVerticalSeam == byRow) {
+      // The seam crosses every line once
+      for (int line = 0; line < lines; line += 1) {
+        bandStarts[line] = Math.max(0, removedSeam[line] - removalBand);
+        bandEnds[line] = Math.min(lineLength - 1, removedSeam[line] + removalBand - 1);
+      }
+      return;
+    }
+
+    Arrays.fill(bandStarts, 0, lines, Integer.MAX_VALUE);
+    Arrays.fill(bandEnds, 0, lines, -1);
+    for (int posn = 0; posn < removedSeam.length; posn += 1) {
+      int lastLine = Math.min(lines - 1, removedSeam[posn] + removalBand - 1);
+      for (int line = Math.max(0, removedSeam[posn] - removalBand); line <= lastLine; line += 1) {
+        bandStarts[line] = Math.min(bandStarts[line], posn);
+        bandEnds[line] = Math.max(bandEnds[line], posn);
+      }
+    }
+  }
+
+  /**
+   * Brings the energy map up to date after the given seam was removed, recomputing only the
+   * energies of the pixels whose surroundings the seam's removal changed.
+   *
+   * @param energyMapMaker energy function the energy map was computed with
+   * @param removedSeam seam that was just removed
+   * @param isVerticalSeam if the seam is a vertical seam rather than a horizontal one
+   */
+  public void updateEnergyMap(PackedEnergyMapMaker energyMapMaker, int[] removedSeam,
+      boolean isVerticalSeam) {
+    if (energyMapMaker == null) {
+      throw new IllegalArgumentException("Given energy map maker can't be null!");
+    }
+    else if (removedSeam == null) {
+      throw new IllegalArgumentException("Given seam can't be null!");
+    }
+
+    int[] bandStarts = new int[height];
+    int[] bandEnds = new int[height];
+    getRemovalBands(removedSeam, isVerticalSeam, true, bandStarts, bandEnds);
+    for (int row = 0; row < height; row += 1) {
+      if (bandStarts[row] > bandEnds[row]) {
+        continue;
+      }
+      energyMapMaker.computeEnergy(pixels, stride, width, height, row, bandStarts[row],
+          bandEnds[row] + 1, rowEnergies);
+      int rowStart = row * stride;
+      for (int x = bandStarts[row]; x <= bandEnds[row]; x += 1) {
+        if (!masks[rowStart + x]) {
+          energies[rowStart + x] = rowEnergies[x];
+        }
+      }
+    }
+  }
+
+  /**
+   * Brings the cost matrix for vertical seams up to date after the given seam was removed and the
+   * energy map updated, recomputing only the costs of the pixels whose surroundings the seam's
+   * removal changed, and of the pixels below any whose cost changed as a result.
+   *
+   * @param removedSeam seam that was just removed
+   * @param isVerticalSeam if the seam is a vertical seam rather than a horizontal one
+   */
+  public void updateVerticalCostMatrix(int[] removedSeam, boolean isVerticalSeam) {
+    updateCostMatrix(removedSeam, isVerticalSeam, true);
+  }
+
+  /**
+   * Brings the cost matrix for horizontal seams up to date after the given seam was removed and
+   * the energy map updated, recomputing only the costs of the pixels whose surroundings the seam's
+   * removal changed, and of the pixels right of any whose cost changed as a result.
+   *
+   * @param removedSeam seam that was just removed
+   * @param isVerticalSeam if the seam is a vertical seam rather than a horizontal one
+   */
+  public void updateHorizontalCostMatrix(int[] removedSeam, boolean isVerticalSeam) {
+    updateCostMatrix(removedSeam, isVerticalSeam, false);
+  }
+
+  private void updateCostMatrix(int[] removedSeam, boolean isVerticalSeam,
+      boolean isVerticalCostMatrix) {
+    if (removedSeam == null) {
+      throw new IllegalArgumentException("Given seam can't be null!");
+    }
+
+    int lines = isVerticalCostMatrix ? height : width;
+    int lineLength = isVerticalCostMatrix ? width : height;
+    int[] bandStarts = new int[lines];
+    int[] bandEnds = new int[lines];
+    getRemovalBands(removedSeam, isVerticalSeam, isVerticalCostMatrix, bandStarts, bandEnds);
+
+    // Each line recomputes its band, widened to cover the neighbours of any cost that changed in
+    // the line before
+    int changedStart = Integer.MAX_VALUE;
+    int changedEnd = -1;
+    for (int line = 0; line < lines; line += 1) {
+      int start = bandStarts[line];
+      int end = bandEnds[line];
+      if (changedStart <= changedEnd) {
+        start = Math.max(0, Math.min(start, changedStart - 1));
+        end = Math.min(lineLength - 1, Math.max(end, changedEnd + 1));
+      }
+
+      changedStart = Integer.MAX_VALUE;
+      changedEnd = -1;
+      for (int posn = start; posn <= end; posn += 1) {
+        int idx = isVerticalCostMatrix ? line * stride + posn : posn * stride + line;
+        double cost = energies[idx];
+        if (line > 0) {
+          cost += isVerticalCostMatrix
+              ? Math.min(getCost(posn - 1, line - 1),
+              Math.min(getCost(posn, line - 1), getCost(posn + 1, line - 1)))
+              : Math.min(getCost(line - 1, posn - 1),
+              Math.min(getCost(line - 1, posn), getCost(line - 1, posn + 1)));
+        }
+
+        if (Double.compare(cost, costs[idx]) != 0) {
+          costs[idx] = cost;
+          changedStart = Math.min(changedStart, posn);
+          changedEnd = Math.max(changedEnd, posn);
+        }
+      }
+    }
+  }
+
+  /**
+   * Finds the vertical seam of least cost that stays within {@param corridorRadius} pixels of the
+   * given x coordinate in each row, computing the energy map and cost matrix only inside that
+   * corridor. Ties are broken the same way as {@link #findMinimumVerticalSeam()}.
+   *
+   * @param energyMapMaker energy function to use
+   * @param corridorCenters x coordinate at the center of the corridor in each row, each within one
+   *                        pixel of the one before
+   * @param corridorRadius pixels either side of the center the seam can stray
+   * @return x coordinate of the seam in each row
+   */
+  public int[] findMinimumVerticalSeamInCorridor(PackedEnergyMapMaker energyMapMaker,
+      int[] corridorCenters, int corridorRadius) {
+    return findMinimumSeamInCorridor(energyMapMaker, corridorCenters, corridorRadius, true);
+  }
+
+  /**
+   * Finds the horizontal seam of least cost that stays within {@param corridorRadius} pixels of
+   * the given y coordinate in each column, the same way as
+   * {@link #findMinimumVerticalSeamInCorridor(PackedEnergyMapMaker, int[], int)}.
+   *
+   * @param energyMapMaker energy function to use
+   * @param corridorCenters y coordinate at the center of the corridor in each column, each within
+   *                        one pixel of the one before
+   * @param corridorRadius pixels either side of the center the seam can stray
+   * @return y coordinate of the seam in each column
+   */
+  public int[] findMinimumHorizontalSeamInCorridor(PackedEnergyMapMaker energyMapMaker,
+      int[] corridorCenters, int corridorRadius) {
+    return findMinimumSeamInCorridor(energyMapMaker, corridorCenters, corridorRadius, false);
+  }
+
+  private int[] findMinimumSeamInCorridor(PackedEnergyMapMaker energyMapMaker,
+      int[] corridorCenters, int corridorRadius, boolean isVerticalSeam) {
+    if (energyMapMaker == null) {
+      throw new IllegalArgumentException("Given energy map maker can't be null!");
+    }
+    else if (corridorRadius < 0) {
+      throw new IllegalArgumentException("Given corridor radius can't be negative!");
+    }
+    validSeam(corridorCenters, isVerticalSeam);
+
+    int lineCount = isVerticalSeam ? height : width;
+    int lineLength = isVerticalSeam ? width : height;
+
+    // Span of each row covered by the corridor, so energies are only computed where needed
+    int[] rowFrom = new int[height];
+    int[] rowTo = new int[height];
+    Arrays.fill(rowFrom, width);
+    for (int line = 0; line < lineCount; line += 1) {
+      int first = Math.max(0, corridorCenters[line] - corridorRadius);
+      int last = Math.min(lineLength - 1, corridorCenters[line] + corridorRadius);
+      if (isVerticalSeam) {
+        rowFrom[line] = first;
+        rowTo[line] = last + 1;
+      }
+      else {
+        for (int row = first; row <= last; row += 1) {
+          rowFrom[row] = Math.min(rowFrom[row], line);
+          rowTo[row] = Math.max(rowTo[row], line + 1);
+        }
+      }
+    }
+    for (int row = 0; row < height; row += 1) {
+      if (rowFrom[row] < rowTo[row]) {
+        energyMapMaker.computeEnergy(pixels, stride, width, height, row, rowFrom[row], rowTo[row],
+            rowEnergies);
+        for (int x = rowFrom[row]; x < rowTo[row]; x += 1) {
+          int idx = row * stride + x;
+          if (!masks[idx]) {
+            energies[idx] = rowEnergies[x];
+          }
+        }
+      }
+    }
+
+    for (int line = 0; line < lineCount; line += 1) {
+      int first = Math.max(0, corridorCenters[line] - corridorRadius);
+      int last = Math.min(lineLength - 1, corridorCenters[line] + corridorRadius);
+      for (int posn = first; posn <= last; posn += 1) {
+        int idx = isVerticalSeam ? line * stride + posn : posn * stride + line;
+        if (line == 0) {
+          costs[idx] = energies[idx];
+        }
+        else {
+          costs[idx] = energies[idx] + Math.min(getCorridorCost(posn - 1, line - 1,
+              corridorCenters, corridorRadius, isVerticalSeam), Math.min(getCorridorCost(posn,
+              line - 1, corridorCenters, corridorRadius, isVerticalSeam), getCorridorCost(posn + 1,
+              line - 1, corridorCenters, corridorRadius, isVerticalSeam)));
+        }
+      }
+    }
+
+    int[] seam = new int[lineCount];
+    int currentPosn = -1;
+    double currentCost = borderEnergy;
+    for (int posn = 0; posn < lineLength; posn += 1) {
+      double cost = getCorridorCost(posn, lineCount - 1, corridorCenters, corridorRadius,
+          isVerticalSeam);
+      if (cost < currentCost) {
+        currentPosn = posn;
+        currentCost = cost;
+      }
+    }
+    seam[lineCount - 1] = currentPosn;
+
+    for (int line = lineCount - 2; line >= 0; line -= 1) {
+      double beforeEnergy = getCorridorCost(currentPosn - 1, line, corridorCenters,
+          corridorRadius, isVerticalSeam);
+      double centerEnergy = getCorridorCost(currentPosn, line, corridorCenters, corridorRadius,
+          isVerticalSeam);
+      double afterEnergy = getCorridorCost(currentPosn + 1, line, corridorCenters, corridorRadius,
+          isVerticalSeam);
+
+      double minEnergy = Math.min(beforeEnergy, Math.min(centerEnergy, afterEnergy));
+
+      if (Double.compare(minEnergy, beforeEnergy) == 0) {
+        currentPosn -= 1;
+      }
+      else if (Double.compare(minEnergy, afterEnergy) == 0) {
+        currentPosn += 1;
+      }
+      seam[line] = currentPosn;
+    }
+    return seam;
+  }
+
+  /**
+   * Cost of the pixel at the given position of the given row (or column), or that of a pixel
+   * outside of the image if it lies outside of the corridor.
+   */
+  private double getCorridorCost(int posn, int line, int[] corridorCenters, int corridorRadius,
+      boolean isVerticalSeam) {
+    if (Math.abs(posn - corridorCenters[line]) > corridorRadius) {
+      return borderEnergy;
+    }
+    return isVerticalSeam ? getCost(posn, line) : getCost(line, posn);
+  }
+
+  /**
+   * Averages the current cost matrix energies of the pixels along the given seam.
+   *
+   * @param seam seam to average
+   * @param isVerticalSeam if the seam is a vertical seam rather than a horizontal one
+   * @return average cost matrix energy along the seam
+   */
+  public double getAverageEnergy(int[] seam, boolean isVerticalSeam) {
+    validSeam(seam, isVerticalSeam);
+    double totalEnergy = 0;
+    for (int i = 0; i < seam.length; i += 1) {
+      totalEnergy += isVerticalSeam ? costs[i * stride + seam[i]] : costs[seam[i] * stride + i];
+    }
+    return totalEnergy / seam.length;
+  }
+
+  /**
+   * Computes the average energy of the pixels along the given seam from their colors, whether or
+   * not the energy map is up to date, leaving the energy map as it is. Masks count their mask
+   * energy.
+   *
+   * @param energyMapMaker energy function to use
+   * @param seam seam to average
+   * @param isVerticalSeam if the seam is a vertical seam rather than a horizontal one
+   * @return average energy along the seam
+   */
+  public double computeSeamEnergy(PackedEnergyMapMaker energyMapMaker, int[] seam,
+      boolean isVerticalSeam) {
+    if (energyMapMaker == null) {
+      throw new IllegalArgumentException("Given energy map maker can't be null!");
+    }
+    validSeam(seam, isVerticalSeam);
+
+    double total = 0;
+    for (int i = 0; i < seam.length; i += 1) {
+      int x = isVerticalSeam ? seam[i] : i;
+      int y = isVerticalSeam ? i : seam[i];
+      int idx = y * stride + x;
+      if (masks[idx]) {
+        total += energies[idx];
+      }
+      else {
+        energyMapMaker.computeEnergy(pixels, stride, width, height, y, x, x + 1, rowEnergies);
+        total += rowEnergies[x];
+      }
+    }
+    return total / seam.length;
+  }
+}
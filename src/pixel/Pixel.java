@@ -14,6 +14,12 @@ public interface Pixel {
 
   Color getColor();
 
+  /**
+   * @return color of this pixel packed into an ARGB int, as {@link Color#getRGB()} would return,
+   *         without allocating a Color
+   */
+  int getRGB();
+
   boolean isBorderPixel();
 
   void setColor(Color color);
@@ -0,0 +1,164 @@
+package pixel;
+
+import pixel.iterators.ColumnIterator;
+import pixel.iterators.RowIterator;
+import utility.Coordinate;
+
+/**
+ * Random access index over an image of linked Pixels, holding a reference to every pixel by its
+ * row and column so any pixel can be found without walking the image. Must be told of every seam
+ * removed from or inserted into the image to stay valid.
+ */
+public class PixelIndex {
+
+  private Pixel[][] rows;
+
+  private int width;
+
+  private int height;
+
+  public PixelIndex(Pixel upperLeftCorner) {
+    if (upperLeftCorner == null) {
+      throw new IllegalArgumentException("Given pixel can't be null!");
+    }
+
+    ColumnIterator columnIterator = new ColumnIterator(upperLeftCorner);
+    while (columnIterator.hasNext()) {
+      columnIterator.next();
+      height += 1;
+    }
+    RowIterator rowIterator = new RowIterator(upperLeftCorner);
+    while (rowIterator.hasNext()) {
+      rowIterator.next();
+      width += 1;
+    }
+
+    rows = new Pixel[height][width];
+    columnIterator = new ColumnIterator(upperLeftCorner);
+    for (int row = 0; row < height; row += 1) {
+      rowIterator = new RowIterator(columnIterator.next());
+      for (int column = 0; column < width; column += 1) {
+        rows[row][column] = rowIterator.next();
+      }
+    }
+  }
+
+  public int getWidth() {
+    return width;
+  }
+
+  public int getHeight() {
+    return height;
+  }
+
+  public Pixel getPixel(int x, int y) {
+    if (x < 0 || x >= width) {
+      throw new IllegalArgumentException("Given x coordinate must be in the bounds of the image!");
+    }
+    else if (y < 0 || y >= height) {
+      throw new IllegalArgumentException("Given y coordinate must be in the bounds of the image!");
+    }
+    return rows[y][x];
+  }
+
+  private void validSeam(Coordinate[] coordinates, int expectedLength) {
+    if (coordinates == null) {
+      throw new IllegalArgumentException("Given coordinates can't be null!");
+    }
+    else if (coordinates.length != expectedLength) {
+      throw new IllegalArgumentException("Given coordinates must span the entire image!");
+    }
+  }
+
+  /**
+   * Removes the pixels at the given coordinates, one per row, shifting the rest of each row left.
+   *
+   * @param coordinates coordinates of the removed vertical seam, from the top row down
+   */
+  public void removeVerticalSeam(Coordinate[] coordinates) {
+    validSeam(coordinates, height);
+    for (Coordinate coordinate : coordinates) {
+      Pixel[] row = rows[coordinate.getY()];
+      int x = coordinate.getX();
+      System.arraycopy(row, x + 1, row, x, width - x - 1);
+      row[width - 1] = null;
+    }
+    width -= 1;
+  }
+
+  /**
+   * Removes the pixels at the given coordinates, one per column, shifting the rest of each column
+   * up.
+   *
+   * @param coordinates coordinates of the removed horizontal seam, from the left column right
+   */
+  public void removeHorizontalSeam(Coordinate[] coordinates) {
+    validSeam(coordinates, width);
+    for (Coordinate coordinate : coordinates) {
+      int x = coordinate.getX();
+      for (int row = coordinate.getY(); row < height - 1; row += 1) {
+        rows[row][x] = rows[row + 1][x];
+      }
+      rows[height - 1][x] = null;
+    }
+    height -= 1;
+  }
+
+  /**
+   * Places each of the given inserted pixels to the right of the pixel at the matching coordinate,
+   * shifting the rest of each row right.
+   *
+   * @param coordinates coordinates of the vertical seam the pixels were inserted next to
+   * @param insertedPixels pixels inserted in each row
+   */
+  public void insertVerticalSeam(Coordinate[] coordinates, Pixel[] insertedPixels) {
+    validSeam(coordinates, height);
+    validSeam(coordinates, insertedPixels.length);
+    if (width == rows[0].length) {
+      int newCapacity = width + Math.max(1, width / 2);
+      // Widen the spare rows left by removed horizontal seams too, for when they are reused
+      for (int row = 0; row < rows.length; row += 1) {
+        Pixel[] newRow = new Pixel[newCapacity];
+        System.arraycopy(rows[row], 0, newRow, 0, width);
+        rows[row] = newRow;
+      }
+    }
+
+    for (int i = 0; i < coordinates.length; i += 1) {
+      Pixel[] row = rows[coordinates[i].getY()];
+      int x = coordinates[i].getX();
+      System.arraycopy(row, x + 1, row, x + 2, width - x - 1);
+      row[x + 1] = insertedPixels[i];
+    }
+    width += 1;
+  }
+
+  /**
+   * Places each of the given inserted pixels below the pixel at the matching coordinate, shifting
+   * the rest of each column down.
+   *
+   * @param coordinates coordinates of the horizontal seam the pixels were inserted next to
+   * @param insertedPixels pixels inserted in each column
+   */
+  public void insertHorizontalSeam(Coordinate[] coordinates, Pixel[] insertedPixels) {
+    validSeam(coordinates, width);
+    validSeam(coordinates, insertedPixels.length);
+    if (height == rows.length) {
+      Pixel[][] newRows = new Pixel[height + Math.max(1, height / 2)][];
+      System.arraycopy(rows, 0, newRows, 0, height);
+      for (int row = height; row < newRows.length; row += 1) {
+        newRows[row] = new Pixel[rows[0].length];
+      }
+      rows = newRows;
+    }
+
+    for (int i = 0; i < coordinates.length; i += 1) {
+      int x = coordinates[i].getX();
+      for (int row = height; row > coordinates[i].getY() + 1; row -= 1) {
+        rows[row][x] = rows[row - 1][x];
+      }
+      rows[coordinates[i].getY() + 1][x] = insertedPixels[i];
+    }
+    height += 1;
+  }
+}
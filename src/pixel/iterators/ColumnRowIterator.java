@@ -7,7 +7,7 @@ public class ColumnRowIterator implements Iterator<Pixel>, CoordinateTracker {
 
   private final RowIterator topMostRow;
 
-  private ColumnIterator currentColumn;
+  private final ColumnIterator currentColumn;
 
   private int currentX = 0;
 
@@ -29,7 +29,7 @@ public class ColumnRowIterator implements Iterator<Pixel>, CoordinateTracker {
     else if (topMostRow.hasNext()) {
       currentY = 0;
       currentX += 1;
-      currentColumn = new ColumnIterator(topMostRow.next());
+      currentColumn.restart(topMostRow.next());
       return currentColumn.hasNext();
     }
     return false;
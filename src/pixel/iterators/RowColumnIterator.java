@@ -7,7 +7,7 @@ public class RowColumnIterator implements Iterator<Pixel>, CoordinateTracker{
 
   private final ColumnIterator leftMostColumn;
 
-  private RowIterator currentRow;
+  private final RowIterator currentRow;
 
   private int currentX = 0;
 
@@ -29,7 +29,7 @@ public class RowColumnIterator implements Iterator<Pixel>, CoordinateTracker{
     else if (leftMostColumn.hasNext()) {
       currentX = 0;
       currentY += 1;
-      currentRow = new RowIterator(leftMostColumn.next());
+      currentRow.restart(leftMostColumn.next());
       return currentRow.hasNext();
     }
     return false;
@@ -14,6 +14,19 @@ public class RowIterator implements Iterator<Pixel> {
     currentPixel = startingPixel;
   }
 
+  /**
+   * Starts this iterator over from the given {@param startingPixel}, so one iterator can walk
+   * every row of an image without allocating another for each.
+   *
+   * @param startingPixel pixel to start from
+   */
+  void restart(Pixel startingPixel) {
+    if (startingPixel == null) {
+      throw new IllegalArgumentException("Given pixel can't be null!");
+    }
+    currentPixel = startingPixel;
+  }
+
   @Override
   public boolean hasNext() {
     return !currentPixel.isBorderPixel();
@@ -0,0 +1,475 @@
+package seammanipulators;
+
+import java.awt.image.BufferedImage;
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import javax.imageio.ImageIO;
+import masks.Mask;
+import org.jcodec.api.awt.AWTSequenceEncoder;
+import org.jcodec.common.io.NIOUtils;
+import org.jcodec.common.io.SeekableByteChannel;
+import org.jcodec.common.model.Rational;
+import pixel.PackedImage;
+import seams.LoggedSeam;
+import seams.SeamLog;
+import utility.Coordinate;
+
+/**
+ * Holds the state and operations shared by every SeamManipulator regardless of how it stores the
+ * image being carved - the current image's dimensions, the recording of each intermediate state,
+ * and the saving of the current image and of the recorded process.
+ */
+public abstract class AbstractSeamManipulator implements SeamManipulator {
+
+  protected static final int maskValue = 5000;
+
+  private final boolean record;
+
+  /**
+   * Log of every seam removed and inserted since this image was loaded, or null if not recording.
+   */
+  private final SeamLog seamLog;
+
+  /**
+   * Encoder the process is being streamed to while carving, or null if it isn't being streamed.
+   */
+  private ProcessStreamEncoder processStream;
+
+  /**
+   * Fraction of the image's width, or height, removed as seams from each cost matrix, or 0 to
+   * remove a single seam per cost matrix.
+   */
+  private double seamBatchFraction = 0;
+
+  /**
+   * Seams removed by recent resizes of near identical images, or null to always find every seam.
+   */
+  private SeamCache seamCache;
+
+  /**
+   * Signature of the image the current resize started from, and the seams it has removed so far,
+   * to be cached once it finishes, or null if the current resize isn't being cached.
+   */
+  private SeamCache.Signature cachingSignature;
+
+  private List<LoggedSeam> cachingSeams;
+
+  private List<Double> cachingSeamEnergies;
+
+  /**
+   * Masked pixels the current, or last, removal of an area started with and has left to remove,
+   * volatile so another thread can report the removal's progress.
+   */
+  private volatile int areaRemovalStartingPixels = 0;
+
+  private volatile int areaRemovalRemainingPixels = 0;
+
+  protected final int BufferedImageType;
+
+  protected int imageWidth;
+
+  protected int imageHeight;
+
+  protected AbstractSeamManipulator(BufferedImage loadedImage, boolean record) {
+    if (loadedImage == null) {
+      throw new IllegalArgumentException("Given image can't be null!");
+    }
+    this.record = record;
+    seamLog = record ? new SeamLog(loadedImage) : null;
+    BufferedImageType = loadedImage.getType();
+    imageWidth = loadedImage.getWidth();
+    imageHeight = loadedImage.getHeight();
+  }
+
+  /**
+   * Reads the image at the given {@param inputFilePath}, after checking that it exists.
+   *
+   * @param inputFilePath file path of the image to read
+   * @return the read image
+   * @throws IOException if the given {@param inputFilePath} does not exist or can't be read
+   */
+  protected static BufferedImage readImage(Path inputFilePath) throws IOException {
+    validFilePath(inputFilePath);
+    return ImageIO.read(inputFilePath.toFile());
+  }
+
+  /**
+   * Checks if the given {@param filePath}  is both not null and does exist, else throws a corresponding
+   * exception.
+   *
+   * @param filePath file path to check
+   * @throws IllegalArgumentException if the given {@param filePath}  is null
+   * @throws IOException if the given {@param filePath} does not exist
+   */
+  protected static void validFilePath(Path filePath) throws IllegalArgumentException,
+      FileNotFoundException {
+    if (filePath == null) {
+      throw new IllegalArgumentException("Given file path can't be null!");
+    }
+    else if (Files.notExists(filePath)) {
+      throw new FileNotFoundException("Given file path does not exist!");
+    }
+  }
+
+  protected void validMask(Mask mask) {
+    if (mask == null) {
+      throw new IllegalArgumentException("Given mask can't be null!");
+    }
+    else if (mask.getMaxX() > imageWidth - 1) {
+      throw new IllegalArgumentException("Given mask's coordinates must fit with this image's "
+          + "current width!");
+    }
+    else if (mask.getMinY() > imageHeight - 1) {
+      throw new IllegalArgumentException("Given mask's coordinates must fit with this image's "
+          + "current height!");
+    }
+  }
+
+  protected void validNewSize(int newWidth, int newHeight) {
+    if (newWidth < 1) {
+      throw new IllegalArgumentException("Given new width can't be less than 1 pixel");
+    }
+    else if (newHeight < 1) {
+      throw new IllegalArgumentException("Given new width can't be less than 1 pixel");
+    }
+  }
+
+  /**
+   * Sets how many seams are taken from each cost matrix when only one dimension of the image is
+   * being shrunk, and when finding the seams to insert while enlarging, as a fraction of the
+   * image's current width (or height). The seams taken from one cost matrix never touch or cross,
+   * but only the first is the true least cost seam - the rest are the best found around it. Larger
+   * fractions need far fewer energy maps and cost matrices, trading away some of the quality of
+   * the result for speed.
+   *
+   * @param seamBatchFraction fraction of the image to take as seams from each cost matrix, at least
+   *                          one seam, or 0 to only ever take the least cost seam
+   * @throws IllegalArgumentException if the given {@param seamBatchFraction} isn't between 0 and 1
+   */
+  public void setSeamBatchFraction(double seamBatchFraction) {
+    if (!(seamBatchFraction >= 0 && seamBatchFraction <= 1)) {
+      throw new IllegalArgumentException("Given seam batch fraction must be between 0 and 1!");
+    }
+    this.seamBatchFraction = seamBatchFraction;
+  }
+
+  /**
+   * @param lineLength current width, or height, of the image the seams are taken from
+   * @param seamsLeft number of seams still to be found
+   * @return number of seams to take from the next cost matrix
+   */
+  protected int getSeamBatchSize(int lineLength, int seamsLeft) {
+    int batchSize = Math.max(1, (int)(seamBatchFraction * lineLength));
+    return Math.min(batchSize, seamsLeft);
+  }
+
+  /**
+   * Enlarging by more than half the image's size at once would duplicate the same low energy
+   * seams over and over, and past its whole size would run out of seams to duplicate, so larger
+   * enlargements are split into stages of at most this fraction of the size each stage starts at.
+   */
+  protected static final double maxEnlargementStage = 0.5;
+
+  /**
+   * @param lineLength current width, or height, of the image being enlarged
+   * @param seamsLeft number of seams still to be inserted
+   * @return number of seams to insert in the next stage of the enlargement
+   */
+  protected static int getEnlargementStageSize(int lineLength, int seamsLeft) {
+    int stageSize = Math.max(1, (int)(maxEnlargementStage * lineLength));
+    return Math.min(stageSize, seamsLeft);
+  }
+
+  /**
+   * Sets a cache of the seams removed by recent resizes to share with other SeamManipulators. A
+   * resize that only shrinks the image first looks in the cache for a resize of a near identical
+   * image to the same size, removing the same seams as it did if one is found rather than
+   * searching for any, for as long as each seam's energy stays within the cache's tolerance.
+   * Otherwise the seams it removes are cached once it finishes.
+   *
+   * @param seamCache cache to use, or null to always find every seam
+   */
+  public void setSeamCache(SeamCache seamCache) {
+    this.seamCache = seamCache;
+  }
+
+  /**
+   * Starts reporting the progress of a removal of an area, once its mask has been applied.
+   *
+   * @param maskPixels number of masked pixels the image starts with
+   */
+  protected void startAreaRemoval(int maskPixels) {
+    areaRemovalRemainingPixels = maskPixels;
+    areaRemovalStartingPixels = maskPixels;
+  }
+
+  /**
+   * @param remainingMaskPixels number of masked pixels the image has left, after removing a seam
+   */
+  protected void updateAreaRemovalProgress(int remainingMaskPixels) {
+    areaRemovalRemainingPixels = remainingMaskPixels;
+  }
+
+  /**
+   * Can be called from another thread while an area is being removed, to show how far along it
+   * is.
+   *
+   * @return fraction, from 0 to 1, of the masked pixels of the current, or last, removal of an
+   *         area that have been removed, or 1 if no area has been removed
+   */
+  @Override
+  public double getAreaRemovalProgress() {
+    int startingPixels = areaRemovalStartingPixels;
+    if (startingPixels == 0) {
+      return 1;
+    }
+    int remainingPixels = Math.min(areaRemovalRemainingPixels, startingPixels);
+    return (double)(startingPixels - remainingPixels) / startingPixels;
+  }
+
+  /**
+   * @param x x coordinate of the pixel
+   * @param y y coordinate of the pixel
+   * @return packed color of the pixel at (x, y) of the current image
+   */
+  protected abstract int getCurrentRGB(int x, int y);
+
+  /**
+   * Computes the average energy of the pixels along the given seam of the current image from their
+   * colors, without computing the rest of the energy map.
+   *
+   * @param seam position of the seam in each row or column
+   * @param isVerticalSeam if the seam is vertical
+   * @return average energy along the seam
+   */
+  protected abstract double computeSeamEnergy(int[] seam, boolean isVerticalSeam);
+
+  /**
+   * Removes the given seam, found by an earlier resize, from the current image.
+   *
+   * @param seam seam to remove
+   */
+  protected abstract void removeCachedSeam(LoggedSeam seam);
+
+  /**
+   * Starts a resize to the given size with the seam cache, if there is one and the resize only
+   * shrinks the image - either removing the seams of a matching cached resize, or starting to
+   * collect the seams removed to cache them by {@link #finishCachedResize()}. Each cached seam is
+   * only removed while its energy in the current image is within its bound. Once one isn't, the
+   * rest are left for the resize to find itself, and the seams already removed are collected
+   * along with those it finds.
+   *
+   * @param newWidth width the image is being resized to
+   * @param newHeight height the image is being resized to
+   * @return if the image was resized with cached seams
+   */
+  protected boolean startCachedResize(int newWidth, int newHeight) {
+    cachingSignature = null;
+    cachingSeams = null;
+    cachingSeamEnergies = null;
+    if (seamCache == null || newWidth > imageWidth || newHeight > imageHeight
+        || (newWidth == imageWidth && newHeight == imageHeight)) {
+      return false;
+    }
+
+    SeamCache.Signature signature = seamCache.getSignature(imageWidth, imageHeight, newWidth,
+        newHeight, this::getCurrentRGB);
+    SeamCache.Entry cachedResize = seamCache.find(signature);
+    List<LoggedSeam> removedSeams = new ArrayList<>();
+    List<Double> removedSeamEnergies = new ArrayList<>();
+    if (cachedResize != null) {
+      List<LoggedSeam> cachedSeams = cachedResize.getRemovedSeams();
+      for (int i = 0; i < cachedSeams.size(); i += 1) {
+        LoggedSeam seam = cachedSeams.get(i);
+        double seamEnergy = computeSeamEnergy(seam.getPositions(), seam.isVerticalSeam());
+        if (!cachedResize.isWithinBound(i, seamEnergy)) {
+          seamCache.reject();
+          break;
+        }
+        removeCachedSeam(seam);
+        removedSeams.add(seam);
+        removedSeamEnergies.add(seamEnergy);
+      }
+      if (removedSeams.size() == cachedSeams.size()) {
+        return true;
+      }
+    }
+    cachingSignature = signature;
+    cachingSeams = removedSeams;
+    cachingSeamEnergies = removedSeamEnergies;
+    return false;
+  }
+
+  /**
+   * Caches the seams removed since {@link #startCachedResize(int, int)}, if it started collecting
+   * them.
+   */
+  protected void finishCachedResize() {
+    if (cachingSignature != null) {
+      seamCache.put(cachingSignature, cachingSeams, cachingSeamEnergies);
+    }
+    cachingSignature = null;
+    cachingSeams = null;
+    cachingSeamEnergies = null;
+  }
+
+  protected boolean isRecording() {
+    return record;
+  }
+
+  /**
+   * Records the removal of the given seam from the current image, if recording or streaming the
+   * process.
+   *
+   * @param seam position of the seam in each row or column
+   * @param isVerticalSeam if the seam is vertical
+   */
+  protected void recordRemovedSeam(int[] seam, boolean isVerticalSeam) {
+    recordSeam(seam, isVerticalSeam, false);
+  }
+
+  protected void recordRemovedSeam(Coordinate[] coordinates, boolean isVerticalSeam) {
+    if (record || processStream != null || cachingSeams != null) {
+      recordSeam(toPositions(coordinates, isVerticalSeam), isVerticalSeam, false);
+    }
+  }
+
+  /**
+   * Records the insertion of new pixels to the right of, or below, the given seam of the current
+   * image, if recording or streaming the process.
+   *
+   * @param seam position of the seam in each row or column
+   * @param isVerticalSeam if the seam is vertical
+   */
+  protected void recordInsertedSeam(int[] seam, boolean isVerticalSeam) {
+    recordSeam(seam, isVerticalSeam, true);
+  }
+
+  protected void recordInsertedSeam(Coordinate[] coordinates, boolean isVerticalSeam) {
+    if (record || processStream != null) {
+      recordSeam(toPositions(coordinates, isVerticalSeam), isVerticalSeam, true);
+    }
+  }
+
+  private void recordSeam(int[] seam, boolean isVerticalSeam, boolean isInsertion) {
+    if (record || processStream != null || (cachingSeams != null && !isInsertion)) {
+      LoggedSeam loggedSeam = new LoggedSeam(seam, isVerticalSeam, isInsertion);
+      if (cachingSeams != null && !isInsertion) {
+        // Still in the image, so its energy is that of the pixels about to be removed
+        cachingSeams.add(loggedSeam);
+        cachingSeamEnergies.add(computeSeamEnergy(seam, isVerticalSeam));
+      }
+      if (record) {
+        seamLog.add(loggedSeam);
+      }
+      if (processStream != null) {
+        processStream.add(loggedSeam);
+      }
+    }
+  }
+
+  protected static int[] toPositions(Coordinate[] coordinates, boolean isVerticalSeam) {
+    if (coordinates == null) {
+      throw new IllegalArgumentException("Given coordinates can't be null!");
+    }
+
+    int[] positions = new int[coordinates.length];
+    for (int i = 0; i < coordinates.length; i += 1) {
+      positions[i] = isVerticalSeam ? coordinates[i].getX() : coordinates[i].getY();
+    }
+    return positions;
+  }
+
+  @Override
+  public void replaceArea(Mask areaToRemove) {
+    int startingWidth = imageWidth;
+    int startingHeight = imageHeight;
+    removeArea(areaToRemove);
+    resize(startingWidth, startingHeight);
+  }
+
+  @Override
+  public void saveCurrentImage(Path filePath) throws IOException {
+    validFilePath(filePath.getParent());
+    ImageIO.write(getCurrentImage(), "png", filePath.toFile());
+  }
+
+  /**
+   * Starts encoding every state of this image from now on into a video at the given
+   * {@param filePath} while carving, rather than all at once afterwards. The video is finished by
+   * {@link #finishProcessStream()}. Doesn't require this seam manipulator to be recording.
+   *
+   * @param filePath file path to save the video to
+   * @param frameWidth width of the video, rounded up to be even; wider states are cropped
+   * @param frameHeight height of the video, rounded up to be even; taller states are cropped
+   * @throws IllegalStateException if the process is already being streamed
+   * @throws IOException if the given {@param filePath} can't be written to
+   */
+  @Override
+  public void startProcessStream(Path filePath, int frameWidth, int frameHeight)
+      throws IOException {
+    if (processStream != null) {
+      throw new IllegalStateException("This seam manipulator is already streaming its process!");
+    }
+    else if (filePath == null) {
+      throw new IllegalArgumentException("Given file path can't be null!");
+    }
+
+    validFilePath(filePath.toAbsolutePath().getParent());
+    processStream = new ProcessStreamEncoder(getCurrentImage(), filePath, frameWidth,
+        frameHeight);
+  }
+
+  /**
+   * Waits for every state so far to be encoded, then finishes the video started by
+   * {@link #startProcessStream(Path, int, int)}.
+   *
+   * @throws IllegalStateException if the process isn't being streamed
+   * @throws IOException if any state could not be encoded or written
+   */
+  @Override
+  public void finishProcessStream() throws IOException {
+    if (processStream == null) {
+      throw new IllegalStateException("This seam manipulator isn't streaming its process!");
+    }
+
+    try {
+      processStream.finish();
+    }
+    finally {
+      processStream = null;
+    }
+  }
+
+  @Override
+  public void saveCurrentProcess(Path filePath) throws IOException {
+    if (!record) {
+      throw new IllegalArgumentException("This seam manipulator has been set not to record!");
+    }
+
+    validFilePath(filePath.getParent());
+    SeekableByteChannel out = null;
+    PaddedFrame frame = new PaddedFrame(seamLog.getMaxWidth(), seamLog.getMaxHeight());
+
+    try {
+      out = NIOUtils.writableFileChannel(filePath.toString());
+      AWTSequenceEncoder encoder = new AWTSequenceEncoder(out, Rational.R(25, 1));
+      // Replay each recorded state as it is encoded, rather than holding them all at once
+      Iterator<PackedImage> states = seamLog.replay();
+      while (states.hasNext()) {
+        encoder.encodeImage(frame.draw(states.next()));
+      }
+      // Finalize the encoding, i.e. clear the buffers, write the header, etc.
+      encoder.finish();
+    }
+    finally {
+      frame.dispose();
+      NIOUtils.closeQuietly(out);
+    }
+  }
+}
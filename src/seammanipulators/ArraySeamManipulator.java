@@ -0,0 +1,378 @@
+package seammanipulators;
+
+import energymaps.EnergyMapMaker;
+import energymaps.PackedEnergyMapMaker;
+import java.awt.Color;
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.nio.file.Path;
+import masks.Mask;
+import pixel.PackedImage;
+import seams.LoggedSeam;
+import utility.FenwickSeamAdjuster;
+import utility.SeamAdjuster;
+
+/**
+ * SeamManipulator that stores the image being carved as a PackedImage - flat arrays of packed
+ * colors and primitive energies - rather than as a graph of linked Pixels, for a far smaller memory
+ * footprint on large images. Finds and removes the same seams as the DefaultSeamManipulator.
+ */
+public class ArraySeamManipulator extends AbstractSeamManipulator
+    implements TransportMapPlanning {
+
+  private PackedImage image;
+
+  private final PackedEnergyMapMaker energyMapMaker;
+
+  private double maxEnergyMapEnergy;
+
+  private double maxCostMatrixEnergy;
+
+  /**
+   * Finds seams coarse to fine while resizing, or null to always search the full image.
+   */
+  private PyramidSeamFinder pyramidSeamFinder;
+
+  /**
+   * Most memory, in bytes, to plan the order of removing seams in with a transport map, or 0 to
+   * never plan one.
+   */
+  private long transportMapMemoryBudget = 0;
+
+  /**
+   * Loads the image at the given {@param inputFilePath} to be carved.
+   *
+   * @param inputFilePath file path of the image to carve
+   * @param energyMapMaker energy function to use, must also be a PackedEnergyMapMaker
+   * @param record if every intermediate state should be kept for {@link #saveCurrentProcess(Path)}
+   * @throws IllegalArgumentException if the given {@param energyMapMaker} is null or can't work on
+   *                                  packed images
+   * @throws IOException if the given {@param inputFilePath} does not exist or can't be read
+   */
+  public ArraySeamManipulator(Path inputFilePath, EnergyMapMaker energyMapMaker, boolean record)
+      throws IOException {
+    this(readImage(inputFilePath), energyMapMaker, record);
+  }
+
+  /**
+   * Carves the given image, already loaded.
+   *
+   * @param loadedImage image to carve
+   * @param energyMapMaker energy function to use, must also be a PackedEnergyMapMaker
+   * @param record if every intermediate state should be kept for {@link #saveCurrentProcess(Path)}
+   * @throws IllegalArgumentException if the given {@param loadedImage} or {@param energyMapMaker}
+   *                                  is null, or the energy map can't work on packed images
+   */
+  public ArraySeamManipulator(BufferedImage loadedImage, EnergyMapMaker energyMapMaker,
+      boolean record) {
+    super(loadedImage, record);
+
+    if (energyMapMaker == null) {
+      throw new IllegalArgumentException("Given energy map can't be null!");
+    }
+    else if (!(energyMapMaker instanceof PackedEnergyMapMaker)) {
+      throw new IllegalArgumentException("Given energy map must be able to work on packed "
+          + "images!");
+    }
+    this.energyMapMaker = (PackedEnergyMapMaker)energyMapMaker;
+
+    image = new PackedImage(loadedImage);
+  }
+
+  /**
+   * Sets resizing to find each seam in a copy of the image downsampled by the given
+   * {@param scale}, then refine it in full within {@param corridorRadius} pixels of the seam's
+   * upsampled path, rather than search the full image for every seam. Far faster on very large
+   * images, at the cost of sometimes missing the least cost seam. Taking many seams from each cost
+   * matrix with {@link #setSeamBatchFraction(double)} has no effect while this is on.
+   *
+   * @param scale width and height of the block of pixels averaged into each downsampled pixel, or
+   *              1 to search the full image
+   * @param corridorRadius pixels either side of the upsampled path a seam can stray
+   * @throws IllegalArgumentException if the given {@param scale} is less than 1 or the given
+   *                                  {@param corridorRadius} is negative
+   */
+  public void setPyramidSeamSearch(int scale, int corridorRadius) {
+    if (scale < 1) {
+      throw new IllegalArgumentException("Given scale must be at least 1!");
+    }
+    else if (corridorRadius < 0) {
+      throw new IllegalArgumentException("Given corridor radius can't be negative!");
+    }
+    pyramidSeamFinder = scale == 1 ? null
+        : new PyramidSeamFinder(energyMapMaker, scale, corridorRadius);
+  }
+
+  @Override
+  public void setTransportMapMemoryBudget(long transportMapMemoryBudget) {
+    if (transportMapMemoryBudget < 0) {
+      throw new IllegalArgumentException("Given transport map memory budget can't be negative!");
+    }
+    this.transportMapMemoryBudget = transportMapMemoryBudget;
+  }
+
+  private void applyMask(Mask maskToApply, double valueToApply) {
+    validMask(maskToApply);
+
+    maskToApply.forEachRun((y, fromX, toX) -> image.makeMaskRun(y, fromX, toX, valueToApply));
+  }
+
+  private int[] findMinimumVerticalSeam(PackedImage image) {
+    maxEnergyMapEnergy = image.computeEnergyMap(energyMapMaker);
+    maxCostMatrixEnergy = image.computeVerticalCostMatrix();
+    return image.findMinimumVerticalSeam();
+  }
+
+  private int[] findMinimumHorizontalSeam(PackedImage image) {
+    maxEnergyMapEnergy = image.computeEnergyMap(energyMapMaker);
+    maxCostMatrixEnergy = image.computeHorizontalCostMatrix();
+    return image.findMinimumHorizontalSeam();
+  }
+
+  private int[][] findMinimumVerticalSeams(PackedImage image, int count) {
+    if (pyramidSeamFinder != null) {
+      return new int[][] {pyramidSeamFinder.findMinimumSeam(image, true, false).getPositions()};
+    }
+    maxEnergyMapEnergy = image.computeEnergyMap(energyMapMaker);
+    maxCostMatrixEnergy = image.computeVerticalCostMatrix();
+    return image.findMinimumVerticalSeams(count);
+  }
+
+  private int[][] findMinimumHorizontalSeams(PackedImage image, int count) {
+    if (pyramidSeamFinder != null) {
+      return new int[][] {pyramidSeamFinder.findMinimumSeam(image, false, true).getPositions()};
+    }
+    maxEnergyMapEnergy = image.computeEnergyMap(energyMapMaker);
+    maxCostMatrixEnergy = image.computeHorizontalCostMatrix();
+    return image.findMinimumHorizontalSeams(count);
+  }
+
+  private void removeVerticalSeam(int[] seam) {
+    recordRemovedSeam(seam, true);
+    image.removeVerticalSeam(seam);
+    imageWidth -= 1;
+  }
+
+  private void removeHorizontalSeam(int[] seam) {
+    recordRemovedSeam(seam, false);
+    image.removeHorizontalSeam(seam);
+    imageHeight -= 1;
+  }
+
+  @Override
+  protected int getCurrentRGB(int x, int y) {
+    return image.getRGB(x, y);
+  }
+
+  @Override
+  protected double computeSeamEnergy(int[] seam, boolean isVerticalSeam) {
+    return image.computeSeamEnergy(energyMapMaker, seam, isVerticalSeam);
+  }
+
+  @Override
+  protected void removeCachedSeam(LoggedSeam seam) {
+    if (seam.isVerticalSeam()) {
+      removeVerticalSeam(seam.getPositions());
+    }
+    else {
+      removeHorizontalSeam(seam.getPositions());
+    }
+  }
+
+  @Override
+  public void resize(int newWidth, int newHeight) {
+    validNewSize(newWidth, newHeight);
+    if (startCachedResize(newWidth, newHeight)) {
+      return;
+    }
+
+    if (TransportMapPlanner.isWithinBudget(imageWidth, imageHeight, newWidth, newHeight,
+        transportMapMemoryBudget)) {
+      TransportMapPlanner planner = new TransportMapPlanner(energyMapMaker);
+      for (LoggedSeam seam : planner.plan(image, imageWidth - newWidth, imageHeight - newHeight)) {
+        if (seam.isVerticalSeam()) {
+          removeVerticalSeam(seam.getPositions());
+        }
+        else {
+          removeHorizontalSeam(seam.getPositions());
+        }
+      }
+    }
+
+    // Downsize then upsize
+    while (imageWidth > newWidth || imageHeight > newHeight) {
+      if (pyramidSeamFinder != null && imageWidth > newWidth && imageHeight > newHeight) {
+        LoggedSeam seam = pyramidSeamFinder.findMinimumSeam(image, true, true);
+        if (seam.isVerticalSeam()) {
+          removeVerticalSeam(seam.getPositions());
+        }
+        else {
+          removeHorizontalSeam(seam.getPositions());
+        }
+      }
+      else if (imageWidth > newWidth && imageHeight > newHeight) {
+        // Remove which ever seam removes less average energy, both found from one energy map
+        maxEnergyMapEnergy = image.computeEnergyMap(energyMapMaker);
+        maxCostMatrixEnergy = image.computeVerticalCostMatrix();
+        int[] verticalSeam = image.findMinimumVerticalSeam();
+        double verticalEnergy = image.getAverageEnergy(verticalSeam, true);
+        maxCostMatrixEnergy = image.computeHorizontalCostMatrix();
+        int[] horizontalSeam = image.findMinimumHorizontalSeam();
+        double horizontalEnergy = image.getAverageEnergy(horizontalSeam, false);
+        if (verticalEnergy < horizontalEnergy) {
+          removeVerticalSeam(verticalSeam);
+        }
+        else {
+          removeHorizontalSeam(horizontalSeam);
+        }
+      }
+      else if (imageWidth > newWidth) {
+        int batchSize = getSeamBatchSize(imageWidth, imageWidth - newWidth);
+        for (int[] seam : findMinimumVerticalSeams(image, batchSize)) {
+          removeVerticalSeam(seam);
+        }
+      }
+      else if (imageHeight > newHeight) {
+        int batchSize = getSeamBatchSize(imageHeight, imageHeight - newHeight);
+        for (int[] seam : findMinimumHorizontalSeams(image, batchSize)) {
+          removeHorizontalSeam(seam);
+        }
+      }
+    }
+    finishCachedResize();
+
+    if (imageWidth < newWidth || imageHeight < newHeight) {
+      // Room for the final size up front, so each stage inserts its seams in place
+      image.ensureCapacity(newWidth, newHeight);
+    }
+    // Seams to duplicate are found on a copy of the image at the start of each stage, kept from
+    // one stage to the next
+    PackedImage copiedImage = null;
+    while (imageWidth < newWidth || imageHeight < newHeight) {
+      if (copiedImage == null) {
+        copiedImage = image.copy();
+      }
+      else {
+        image.copyInto(copiedImage);
+      }
+
+      if (imageWidth < newWidth) {
+        int widthDifference = getEnlargementStageSize(imageWidth, newWidth - imageWidth);
+        int[][] seamsToAdd = new int[widthDifference][];
+        SeamAdjuster removalSeamAdjuster = new FenwickSeamAdjuster(imageWidth);
+        int i = 0;
+        while (i < widthDifference) {
+          int batchSize = getSeamBatchSize(copiedImage.getWidth(), widthDifference - i);
+          for (int[] toAdd : findMinimumVerticalSeams(copiedImage, batchSize)) {
+            copiedImage.removeVerticalSeam(toAdd);
+            removalSeamAdjuster.adjustPositionsInclusive(toAdd);
+            seamsToAdd[i] = toAdd;
+            i += 1;
+          }
+        }
+        insertVerticalSeams(seamsToAdd);
+      }
+      else if (imageHeight < newHeight) {
+        int heightDifference = getEnlargementStageSize(imageHeight, newHeight - imageHeight);
+        int[][] seamsToAdd = new int[heightDifference][];
+        SeamAdjuster removalSeamAdjuster = new FenwickSeamAdjuster(imageHeight);
+        int i = 0;
+        while (i < heightDifference) {
+          int batchSize = getSeamBatchSize(copiedImage.getHeight(), heightDifference - i);
+          for (int[] toAdd : findMinimumHorizontalSeams(copiedImage, batchSize)) {
+            copiedImage.removeHorizontalSeam(toAdd);
+            removalSeamAdjuster.adjustPositionsInclusive(toAdd);
+            seamsToAdd[i] = toAdd;
+            i += 1;
+          }
+        }
+        insertHorizontalSeams(seamsToAdd);
+      }
+    }
+  }
+
+  private void insertVerticalSeams(int[]... seamsToAdd) {
+    SeamAdjuster upscalingSeamAdjuster = new FenwickSeamAdjuster(imageWidth);
+    for (int[] seam : seamsToAdd) {
+      if (seamsToAdd.length > 1) {
+        upscalingSeamAdjuster.adjustPositionsExclusive(seam);
+      }
+      recordInsertedSeam(seam, true);
+      image.insertVerticalSeam(seam);
+      imageWidth += 1;
+    }
+  }
+
+  private void insertHorizontalSeams(int[]... seamsToAdd) {
+    SeamAdjuster upscalingSeamAdjuster = new FenwickSeamAdjuster(imageHeight);
+    for (int[] seam : seamsToAdd) {
+      if (seamsToAdd.length > 1) {
+        upscalingSeamAdjuster.adjustPositionsExclusive(seam);
+      }
+      recordInsertedSeam(seam, false);
+      image.insertHorizontalSeam(seam);
+      imageHeight += 1;
+    }
+  }
+
+  @Override
+  public void resize(int newWidth, int newHeight, Mask areaToProtect) {
+    applyMask(areaToProtect, maskValue);
+    resize(newWidth, newHeight);
+  }
+
+  @Override
+  public void removeArea(Mask areaToRemove) {
+    applyMask(areaToRemove, -maskValue);
+
+    int horzToRemove = areaToRemove.getMaxX() - areaToRemove.getMinX() + 1;
+    int vertToRemove = areaToRemove.getMaxY() - areaToRemove.getMinY() + 1;
+
+    startAreaRemoval(image.getMaskCount());
+    while (image.hasMask()) {
+      if (horzToRemove > vertToRemove) {
+        removeHorizontalSeam(findMinimumHorizontalSeam(image));
+        horzToRemove -= 1;
+      }
+      else {
+        removeVerticalSeam(findMinimumVerticalSeam(image));
+        vertToRemove -= 1;
+      }
+      updateAreaRemovalProgress(image.getMaskCount());
+    }
+  }
+
+  @Override
+  public BufferedImage getCurrentImage() {
+    return image.toBufferedImage(BufferedImageType);
+  }
+
+  @Override
+  public BufferedImage getCurrentEnergyMap() {
+    maxEnergyMapEnergy = image.computeEnergyMap(energyMapMaker);
+    BufferedImage toReturn = new BufferedImage(imageWidth, imageHeight, BufferedImageType);
+    for (int y = 0; y < imageHeight; y += 1) {
+      for (int x = 0; x < imageWidth; x += 1) {
+        double currentEnergy = Math.max(0, image.getEnergyMapEnergy(x, y));
+        toReturn.setRGB(x, y,
+            Color.HSBtoRGB(0, 0, (float)(currentEnergy / maxEnergyMapEnergy)));
+      }
+    }
+    return toReturn;
+  }
+
+  @Override
+  public BufferedImage getCurrentCostMatrix() {
+    maxEnergyMapEnergy = image.computeEnergyMap(energyMapMaker);
+    maxCostMatrixEnergy = image.computeHorizontalCostMatrix();
+    BufferedImage toReturn = new BufferedImage(imageWidth, imageHeight, BufferedImageType);
+    for (int y = 0; y < imageHeight; y += 1) {
+      for (int x = 0; x < imageWidth; x += 1) {
+        double currentEnergy = Math.max(0, image.getCostMatrixEnergy(x, y));
+        toReturn.setRGB(x, y,
+            Color.HSBtoRGB(0, 0, (float)(currentEnergy / maxCostMatrixEnergy)));
+      }
+    }
+    return toReturn;
+  }
+}
@@ -0,0 +1,83 @@
+package seammanipulators;
+
+import java.util.concurrent.RecursiveTask;
+import java.util.function.Consumer;
+import pixel.Pixel;
+import pixel.PixelIndex;
+
+/**
+ * Computes the cost matrix energies of a range of pixels in one row (for vertical seams) or one
+ * column (for horizontal seams) of an image, splitting the range across a ForkJoinPool. Every
+ * pixel in a line only depends on the line before it, so the pixels of a line can be computed in
+ * any order with the same results. Returns the largest cost in the range.
+ */
+class CostMatrixLineTask extends RecursiveTask<Double> {
+
+  private static final long serialVersionUID = 1L;
+
+  private final PixelIndex pixelIndex;
+
+  private final boolean isVerticalCostMatrix;
+
+  private final int line;
+
+  private final int start;
+
+  private final int end;
+
+  private final Consumer<Pixel> costMatrix;
+
+  private final int threshold;
+
+  /**
+   * @param pixelIndex index of the image to compute the costs of
+   * @param isVerticalCostMatrix if {@param line} is a row rather than a column
+   * @param line row or column to compute the costs of
+   * @param start first position in the line to compute, inclusive
+   * @param end last position in the line to compute, exclusive
+   * @param costMatrix cost matrix to compute each pixel's cost with, or null if the line is the
+   *                   first and its costs are just its energies
+   * @param threshold largest number of pixels to compute without splitting the range further
+   */
+  CostMatrixLineTask(PixelIndex pixelIndex, boolean isVerticalCostMatrix, int line, int start,
+      int end, Consumer<Pixel> costMatrix, int threshold) {
+    this.pixelIndex = pixelIndex;
+    this.isVerticalCostMatrix = isVerticalCostMatrix;
+    this.line = line;
+    this.start = start;
+    this.end = end;
+    this.costMatrix = costMatrix;
+    this.threshold = threshold;
+  }
+
+  @Override
+  protected Double compute() {
+    if (end - start > threshold) {
+      int middle = (start + end) >>> 1;
+      CostMatrixLineTask left = new CostMatrixLineTask(pixelIndex, isVerticalCostMatrix, line,
+          start, middle, costMatrix, threshold);
+      CostMatrixLineTask right = new CostMatrixLineTask(pixelIndex, isVerticalCostMatrix, line,
+          middle, end, costMatrix, threshold);
+      left.fork();
+      double rightMax = right.compute();
+      return Math.max(left.join(), rightMax);
+    }
+
+    double maxCost = 0;
+    for (int posn = start; posn < end; posn += 1) {
+      Pixel currentPixel = isVerticalCostMatrix ? pixelIndex.getPixel(posn, line)
+          : pixelIndex.getPixel(line, posn);
+      if (costMatrix == null) {
+        currentPixel.setCostMatrixEnergy(currentPixel.getEnergyMapEnergy());
+      }
+      else {
+        costMatrix.accept(currentPixel);
+      }
+
+      if (currentPixel.getCostMatrixEnergy() > maxCost) {
+        maxCost = currentPixel.getCostMatrixEnergy();
+      }
+    }
+    return maxCost;
+  }
+}
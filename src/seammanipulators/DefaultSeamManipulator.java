@@ -8,74 +8,142 @@ import java.util.Stack;
 import utility.Coordinate;
 import java.awt.Color;
 import java.awt.image.BufferedImage;
-import java.io.FileNotFoundException;
+import java.io.Closeable;
 import java.io.IOException;
-import java.nio.file.Files;
 import java.nio.file.Path;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
 import java.util.Iterator;
 import java.util.List;
-import java.util.function.BooleanSupplier;
-import javax.imageio.ImageIO;
+import java.util.concurrent.ForkJoinPool;
+import java.util.function.Consumer;
 import masks.Mask;
-import org.jcodec.api.awt.AWTSequenceEncoder;
-import org.jcodec.common.io.NIOUtils;
-import org.jcodec.common.io.SeekableByteChannel;
-import org.jcodec.common.model.Rational;
 import pixel.BorderPixel;
 import pixel.ImagePixel;
+import pixel.PackedImage;
 import pixel.Pixel;
+import pixel.PixelIndex;
 import pixel.iterators.ColumnIterator;
 import pixel.iterators.ColumnRowIterator;
 import pixel.iterators.RowColumnIterator;
 import energymaps.EnergyMapMaker;
+import energymaps.PackedEnergyMapMaker;
 import pixel.iterators.RowIterator;
 import seams.HorizontalSeam;
+import seams.LoggedSeam;
 import seams.Seam;
 import seams.VerticalSeam;
-import utility.DefaultSeamAdjuster;
+import utility.FenwickSeamAdjuster;
 import utility.SeamAdjuster;
 
-public class DefaultSeamManipulator implements SeamManipulator, Iterable<Pixel> {
+public class DefaultSeamManipulator extends AbstractSeamManipulator
+    implements Iterable<Pixel>, TransportMapPlanning, Closeable {
 
-  private final boolean record;
+  private Pixel upperLeftCorner;
 
-  private static final int maskValue = 5000;
+  private PixelIndex pixelIndex;
 
-  List<BufferedImage> previousStates = new ArrayList<>();
+  private final EnergyMapMaker energyMapMaker;
 
-  private Pixel upperLeftCorner;
+  private double maxEnergyMapEnergy;
 
-  private final EnergyMapMaker energyMapMaker;
+  private double maxCostMatrixEnergy;
 
-  private final int BufferedImageType;
+  /**
+   * Upper left corner of the image whose pixels currently hold an up to date energy map, or null
+   * if no image does.
+   */
+  private Pixel energyMapCorner;
+
+  private boolean incrementalEnergyMap = false;
 
-  private int imageWidth;
+  /**
+   * Upper left corner of the image whose pixels currently hold an up to date cost matrix, or null
+   * if no image does.
+   */
+  private Pixel costMatrixCorner;
 
-  private int imageHeight;
+  private boolean isVerticalCostMatrix;
 
-  private double maxEnergyMapEnergy;
+  private boolean incrementalCostMatrix = false;
 
-  private double maxCostMatrixEnergy;
+  private boolean verifyIncrementalUpdates = false;
+
+  /**
+   * Most memory, in bytes, to plan the order of removing seams in with a transport map, or 0 to
+   * never plan one.
+   */
+  private long transportMapMemoryBudget = 0;
+
+  /**
+   * Number of pixels of the current image that are masks, kept up to date as masks are applied
+   * and seams removed.
+   */
+  private int maskPixelCount = 0;
+
+  /**
+   * Pixels within this many columns of a removed vertical seam, or rows of a removed horizontal
+   * seam, may have had their neighbours change - wide enough to also cover the forward energy cost
+   * matrices, which look at the energies of the pixels to either side.
+   */
+  private static final int removalBand = 3;
+
+  private final VerticalCostMatrix verticalCostMatrix = new VerticalEnergy();
+
+  private final HorizontalCostMatrix horizontalCostMatrix = new HorizontalEnergy();
+
+  /**
+   * Pool computing each line of the cost matrix in parallel, or null if cost matrices are computed
+   * on the calling thread.
+   */
+  private ForkJoinPool costMatrixPool;
+
+  /**
+   * If the cost matrix pool was created by {@link #setParallelism(int)}, and so is shut down by
+   * this DefaultSeamManipulator, rather than given by the caller.
+   */
+  private boolean ownsCostMatrixPool = false;
+
+  /**
+   * Fewest pixels of a line of the cost matrix worth handing to a thread of its own.
+   */
+  private int minimumCostMatrixTask = 512;
+
+  /**
+   * Energy maps and first cost matrices of images already loaded, or null to always compute them.
+   */
+  private EnergyMapCache energyMapCache;
+
+  /**
+   * Key of the loaded image in the energy map cache, found the first time it's needed.
+   */
+  private EnergyMapCache.Key sourceKey;
+
+  /**
+   * If the image is still as it was loaded, with no seams removed or inserted, so its energy map
+   * and cost matrices can be cached.
+   */
+  private boolean isSourceImage = true;
 
   public DefaultSeamManipulator(Path inputFilePath, EnergyMapMaker energyMapMaker, boolean record) throws IOException {
-     validFilePath(inputFilePath);
-     this.record = record;
+    this(readImage(inputFilePath), energyMapMaker, record);
+  }
+
+  public DefaultSeamManipulator(BufferedImage loadedImage, EnergyMapMaker energyMapMaker, boolean record) {
+    super(loadedImage, record);
 
     if (energyMapMaker == null) {
       throw new IllegalArgumentException("Given energy map can't be null!");
     }
     this.energyMapMaker = energyMapMaker;
 
-    BufferedImage loadedImage = ImageIO.read(inputFilePath.toFile());
-    BufferedImageType = loadedImage.getType();
-    imageWidth = loadedImage.getWidth();
-    imageHeight = loadedImage.getHeight();
     upperLeftCorner = bufferedImageToPixel(loadedImage);
-    storeCurrentState();
+    pixelIndex = new PixelIndex(upperLeftCorner);
   }
 
-  private Pixel bufferedImageToPixel(BufferedImage toConvert) {
+  Pixel bufferedImageToPixel(BufferedImage toConvert) {
     if (toConvert == null) {
       throw new IllegalArgumentException("Given image can't be null!");
     }
@@ -86,7 +154,7 @@ public class DefaultSeamManipulator implements SeamManipulator, Iterable<Pixel>
     Pixel[][] tempImageArray = new Pixel[imageHeight][imageWidth];
     for (int row = 0; row < imageHeight; row += 1) {
       for (int column = 0; column < imageWidth; column += 1) {
-        Pixel currentPixel = new ImagePixel(new Color(toConvert.getRGB(column, row)));
+        Pixel currentPixel = new ImagePixel(toConvert.getRGB(column, row));
         tempImageArray[row][column] = currentPixel;
 
         if (row != 0) {
@@ -109,71 +177,159 @@ public class DefaultSeamManipulator implements SeamManipulator, Iterable<Pixel>
     return bufferedImageToPixel(getCurrentImage());
   }
 
+  private Pixel getPixel(int x, int y) {
+    return pixelIndex.getPixel(x, y);
+  }
+
+  private void applyMask(Mask maskToApply, double valueToApply) {
+    validMask(maskToApply);
+
+    maskToApply.forEachRun((y, fromX, toX) -> {
+      Pixel toChange = getPixel(fromX, y);
+      for (int x = fromX; x < toX; x += 1) {
+        if (!toChange.isMask()) {
+          maskPixelCount += 1;
+        }
+        toChange.makeMask(valueToApply);
+        toChange = toChange.getRightPixel();
+      }
+    });
+    costMatrixCorner = null;
+  }
+
   /**
-   * Checks if the given {@param filePath}  is both not null and does exist, else throws a corresponding
-   * exception.
+   * Sets whether, after a seam is removed, only the energies of the pixels next to the removed
+   * seam are recomputed rather than the entire energy map. Only those pixels can have had their
+   * surroundings change, so the results are the same either way.
    *
-   * @param filePath file path to check
-   * @throws IllegalArgumentException if the given {@param filePath}  is null
-   * @throws IOException if the given {@param filePath} does not exist
+   * @param incrementalEnergyMap if the energy map should be updated incrementally
    */
-  private void validFilePath(Path filePath) throws IllegalArgumentException, FileNotFoundException {
-    if (filePath == null) {
-      throw new IllegalArgumentException("Given file path can't be null!");
-    }
-    else if (Files.notExists(filePath)) {
-      throw new FileNotFoundException("Given file path does not exist!");
-    }
+  public void setIncrementalEnergyMap(boolean incrementalEnergyMap) {
+    this.incrementalEnergyMap = incrementalEnergyMap;
   }
 
-  private Pixel getPixel(int x, int y) {
-    if (x < 0 || x >= imageWidth) {
-      throw new IllegalArgumentException("Given x coordinate must be in the bounds of the image!");
-    }
-    else if (y < 0 || y >= imageHeight) {
-      throw new IllegalArgumentException("Given y coordinate must be in the bounds of the image!");
-    }
+  /**
+   * Sets whether, after a seam is removed, only the part of the cost matrix the removed seam could
+   * have affected is recomputed rather than the entire cost matrix. Starting from the pixels next
+   * to the removed seam, each following row (or column for horizontal seams) recomputes only the
+   * pixels next to the seam and below those whose cost changed in the row before, so the
+   * recomputed region stops widening as soon as the costs settle. Only takes effect if the energy
+   * map is also being updated incrementally, and only between removals of seams in the same
+   * direction as the last cost matrix computed.
+   *
+   * @param incrementalCostMatrix if the cost matrix should be updated incrementally
+   */
+  public void setIncrementalCostMatrix(boolean incrementalCostMatrix) {
+    this.incrementalCostMatrix = incrementalCostMatrix;
+  }
 
-    Pixel pixelTopColumn = new BorderPixel();
-    RowIterator rowIterator = new RowIterator(upperLeftCorner);
-    while (x >= 0) {
-      pixelTopColumn = rowIterator.next();
-      x -= 1;
+  /**
+   * Sets whether every incremental update of the energy map and cost matrix is checked against a
+   * full recompute of both, throwing an IllegalStateException on the first pixel that differs.
+   * Meant for testing, as it does all the work incremental updates are meant to avoid.
+   *
+   * @param verifyIncrementalUpdates if incremental updates should be verified
+   */
+  public void setVerifyIncrementalUpdates(boolean verifyIncrementalUpdates) {
+    this.verifyIncrementalUpdates = verifyIncrementalUpdates;
+  }
+
+  /**
+   * Sets how many threads compute each cost matrix. With more than one, each row of a vertical
+   * cost matrix, or each column of a horizontal one, is split across a ForkJoinPool of that many
+   * threads before moving on to the next. Every pixel only depends on the line before its own, so
+   * this finds exactly the same seams as computing the cost matrix on a single thread. The pool is
+   * this DefaultSeamManipulator's own, shut down by {@link #close()}; many DefaultSeamManipulators
+   * running at once should share one with {@link #setCostMatrixPool(ForkJoinPool)} instead.
+   *
+   * @param parallelism number of threads to compute each cost matrix with
+   * @throws IllegalArgumentException if the given {@param parallelism} is less than 1
+   */
+  public void setParallelism(int parallelism) {
+    if (parallelism < 1) {
+      throw new IllegalArgumentException("Given parallelism must be at least 1!");
     }
 
-    Pixel toReturn = new BorderPixel();
-    ColumnIterator columnIterator = new ColumnIterator(pixelTopColumn);
-    while (y >= 0) {
-      toReturn = columnIterator.next();
-      y -= 1;
+    close();
+    if (parallelism > 1) {
+      costMatrixPool = new ForkJoinPool(parallelism);
+      ownsCostMatrixPool = true;
     }
+  }
 
-    return toReturn;
+  /**
+   * Sets a pool, owned by the caller and never shut down by this DefaultSeamManipulator, to split
+   * each line of the cost matrix across, as {@link #setParallelism(int)} does with a pool of its
+   * own. {@link ForkJoinPool#commonPool()} or one pool shared by every DefaultSeamManipulator
+   * keeps the number of threads bounded however many images are carved at once.
+   *
+   * @param costMatrixPool pool to compute cost matrices with, or null to compute them on the
+   *                       calling thread
+   */
+  public void setCostMatrixPool(ForkJoinPool costMatrixPool) {
+    close();
+    this.costMatrixPool = costMatrixPool;
   }
 
-  private void applyMask(Mask maskToApply, double valueToApply) {
-    if (maskToApply == null) {
-      throw new IllegalArgumentException("Given mask can't be null!");
-    }
-    else if (maskToApply.getMaxX() > imageWidth - 1) {
-      throw new IllegalArgumentException("Given mask's coordinates must fit with this image's "
-          + "current width!");
+  /**
+   * Shuts down the pool created by {@link #setParallelism(int)}, if any, going back to computing
+   * cost matrices on the calling thread. A pool given by the caller is only let go of.
+   */
+  @Override
+  public void close() {
+    if (ownsCostMatrixPool) {
+      costMatrixPool.shutdown();
     }
-    else if (maskToApply.getMinY() > imageHeight - 1) {
-      throw new IllegalArgumentException("Given mask's coordinates must fit with this image's "
-          + "current height!");
+    costMatrixPool = null;
+    ownsCostMatrixPool = false;
+  }
+
+  @Override
+  public void setTransportMapMemoryBudget(long transportMapMemoryBudget) {
+    if (transportMapMemoryBudget < 0) {
+      throw new IllegalArgumentException("Given transport map memory budget can't be negative!");
     }
+    this.transportMapMemoryBudget = transportMapMemoryBudget;
+  }
 
-    Coordinate[] coordinates = maskToApply.getCoordinates();
-    for (Coordinate coordinate : coordinates) {
-      int currentX = coordinate.getX();
-      int currentY = coordinate.getY();
-      Pixel toChange = getPixel(currentX, currentY);
-      toChange.makeMask(valueToApply);
+  /**
+   * Sets the fewest pixels of a line of the cost matrix worth handing to a thread of its own when
+   * computing cost matrices in parallel. Lower values spread narrow images across more threads, at
+   * the cost of more tasks per line. Cost matrices whose lines are no longer than this are
+   * computed on the calling thread, as handing the pool a line at a time would gain nothing.
+   *
+   * @param minimumCostMatrixTask fewest pixels of a line to compute as a task of its own
+   * @throws IllegalArgumentException if the given {@param minimumCostMatrixTask} is less than 1
+   */
+  public void setMinimumCostMatrixTask(int minimumCostMatrixTask) {
+    if (minimumCostMatrixTask < 1) {
+      throw new IllegalArgumentException("Given minimum cost matrix task must be at least 1!");
     }
+    this.minimumCostMatrixTask = minimumCostMatrixTask;
+  }
+
+  /**
+   * Sets the cache to keep the energy map and first cost matrices of the loaded image in, so
+   * another DefaultSeamManipulator loading the same image with the same energy function can skip
+   * computing them. Cost matrices are only cached, or taken from the cache, while no mask has been
+   * applied to the image.
+   *
+   * @param energyMapCache cache to use, or null to always compute every energy map
+   */
+  public void setEnergyMapCache(EnergyMapCache energyMapCache) {
+    this.energyMapCache = energyMapCache;
   }
 
   private void computeEnergyMap(Pixel upperLeftCorner) {
+    if (usesEnergyMapCache(upperLeftCorner, false)) {
+      double[] energies = energyMapCache.find(getSourceKey(), EnergyMapCache.energyMapTable);
+      if (energies != null) {
+        maxEnergyMapEnergy = loadTable(upperLeftCorner, energies, false);
+        energyMapCorner = upperLeftCorner;
+        return;
+      }
+    }
+
     maxEnergyMapEnergy = 0;
     RowColumnIterator rowColumnIterator = new RowColumnIterator(upperLeftCorner);
     while (rowColumnIterator.hasNext()) {
@@ -183,36 +339,386 @@ public class DefaultSeamManipulator implements SeamManipulator, Iterable<Pixel>
         maxEnergyMapEnergy = currentPixel.getEnergyMapEnergy();
       }
     }
+    energyMapCorner = upperLeftCorner;
+
+    // Masks overwrite their pixels' energies, so only an unmasked image's energy map is cached
+    if (usesEnergyMapCache(upperLeftCorner, true)) {
+      energyMapCache.put(getSourceKey(), EnergyMapCache.energyMapTable,
+          readTable(upperLeftCorner, false));
+    }
+  }
+
+  /**
+   * @param upperLeftCorner upper left corner of the image whose energy map or cost matrix is
+   *                        being computed
+   * @param needsNoMasks if the table to be cached or taken from the cache depends on masks
+   * @return if the table can be cached, or taken from the cache
+   */
+  private boolean usesEnergyMapCache(Pixel upperLeftCorner, boolean needsNoMasks) {
+    return energyMapCache != null && isSourceImage && upperLeftCorner == this.upperLeftCorner
+        && (!needsNoMasks || maskPixelCount == 0);
+  }
+
+  private EnergyMapCache.Key getSourceKey() {
+    if (sourceKey == null) {
+      long hash = EnergyMapCache.startHash();
+      RowColumnIterator rowColumnIterator = new RowColumnIterator(upperLeftCorner);
+      while (rowColumnIterator.hasNext()) {
+        hash = EnergyMapCache.hashPixel(hash, rowColumnIterator.next().getRGB());
+      }
+      sourceKey = EnergyMapCache.getKey(hash, imageWidth, imageHeight, energyMapMaker.getClass());
+    }
+    return sourceKey;
   }
 
-  private void computeVerticalCostMatrix(VerticalCostMatrix costMatrix, Pixel upperLeftCorner) {
-    maxCostMatrixEnergy = 0;
+  /**
+   * Gives every pixel of the image its energy map, or cost matrix, energy from the given table.
+   *
+   * @return largest energy of the image afterwards
+   */
+  private double loadTable(Pixel upperLeftCorner, double[] table, boolean isCostMatrix) {
+    double maxEnergy = 0;
+    int i = 0;
     RowColumnIterator rowColumnIterator = new RowColumnIterator(upperLeftCorner);
     while (rowColumnIterator.hasNext()) {
-      int currentY = rowColumnIterator.getY();
       Pixel currentPixel = rowColumnIterator.next();
-      if (currentY == 0) {
-        currentPixel.setCostMatrixEnergy(currentPixel.getEnergyMapEnergy());
+      double energy;
+      if (isCostMatrix) {
+        currentPixel.setCostMatrixEnergy(table[i]);
+        energy = currentPixel.getCostMatrixEnergy();
+      }
+      else {
+        currentPixel.setEnergyMapEnergy(table[i]);
+        energy = currentPixel.getEnergyMapEnergy();
+      }
+      if (energy > maxEnergy) {
+        maxEnergy = energy;
+      }
+      i += 1;
+    }
+    return maxEnergy;
+  }
+
+  /**
+   * @return energy map, or cost matrix, energy of every pixel of the image, row by row
+   */
+  private double[] readTable(Pixel upperLeftCorner, boolean isCostMatrix) {
+    double[] table = new double[imageWidth * imageHeight];
+    int i = 0;
+    RowColumnIterator rowColumnIterator = new RowColumnIterator(upperLeftCorner);
+    while (rowColumnIterator.hasNext()) {
+      Pixel currentPixel = rowColumnIterator.next();
+      table[i] = isCostMatrix ? currentPixel.getCostMatrixEnergy()
+          : currentPixel.getEnergyMapEnergy();
+      i += 1;
+    }
+    return table;
+  }
+
+  void computeEnergyMap() {
+    computeEnergyMap(upperLeftCorner);
+  }
+
+  private void ensureEnergyMap(Pixel upperLeftCorner) {
+    if (energyMapCorner != upperLeftCorner) {
+      computeEnergyMap(upperLeftCorner);
+    }
+  }
+
+  private void recomputeEnergy(Pixel pixel) {
+    if (!pixel.isBorderPixel()) {
+      energyMapMaker.computeEnergy(pixel);
+      if (pixel.getEnergyMapEnergy() > maxEnergyMapEnergy) {
+        maxEnergyMapEnergy = pixel.getEnergyMapEnergy();
+      }
+    }
+  }
+
+  /**
+   * Removes the given, just removed seam from the given index of the image it was removed from,
+   * then brings the image's energy map and cost matrix up to date - either incrementally or by
+   * leaving them to be recomputed in full when next needed.
+   *
+   * @param removedSeam seam that was just removed
+   * @param pixelIndex index of the image the seam was removed from
+   */
+  private void seamRemoved(Seam removedSeam, PixelIndex pixelIndex) {
+    Pixel upperLeftCorner = pixelIndex.getPixel(0, 0);
+    boolean energyMapUpdated = incrementalEnergyMap && energyMapCorner == upperLeftCorner;
+    boolean costMatrixUpdated = energyMapUpdated && incrementalCostMatrix
+        && costMatrixCorner == upperLeftCorner
+        && isVerticalCostMatrix == removedSeam.isVerticalSeam();
+
+    if (removedSeam.isVerticalSeam()) {
+      pixelIndex.removeVerticalSeam(removedSeam.getCoordinates());
+    }
+    else {
+      pixelIndex.removeHorizontalSeam(removedSeam.getCoordinates());
+    }
+    Pixel newUpperLeftCorner = pixelIndex.getPixel(0, 0);
+
+    if (energyMapUpdated) {
+      updateEnergyMap(removedSeam);
+      energyMapCorner = newUpperLeftCorner;
+    }
+    else {
+      energyMapCorner = null;
+    }
+
+    if (costMatrixUpdated) {
+      updateCostMatrix(removedSeam);
+      costMatrixCorner = newUpperLeftCorner;
+    }
+    else {
+      costMatrixCorner = null;
+    }
+
+    if (verifyIncrementalUpdates && energyMapUpdated) {
+      verifyIncrementalUpdate(pixelIndex, costMatrixUpdated);
+    }
+  }
+
+  /**
+   * Recomputes the energies of the two pixels on either side of the given, just removed seam in
+   * each row or column - the only pixels whose surroundings the removal changed.
+   *
+   * @param removedSeam seam that was just removed
+   */
+  private void updateEnergyMap(Seam removedSeam) {
+    for (Pixel removedPixel : removedSeam.getPixels()) {
+      if (removedSeam.isVerticalSeam()) {
+        Pixel leftPixel = removedPixel.getLeftPixel();
+        Pixel rightPixel = removedPixel.getRightPixel();
+        recomputeEnergy(leftPixel.getLeftPixel());
+        recomputeEnergy(leftPixel);
+        recomputeEnergy(rightPixel);
+        recomputeEnergy(rightPixel.getRightPixel());
       }
       else {
-        costMatrix.compute(currentPixel);
+        Pixel abovePixel = removedPixel.getAbovePixel();
+        Pixel belowPixel = removedPixel.getBelowPixel();
+        recomputeEnergy(abovePixel.getAbovePixel());
+        recomputeEnergy(abovePixel);
+        recomputeEnergy(belowPixel);
+        recomputeEnergy(belowPixel.getBelowPixel());
       }
+    }
+  }
 
-      if (currentPixel.getCostMatrixEnergy() > maxCostMatrixEnergy) {
-        maxCostMatrixEnergy = currentPixel.getCostMatrixEnergy();
+  /**
+   * Recomputes the cost matrix energy of the given pixel.
+   *
+   * @param pixel pixel to recompute
+   * @param isFirstLine if the pixel is in the first row or column the cost matrix starts from
+   * @param costMatrix cost matrix to compute the pixel's energy with
+   * @return if the pixel's cost matrix energy changed
+   */
+  private boolean recomputeCost(Pixel pixel, boolean isFirstLine, Consumer<Pixel> costMatrix) {
+    double oldCost = pixel.getCostMatrixEnergy();
+    if (isFirstLine) {
+      pixel.setCostMatrixEnergy(pixel.getEnergyMapEnergy());
+    }
+    else {
+      costMatrix.accept(pixel);
+    }
+
+    if (pixel.getCostMatrixEnergy() > maxCostMatrixEnergy) {
+      maxCostMatrixEnergy = pixel.getCostMatrixEnergy();
+    }
+    return Double.compare(oldCost, pixel.getCostMatrixEnergy()) != 0;
+  }
+
+  /**
+   * Recomputes the cone of the cost matrix the given, just removed seam could have affected. Each
+   * row (or column) recomputes the pixels within the removal band of the seam, plus the pixels
+   * next to any whose cost changed in the previous row.
+   *
+   * @param removedSeam seam that was just removed
+   */
+  private void updateCostMatrix(Seam removedSeam) {
+    boolean isVerticalSeam = removedSeam.isVerticalSeam();
+    Consumer<Pixel> costMatrix = isVerticalSeam ? verticalCostMatrix::compute
+        : horizontalCostMatrix::compute;
+    Pixel[] removedPixels = removedSeam.getPixels();
+    Coordinate[] removedCoordinates = removedSeam.getCoordinates();
+
+    int changedStart = Integer.MAX_VALUE;
+    int changedEnd = -1;
+    for (int line = 0; line < removedPixels.length; line += 1) {
+      Pixel removedPixel = removedPixels[line];
+      int seamPosn = isVerticalSeam ? removedCoordinates[line].getX()
+          : removedCoordinates[line].getY();
+
+      int start = seamPosn - removalBand;
+      int end = seamPosn + removalBand - 1;
+      if (changedStart <= changedEnd) {
+        start = Math.min(start, changedStart - 1);
+        end = Math.max(end, changedEnd + 1);
+      }
+
+      // Walk from the pixel just before the removed one back to the start of the range to update
+      Pixel currentPixel = isVerticalSeam ? removedPixel.getLeftPixel()
+          : removedPixel.getAbovePixel();
+      int currentPosn = seamPosn - 1;
+      if (currentPixel.isBorderPixel()) {
+        currentPixel = isVerticalSeam ? removedPixel.getRightPixel() : removedPixel.getBelowPixel();
+        currentPosn = seamPosn;
+      }
+
+      Pixel previousPixel = isVerticalSeam ? currentPixel.getLeftPixel()
+          : currentPixel.getAbovePixel();
+      while (currentPosn > start && !previousPixel.isBorderPixel()) {
+        currentPixel = previousPixel;
+        currentPosn -= 1;
+        previousPixel = isVerticalSeam ? currentPixel.getLeftPixel() : currentPixel.getAbovePixel();
+      }
+
+      changedStart = Integer.MAX_VALUE;
+      changedEnd = -1;
+      while (currentPosn <= end && !currentPixel.isBorderPixel()) {
+        if (recomputeCost(currentPixel, line == 0, costMatrix)) {
+          changedStart = Math.min(changedStart, currentPosn);
+          changedEnd = Math.max(changedEnd, currentPosn);
+        }
+        currentPixel = isVerticalSeam ? currentPixel.getRightPixel() : currentPixel.getBelowPixel();
+        currentPosn += 1;
       }
     }
   }
 
-  private Seam findMinimumVerticalSeam(Pixel upperLeftCorner) {
+  /**
+   * Checks the incrementally updated energy map, and cost matrix if it was also updated, of the
+   * image with the given upper left corner against a full recompute of both.
+   *
+   * @param pixelIndex index of the image to check
+   * @param costMatrixUpdated if the cost matrix was incrementally updated as well
+   * @throws IllegalStateException if any pixel's incrementally updated energy differs from its
+   *                               recomputed energy
+   */
+  private void verifyIncrementalUpdate(PixelIndex pixelIndex, boolean costMatrixUpdated) {
+    Pixel upperLeftCorner = pixelIndex.getPixel(0, 0);
+    List<double[]> updatedEnergies = new ArrayList<>();
+    for (RowColumnIterator iterator = new RowColumnIterator(upperLeftCorner);
+        iterator.hasNext(); ) {
+      Pixel currentPixel = iterator.next();
+      updatedEnergies.add(new double[]{currentPixel.getEnergyMapEnergy(),
+          currentPixel.getCostMatrixEnergy()});
+    }
+
     computeEnergyMap(upperLeftCorner);
-    computeVerticalCostMatrix(new VerticalEnergy(), upperLeftCorner);
+    if (costMatrixUpdated && isVerticalCostMatrix) {
+      computeVerticalCostMatrix(verticalCostMatrix, pixelIndex);
+    }
+    else if (costMatrixUpdated) {
+      computeHorizontalCostMatrix(horizontalCostMatrix, pixelIndex);
+    }
+
+    RowColumnIterator iterator = new RowColumnIterator(upperLeftCorner);
+    for (double[] updatedEnergy : updatedEnergies) {
+      iterator.hasNext();
+      int x = iterator.getX();
+      int y = iterator.getY();
+      Pixel currentPixel = iterator.next();
+      if (Double.compare(updatedEnergy[0], currentPixel.getEnergyMapEnergy()) != 0) {
+        throw new IllegalStateException("Incrementally updated energy of pixel (" + x + ", " + y
+            + ") differs from its recomputed energy!");
+      }
+      else if (costMatrixUpdated
+          && Double.compare(updatedEnergy[1], currentPixel.getCostMatrixEnergy()) != 0) {
+        throw new IllegalStateException("Incrementally updated cost of pixel (" + x + ", " + y
+            + ") differs from its recomputed cost!");
+      }
+    }
+  }
+
+  /**
+   * @param lineLength length of each line of the cost matrix to compute
+   * @return if the cost matrix should be computed across the cost matrix pool, rather than lines
+   *         too narrow to split be handed to the pool one at a time for nothing
+   */
+  private boolean usesCostMatrixPool(int lineLength) {
+    return costMatrixPool != null && lineLength > minimumCostMatrixTask;
+  }
+
+  /**
+   * Computes the cost matrix of the image with the given index one line at a time, splitting each
+   * line across the cost matrix pool.
+   *
+   * @param costMatrix cost matrix to compute each pixel's cost with
+   * @param pixelIndex index of the image to compute the cost matrix of
+   * @param isVerticalCostMatrix if the cost matrix is for vertical seams, computed row by row, or
+   *                             for horizontal seams, computed column by column
+   */
+  private void computeCostMatrixInParallel(Consumer<Pixel> costMatrix, PixelIndex pixelIndex,
+      boolean isVerticalCostMatrix) {
+    int lineCount = isVerticalCostMatrix ? pixelIndex.getHeight() : pixelIndex.getWidth();
+    int lineLength = isVerticalCostMatrix ? pixelIndex.getWidth() : pixelIndex.getHeight();
+    int threshold = Math.max(minimumCostMatrixTask,
+        lineLength / (costMatrixPool.getParallelism() * 4));
+
+    maxCostMatrixEnergy = 0;
+    for (int line = 0; line < lineCount; line += 1) {
+      double lineMax = costMatrixPool.invoke(new CostMatrixLineTask(pixelIndex,
+          isVerticalCostMatrix, line, 0, lineLength, line == 0 ? null : costMatrix, threshold));
+      maxCostMatrixEnergy = Math.max(maxCostMatrixEnergy, lineMax);
+    }
+  }
+
+  private void computeVerticalCostMatrix(VerticalCostMatrix costMatrix, PixelIndex pixelIndex) {
+    Pixel upperLeftCorner = pixelIndex.getPixel(0, 0);
+    String table = costMatrix.getClass().getName();
+    double[] costs = usesEnergyMapCache(upperLeftCorner, true)
+        ? energyMapCache.find(getSourceKey(), table) : null;
+    if (costs != null) {
+      maxCostMatrixEnergy = loadTable(upperLeftCorner, costs, true);
+    }
+    else {
+      if (usesCostMatrixPool(pixelIndex.getWidth())) {
+        computeCostMatrixInParallel(costMatrix::compute, pixelIndex, true);
+      }
+      else {
+        maxCostMatrixEnergy = 0;
+        RowColumnIterator rowColumnIterator = new RowColumnIterator(upperLeftCorner);
+        while (rowColumnIterator.hasNext()) {
+          int currentY = rowColumnIterator.getY();
+          Pixel currentPixel = rowColumnIterator.next();
+          if (currentY == 0) {
+            currentPixel.setCostMatrixEnergy(currentPixel.getEnergyMapEnergy());
+          }
+          else {
+            costMatrix.compute(currentPixel);
+          }
+
+          if (currentPixel.getCostMatrixEnergy() > maxCostMatrixEnergy) {
+            maxCostMatrixEnergy = currentPixel.getCostMatrixEnergy();
+          }
+        }
+      }
+
+      if (usesEnergyMapCache(upperLeftCorner, true)) {
+        energyMapCache.put(getSourceKey(), table, readTable(upperLeftCorner, true));
+      }
+    }
+    costMatrixCorner = upperLeftCorner;
+    isVerticalCostMatrix = true;
+  }
+
+  void computeVerticalCostMatrix() {
+    computeVerticalCostMatrix(verticalCostMatrix, pixelIndex);
+  }
+
+  private Seam findMinimumVerticalSeam(PixelIndex pixelIndex) {
+    Pixel upperLeftCorner = pixelIndex.getPixel(0, 0);
+    ensureEnergyMap(upperLeftCorner);
+    if (costMatrixCorner != upperLeftCorner || !isVerticalCostMatrix) {
+      computeVerticalCostMatrix(verticalCostMatrix, pixelIndex);
+    }
 
     int currentX = -1;
     int currentY = -1;
 
     ColumnIterator columnIterator = new ColumnIterator(upperLeftCorner);
-    Pixel lowerRightCorner = new BorderPixel();
+    Pixel lowerRightCorner = BorderPixel.INSTANCE;
     while (columnIterator.hasNext()) {
       currentY += 1;
       lowerRightCorner = columnIterator.next();
@@ -220,7 +726,7 @@ public class DefaultSeamManipulator implements SeamManipulator, Iterable<Pixel>
 
     int tempX = -1;
     RowIterator rowIterator = new RowIterator(lowerRightCorner);
-    Pixel currentStartingPixel = new BorderPixel();
+    Pixel currentStartingPixel = BorderPixel.INSTANCE;
     while (rowIterator.hasNext()) {
       Pixel currentPixel = rowIterator.next();
       tempX += 1;
@@ -261,38 +767,66 @@ public class DefaultSeamManipulator implements SeamManipulator, Iterable<Pixel>
     return currentSeam;
   }
 
-  private Seam findMinimumVerticalSeam() {
-    return findMinimumVerticalSeam(upperLeftCorner);
+  Seam findMinimumVerticalSeam() {
+    return findMinimumVerticalSeam(pixelIndex);
   }
 
-  private void computeHorizontalCostMatrix(HorizontalCostMatrix costMatrix, Pixel upperLeftCorner) {
-    maxCostMatrixEnergy = 0;
-    ColumnRowIterator columnRowIterator = new ColumnRowIterator(upperLeftCorner);
-    while (columnRowIterator.hasNext()) {
-      int currentX = columnRowIterator.getX();
-      Pixel currentPixel = columnRowIterator.next();
-      if (currentX == 0) {
-        currentPixel.setCostMatrixEnergy(currentPixel.getEnergyMapEnergy());
+  private void computeHorizontalCostMatrix(HorizontalCostMatrix costMatrix,
+      PixelIndex pixelIndex) {
+    Pixel upperLeftCorner = pixelIndex.getPixel(0, 0);
+    String table = costMatrix.getClass().getName();
+    double[] costs = usesEnergyMapCache(upperLeftCorner, true)
+        ? energyMapCache.find(getSourceKey(), table) : null;
+    if (costs != null) {
+      maxCostMatrixEnergy = loadTable(upperLeftCorner, costs, true);
+    }
+    else {
+      if (usesCostMatrixPool(pixelIndex.getHeight())) {
+        computeCostMatrixInParallel(costMatrix::compute, pixelIndex, false);
       }
       else {
-        costMatrix.compute(currentPixel);
+        maxCostMatrixEnergy = 0;
+        ColumnRowIterator columnRowIterator = new ColumnRowIterator(upperLeftCorner);
+        while (columnRowIterator.hasNext()) {
+          int currentX = columnRowIterator.getX();
+          Pixel currentPixel = columnRowIterator.next();
+          if (currentX == 0) {
+            currentPixel.setCostMatrixEnergy(currentPixel.getEnergyMapEnergy());
+          }
+          else {
+            costMatrix.compute(currentPixel);
+          }
+
+          if (currentPixel.getCostMatrixEnergy() > maxCostMatrixEnergy) {
+            maxCostMatrixEnergy = currentPixel.getCostMatrixEnergy();
+          }
+        }
       }
 
-      if (currentPixel.getCostMatrixEnergy() > maxCostMatrixEnergy) {
-        maxCostMatrixEnergy = currentPixel.getCostMatrixEnergy();
+      if (usesEnergyMapCache(upperLeftCorner, true)) {
+        energyMapCache.put(getSourceKey(), table, readTable(upperLeftCorner, true));
       }
     }
+    costMatrixCorner = upperLeftCorner;
+    isVerticalCostMatrix = false;
   }
 
-  private Seam findMinimumHorizontalSeam(Pixel upperLeftCorner) {
-    computeEnergyMap(upperLeftCorner);
-    computeHorizontalCostMatrix(new HorizontalEnergy(), upperLeftCorner);
+  void computeHorizontalCostMatrix() {
+    computeHorizontalCostMatrix(horizontalCostMatrix, pixelIndex);
+  }
+
+  private Seam findMinimumHorizontalSeam(PixelIndex pixelIndex) {
+    Pixel upperLeftCorner = pixelIndex.getPixel(0, 0);
+    ensureEnergyMap(upperLeftCorner);
+    if (costMatrixCorner != upperLeftCorner || isVerticalCostMatrix) {
+      computeHorizontalCostMatrix(horizontalCostMatrix, pixelIndex);
+    }
 
     int currentX = -1;
     int currentY = -1;
 
     RowIterator rowIterator = new RowIterator(upperLeftCorner);
-    Pixel upperRightCorner = new BorderPixel();
+    Pixel upperRightCorner = BorderPixel.INSTANCE;
     while (rowIterator.hasNext()) {
       currentX += 1;
       upperRightCorner = rowIterator.next();
@@ -300,7 +834,7 @@ public class DefaultSeamManipulator implements SeamManipulator, Iterable<Pixel>
 
     int tempY = -1;
     ColumnIterator columnIterator = new ColumnIterator(upperRightCorner);
-    Pixel currentStartingPixel = new BorderPixel();
+    Pixel currentStartingPixel = BorderPixel.INSTANCE;
     while (columnIterator.hasNext()) {
       tempY += 1;
       Pixel currentPixel = columnIterator.next();
@@ -340,23 +874,234 @@ public class DefaultSeamManipulator implements SeamManipulator, Iterable<Pixel>
     return seam;
   }
 
-  private Seam findMinimumHorizontalSeam() {
-    return findMinimumHorizontalSeam(upperLeftCorner);
+  Seam findMinimumHorizontalSeam() {
+    return findMinimumHorizontalSeam(pixelIndex);
+  }
+
+  /**
+   * Finds up to {@param count} vertical seams of the image with the given index from a single cost
+   * matrix that never touch or cross. Starting from the least cost pixels of the bottom row, taken
+   * from left to right, each seam is traced the same way as the least cost seam but kept strictly
+   * to the right of the seam before it, and dropped if it can't be.
+   *
+   * @param pixelIndex index of the image to find the seams of
+   * @param count most seams to find
+   * @return the seams found, rightmost first so they can be removed in order without adjusting
+   *         the others
+   */
+  List<Seam> findMinimumVerticalSeams(PixelIndex pixelIndex, int count) {
+    if (count == 1) {
+      return Collections.singletonList(findMinimumVerticalSeam(pixelIndex));
+    }
+
+    Pixel upperLeftCorner = pixelIndex.getPixel(0, 0);
+    ensureEnergyMap(upperLeftCorner);
+    if (costMatrixCorner != upperLeftCorner || !isVerticalCostMatrix) {
+      computeVerticalCostMatrix(verticalCostMatrix, pixelIndex);
+    }
+    return findMinimumSeams(pixelIndex, count, true);
+  }
+
+  /**
+   * Finds up to {@param count} horizontal seams of the image with the given index from a single
+   * cost matrix that never touch or cross, the same way as
+   * {@link #findMinimumVerticalSeams(PixelIndex, int)} but with each seam kept strictly below the
+   * seam before it.
+   *
+   * @param pixelIndex index of the image to find the seams of
+   * @param count most seams to find
+   * @return the seams found, bottommost first so they can be removed in order without adjusting
+   *         the others
+   */
+  List<Seam> findMinimumHorizontalSeams(PixelIndex pixelIndex, int count) {
+    if (count == 1) {
+      return Collections.singletonList(findMinimumHorizontalSeam(pixelIndex));
+    }
+
+    Pixel upperLeftCorner = pixelIndex.getPixel(0, 0);
+    ensureEnergyMap(upperLeftCorner);
+    if (costMatrixCorner != upperLeftCorner || isVerticalCostMatrix) {
+      computeHorizontalCostMatrix(horizontalCostMatrix, pixelIndex);
+    }
+    return findMinimumSeams(pixelIndex, count, false);
+  }
+
+  private List<Seam> findMinimumSeams(PixelIndex pixelIndex, int count, boolean isVerticalSeam) {
+    if (count < 1) {
+      throw new IllegalArgumentException("Given count must be at least 1!");
+    }
+
+    int lineCount = isVerticalSeam ? pixelIndex.getHeight() : pixelIndex.getWidth();
+    int lineLength = isVerticalSeam ? pixelIndex.getWidth() : pixelIndex.getHeight();
+    Integer[] ends = new Integer[lineLength];
+    for (int posn = 0; posn < lineLength; posn += 1) {
+      ends[posn] = posn;
+    }
+    // Stable, so ties keep the first position as findMinimumVerticalSeam does
+    Arrays.sort(ends, Comparator.comparingDouble(
+        (Integer posn) -> getSeamCost(pixelIndex, posn, lineCount - 1, null, isVerticalSeam)));
+
+    int[] starts = new int[Math.min(count, lineLength)];
+    for (int i = 0; i < starts.length; i += 1) {
+      starts[i] = ends[i];
+    }
+    Arrays.sort(starts);
+
+    List<Seam> seams = new ArrayList<>();
+    int[] previousSeam = null;
+    for (int start : starts) {
+      int[] seam = traceSeam(pixelIndex, start, previousSeam, isVerticalSeam);
+      if (seam != null) {
+        seams.add(toSeam(pixelIndex, seam, isVerticalSeam));
+        previousSeam = seam;
+      }
+    }
+    Collections.reverse(seams);
+    return seams;
+  }
+
+  /**
+   * @param pixelIndex index of the image the seam is in
+   * @param seam position of the seam in each row or column
+   * @param isVerticalSeam if the seam is vertical
+   * @return the Seam of the pixels at the given positions
+   */
+  private Seam toSeam(PixelIndex pixelIndex, int[] seam, boolean isVerticalSeam) {
+    Seam toReturn = isVerticalSeam ? new VerticalSeam() : new HorizontalSeam();
+    for (int line = seam.length - 1; line >= 0; line -= 1) {
+      Coordinate coordinate = isVerticalSeam ? new Coordinate(seam[line], line)
+          : new Coordinate(line, seam[line]);
+      toReturn.add(pixelIndex.getPixel(coordinate.getX(), coordinate.getY()), coordinate);
+    }
+    return toReturn;
+  }
+
+  /**
+   * Copies the current image, along with its masks, into a PackedImage.
+   *
+   * @return copy of the current image
+   */
+  private PackedImage toPackedImage() {
+    PackedImage packedImage = new PackedImage(getCurrentImage());
+    RowColumnIterator rowColumnIterator = new RowColumnIterator(upperLeftCorner);
+    while (rowColumnIterator.hasNext()) {
+      int x = rowColumnIterator.getX();
+      int y = rowColumnIterator.getY();
+      Pixel currentPixel = rowColumnIterator.next();
+      if (currentPixel.isMask()) {
+        packedImage.makeMask(x, y, currentPixel.getEnergyMapEnergy());
+      }
+    }
+    return packedImage;
+  }
+
+  /**
+   * Traces a seam back from the given position in the last row (or column), kept strictly after
+   * the given previous seam.
+   *
+   * @return position of the traced seam in each row or column, or null if it couldn't be kept
+   *         after the previous seam
+   */
+  private int[] traceSeam(PixelIndex pixelIndex, int start, int[] previousSeam,
+      boolean isVerticalSeam) {
+    int lineCount = isVerticalSeam ? pixelIndex.getHeight() : pixelIndex.getWidth();
+    int[] seam = new int[lineCount];
+    int currentPosn = start;
+    seam[lineCount - 1] = currentPosn;
+
+    for (int line = lineCount - 2; line >= 0; line -= 1) {
+      double beforeEnergy = getSeamCost(pixelIndex, currentPosn - 1, line, previousSeam,
+          isVerticalSeam);
+      double centerEnergy = getSeamCost(pixelIndex, currentPosn, line, previousSeam,
+          isVerticalSeam);
+      double afterEnergy = getSeamCost(pixelIndex, currentPosn + 1, line, previousSeam,
+          isVerticalSeam);
+
+      double minEnergy = Math.min(beforeEnergy, Math.min(centerEnergy, afterEnergy));
+
+      if (minEnergy == Double.POSITIVE_INFINITY) {
+        return null;
+      }
+      else if (Double.compare(minEnergy, beforeEnergy) == 0) {
+        currentPosn -= 1;
+      }
+      else if (Double.compare(minEnergy, afterEnergy) == 0) {
+        currentPosn += 1;
+      }
+      seam[line] = currentPosn;
+    }
+    return seam;
+  }
+
+  /**
+   * Cost of the pixel at the given position of the given row (or column) - that of a BorderPixel
+   * if outside the image - or infinite if a seam there wouldn't be strictly after the given
+   * previous seam.
+   */
+  private double getSeamCost(PixelIndex pixelIndex, int posn, int line, int[] previousSeam,
+      boolean isVerticalSeam) {
+    int lineLength = isVerticalSeam ? pixelIndex.getWidth() : pixelIndex.getHeight();
+    if (previousSeam != null && (posn <= previousSeam[line] || posn >= lineLength)) {
+      return Double.POSITIVE_INFINITY;
+    }
+    else if (posn < 0 || posn >= lineLength) {
+      return Integer.MAX_VALUE;
+    }
+    return isVerticalSeam ? pixelIndex.getPixel(posn, line).getCostMatrixEnergy()
+        : pixelIndex.getPixel(line, posn).getCostMatrixEnergy();
+  }
+
+  @Override
+  protected int getCurrentRGB(int x, int y) {
+    return pixelIndex.getPixel(x, y).getRGB();
+  }
+
+  /**
+   * Computes the energy of each pixel along the seam, putting back the energy the pixel had, so
+   * an energy map kept up to date incrementally is left as it was.
+   */
+  @Override
+  protected double computeSeamEnergy(int[] seam, boolean isVerticalSeam) {
+    double totalEnergy = 0;
+    for (int i = 0; i < seam.length; i += 1) {
+      Pixel pixel = isVerticalSeam ? pixelIndex.getPixel(seam[i], i)
+          : pixelIndex.getPixel(i, seam[i]);
+      double previousEnergy = pixel.getEnergyMapEnergy();
+      energyMapMaker.computeEnergy(pixel);
+      totalEnergy += pixel.getEnergyMapEnergy();
+      pixel.setEnergyMapEnergy(previousEnergy);
+    }
+    return totalEnergy / seam.length;
+  }
+
+  @Override
+  protected void removeCachedSeam(LoggedSeam seam) {
+    removeSeam(toSeam(pixelIndex, seam.getPositions(), seam.isVerticalSeam()));
   }
 
   @Override
   public void resize(int newWidth, int newHeight) {
-    if (newWidth < 1) {
-      throw new IllegalArgumentException("Given new width can't be less than 1 pixel");
+    validNewSize(newWidth, newHeight);
+    if (startCachedResize(newWidth, newHeight)) {
+      return;
     }
-    else if (newHeight < 1) {
-      throw new IllegalArgumentException("Given new width can't be less than 1 pixel");
+
+    if (energyMapMaker instanceof PackedEnergyMapMaker
+        && TransportMapPlanner.isWithinBudget(imageWidth, imageHeight, newWidth, newHeight,
+        transportMapMemoryBudget)) {
+      TransportMapPlanner planner = new TransportMapPlanner((PackedEnergyMapMaker)energyMapMaker);
+      List<LoggedSeam> plannedSeams = planner.plan(toPackedImage(), imageWidth - newWidth,
+          imageHeight - newHeight);
+      for (LoggedSeam seam : plannedSeams) {
+        removeSeam(toSeam(pixelIndex, seam.getPositions(), seam.isVerticalSeam()));
+      }
     }
 
     // Downsize then upsize
     while (imageWidth > newWidth || imageHeight > newHeight) {
       if (imageWidth > newWidth && imageHeight > newHeight) {
-        // Remove which ever seam removes less average energy
+        // Remove which ever seam removes less average energy, both found from one energy map
+        ensureEnergyMap(pixelIndex.getPixel(0, 0));
         Seam verticalSeam = findMinimumVerticalSeam();
         Seam horizontalSeam = findMinimumHorizontalSeam();
         if (verticalSeam.getAverageEnergy() < horizontalSeam.getAverageEnergy()) {
@@ -367,59 +1112,161 @@ public class DefaultSeamManipulator implements SeamManipulator, Iterable<Pixel>
         }
       }
       else if (imageWidth > newWidth) {
-        removeSeam(findMinimumVerticalSeam());
+        int batchSize = getSeamBatchSize(imageWidth, imageWidth - newWidth);
+        for (Seam seam : findMinimumVerticalSeams(pixelIndex, batchSize)) {
+          removeSeam(seam);
+        }
       }
       else if (imageHeight > newHeight) {
-        removeSeam(findMinimumHorizontalSeam());
+        int batchSize = getSeamBatchSize(imageHeight, imageHeight - newHeight);
+        for (Seam seam : findMinimumHorizontalSeams(pixelIndex, batchSize)) {
+          removeSeam(seam);
+        }
       }
     }
+    finishCachedResize();
+
+    // With a packed energy map the seams to duplicate are found on a packed copy of the image,
+    // kept in step with its pixels, rather than on a whole new copy of its pixels every stage
+    PackedImage packedImage = null;
+    PackedImage copiedImage = null;
+    if ((imageWidth < newWidth || imageHeight < newHeight)
+        && energyMapMaker instanceof PackedEnergyMapMaker) {
+      packedImage = toPackedImage();
+      packedImage.ensureCapacity(newWidth, newHeight);
+      copiedImage = packedImage.copy();
+    }
 
     while (imageWidth < newWidth || imageHeight < newHeight) {
-      if (imageWidth < newWidth) {
-        Pixel copiedUpperLeftCorner = copyCurrentImage();
-        int widthDifference = newWidth - imageWidth;
-        Coordinate[][] coordinatesToAdd = new Coordinate[widthDifference][];
-        SeamAdjuster removalSeamAdjuster = new DefaultSeamAdjuster(imageWidth);
-        for (int i = 0; i < widthDifference; i += 1) {
-          Seam toAdd = findMinimumVerticalSeam(copiedUpperLeftCorner);
-          toAdd.remove();
-          Coordinate[] currentCoordinates = toAdd.getCoordinates();
+      boolean isVerticalSeam = imageWidth < newWidth;
+      int stageSize = isVerticalSeam
+          ? getEnlargementStageSize(imageWidth, newWidth - imageWidth)
+          : getEnlargementStageSize(imageHeight, newHeight - imageHeight);
+      Coordinate[][] coordinatesToAdd;
+      if (packedImage != null) {
+        packedImage.copyInto(copiedImage);
+        coordinatesToAdd = findSeamsToAdd(copiedImage, stageSize, isVerticalSeam);
+      }
+      else {
+        coordinatesToAdd = findSeamsToAdd(stageSize, isVerticalSeam);
+      }
+
+      if (isVerticalSeam) {
+        insertVerticalCoordinates(coordinatesToAdd);
+      }
+      else {
+        insertHorizontalCoordinates(coordinatesToAdd);
+      }
+      if (packedImage != null) {
+        // Inserting adjusts each seam's coordinates in place, so they now match the image
+        for (Coordinate[] coordinates : coordinatesToAdd) {
+          if (isVerticalSeam) {
+            packedImage.insertVerticalSeam(toPositions(coordinates, true));
+          }
+          else {
+            packedImage.insertHorizontalSeam(toPositions(coordinates, false));
+          }
+        }
+      }
+    }
+  }
+
+  /**
+   * Finds the given {@param count} of seams to duplicate by removing them, one after the other,
+   * from a copy of the current image's pixels.
+   *
+   * @return coordinates of each seam in the current image, in the order they were found
+   */
+  private Coordinate[][] findSeamsToAdd(int count, boolean isVerticalSeam) {
+    PixelIndex copiedIndex = new PixelIndex(copyCurrentImage());
+    Coordinate[][] coordinatesToAdd = new Coordinate[count][];
+    SeamAdjuster removalSeamAdjuster = new FenwickSeamAdjuster(isVerticalSeam ? imageWidth
+        : imageHeight);
+    int i = 0;
+    while (i < count) {
+      int lineLength = isVerticalSeam ? copiedIndex.getWidth() : copiedIndex.getHeight();
+      int batchSize = getSeamBatchSize(lineLength, count - i);
+      List<Seam> seams = isVerticalSeam ? findMinimumVerticalSeams(copiedIndex, batchSize)
+          : findMinimumHorizontalSeams(copiedIndex, batchSize);
+      for (Seam toAdd : seams) {
+        toAdd.remove();
+        seamRemoved(toAdd, copiedIndex);
+        Coordinate[] currentCoordinates = toAdd.getCoordinates();
+        if (isVerticalSeam) {
           removalSeamAdjuster.adjustCoordinatesByXInclusive(currentCoordinates);
-          coordinatesToAdd[i] = currentCoordinates;
         }
-        insertVerticalCoordinates(coordinatesToAdd);
+        else {
+          removalSeamAdjuster.adjustCoordinatesByYInclusive(currentCoordinates);
+        }
+        coordinatesToAdd[i] = currentCoordinates;
+        i += 1;
+      }
+    }
+    return coordinatesToAdd;
+  }
+
+  /**
+   * Finds the given {@param count} of seams to duplicate by removing them, one after the other,
+   * from the given packed {@param copiedImage} of the current image.
+   *
+   * @return coordinates of each seam in the current image, in the order they were found
+   */
+  private Coordinate[][] findSeamsToAdd(PackedImage copiedImage, int count,
+      boolean isVerticalSeam) {
+    PackedEnergyMapMaker packedEnergyMapMaker = (PackedEnergyMapMaker)energyMapMaker;
+    Coordinate[][] coordinatesToAdd = new Coordinate[count][];
+    SeamAdjuster removalSeamAdjuster = new FenwickSeamAdjuster(isVerticalSeam ? imageWidth
+        : imageHeight);
+    int i = 0;
+    while (i < count) {
+      int lineLength = isVerticalSeam ? copiedImage.getWidth() : copiedImage.getHeight();
+      int batchSize = getSeamBatchSize(lineLength, count - i);
+      copiedImage.computeEnergyMap(packedEnergyMapMaker);
+      int[][] seams;
+      if (isVerticalSeam) {
+        copiedImage.computeVerticalCostMatrix();
+        seams = copiedImage.findMinimumVerticalSeams(batchSize);
       }
-      else if (imageHeight < newHeight) {
-        Pixel copiedUpperLeftCorner = copyCurrentImage();
-        int heightDifference = newHeight - imageHeight;
-        Coordinate[][] coordinatesToAdd = new Coordinate[heightDifference][];
-        SeamAdjuster removalSeamAdjuster = new DefaultSeamAdjuster(imageHeight);
-        for (int i = 0; i < heightDifference; i += 1) {
-          Seam toAdd = findMinimumHorizontalSeam(copiedUpperLeftCorner);
-          toAdd.remove();
-          Coordinate[] currentCoordinate = toAdd.getCoordinates();
-          removalSeamAdjuster.adjustCoordinatesByYInclusive(currentCoordinate);
-          coordinatesToAdd[i] = currentCoordinate;
+      else {
+        copiedImage.computeHorizontalCostMatrix();
+        seams = copiedImage.findMinimumHorizontalSeams(batchSize);
+      }
+      for (int[] toAdd : seams) {
+        if (isVerticalSeam) {
+          copiedImage.removeVerticalSeam(toAdd);
         }
-        insertHorizontalCoordinates(coordinatesToAdd);
+        else {
+          copiedImage.removeHorizontalSeam(toAdd);
+        }
+        removalSeamAdjuster.adjustPositionsInclusive(toAdd);
+        Coordinate[] currentCoordinates = new Coordinate[toAdd.length];
+        for (int line = 0; line < toAdd.length; line += 1) {
+          currentCoordinates[line] = isVerticalSeam ? new Coordinate(toAdd[line], line)
+              : new Coordinate(line, toAdd[line]);
+        }
+        coordinatesToAdd[i] = currentCoordinates;
+        i += 1;
       }
     }
+    return coordinatesToAdd;
   }
 
-  private void insertVerticalCoordinates(Coordinate[]... coordinatesToAdd) {
-    SeamAdjuster upscalingSeamAdjuster = new DefaultSeamAdjuster(imageWidth);
+  void insertVerticalCoordinates(Coordinate[]... coordinatesToAdd) {
+    isSourceImage = false;
+    SeamAdjuster upscalingSeamAdjuster = new FenwickSeamAdjuster(imageWidth);
     for (Coordinate[] coordinates : coordinatesToAdd) {
       if (coordinatesToAdd.length > 1) {
         upscalingSeamAdjuster.adjustCoordinatesByXExclusive(coordinates);
       }
 
-      Pixel prevLeft = new BorderPixel();
-      Pixel prevMiddle = new BorderPixel();
-      Pixel prevRight = new BorderPixel();
+      Pixel prevLeft = BorderPixel.INSTANCE;
+      Pixel prevMiddle = BorderPixel.INSTANCE;
+      Pixel prevRight = BorderPixel.INSTANCE;
       int previousX = -1;
-      Pixel currentLeft = new BorderPixel();
-      Pixel currentMiddle = new BorderPixel();
-      Pixel currentRight = new BorderPixel();
+      Pixel currentLeft = BorderPixel.INSTANCE;
+      Pixel currentMiddle = BorderPixel.INSTANCE;
+      Pixel currentRight = BorderPixel.INSTANCE;
+      Pixel[] insertedPixels = new Pixel[coordinates.length];
 
       for (int i = 0; i < coordinates.length; i += 1) {
         Coordinate coordinate = coordinates[i];
@@ -434,7 +1281,7 @@ public class DefaultSeamManipulator implements SeamManipulator, Iterable<Pixel>
         else if (x == previousX - 1) {
           currentLeft = prevLeft.getLowerLeftPixel();
           currentMiddle = currentLeft.createPixelWithRight();
-          currentRight = prevRight.getLowerLeftPixel();
+          currentRight = currentLeft.getRightPixel();
 
           prevMiddle.setBelowPixel(currentRight);
           currentRight.setAbovePixel(prevMiddle);
@@ -444,7 +1291,7 @@ public class DefaultSeamManipulator implements SeamManipulator, Iterable<Pixel>
         else if (x == previousX + 1) {
           currentLeft = prevLeft.getLowerRightPixel();
           currentMiddle = currentLeft.createPixelWithRight();
-          currentRight = prevRight.getLowerRightPixel();
+          currentRight = currentLeft.getRightPixel();
 
           prevMiddle.setBelowPixel(currentLeft);
           currentLeft.setAbovePixel(prevMiddle);
@@ -454,7 +1301,7 @@ public class DefaultSeamManipulator implements SeamManipulator, Iterable<Pixel>
         else {
           currentLeft = prevLeft.getBelowPixel();
           currentMiddle = currentLeft.createPixelWithRight();
-          currentRight = prevRight.getBelowPixel();
+          currentRight = currentLeft.getRightPixel();
 
           prevMiddle.setBelowPixel(currentMiddle);
           currentMiddle.setAbovePixel(prevMiddle);
@@ -463,31 +1310,37 @@ public class DefaultSeamManipulator implements SeamManipulator, Iterable<Pixel>
         currentMiddle.setLeftPixel(currentLeft);
         currentMiddle.setRightPixel(currentRight);
         currentRight.setLeftPixel(currentMiddle);
+        insertedPixels[i] = currentMiddle;
 
         prevLeft = currentLeft;
         prevMiddle = currentMiddle;
         prevRight = currentRight;
         previousX = x;
       }
+      pixelIndex.insertVerticalSeam(coordinates, insertedPixels);
+      recordInsertedSeam(coordinates, true);
       imageWidth += 1;
-      storeCurrentState();
+      energyMapCorner = null;
+      costMatrixCorner = null;
     }
   }
 
-  private void insertHorizontalCoordinates(Coordinate[]... coordinatesToAdd) {
-    SeamAdjuster upscalingSeamAdjuster = new DefaultSeamAdjuster(imageHeight);
+  void insertHorizontalCoordinates(Coordinate[]... coordinatesToAdd) {
+    isSourceImage = false;
+    SeamAdjuster upscalingSeamAdjuster = new FenwickSeamAdjuster(imageHeight);
     for (Coordinate[] coordinates : coordinatesToAdd) {
       if (coordinatesToAdd.length > 1) {
         upscalingSeamAdjuster.adjustCoordinatesByYExclusive(coordinates);
       }
 
-      Pixel prevAbove = new BorderPixel();
-      Pixel prevMiddle = new BorderPixel();
-      Pixel prevBelow = new BorderPixel();
+      Pixel prevAbove = BorderPixel.INSTANCE;
+      Pixel prevMiddle = BorderPixel.INSTANCE;
+      Pixel prevBelow = BorderPixel.INSTANCE;
       int prevY = -1;
-      Pixel curAbove = new BorderPixel();
-      Pixel curMiddle = new BorderPixel();
-      Pixel curBelow = new BorderPixel();
+      Pixel curAbove = BorderPixel.INSTANCE;
+      Pixel curMiddle = BorderPixel.INSTANCE;
+      Pixel curBelow = BorderPixel.INSTANCE;
+      Pixel[] insertedPixels = new Pixel[coordinates.length];
 
       for (int i = 0; i < coordinates.length; i += 1) {
         Coordinate coordinate = coordinates[i];
@@ -502,7 +1355,7 @@ public class DefaultSeamManipulator implements SeamManipulator, Iterable<Pixel>
         else if (y == prevY - 1) {
           curAbove = prevAbove.getUpperRightPixel();
           curMiddle = curAbove.createPixelWithBelow();
-          curBelow = prevBelow.getRightPixel().getAbovePixel();
+          curBelow = curAbove.getBelowPixel();
 
           prevAbove.setRightPixel(curMiddle);
           curMiddle.setLeftPixel(prevAbove);
@@ -512,7 +1365,7 @@ public class DefaultSeamManipulator implements SeamManipulator, Iterable<Pixel>
         else if (y == prevY + 1) {
           curAbove = prevAbove.getRightPixel().getBelowPixel();
           curMiddle = curAbove.createPixelWithBelow();
-          curBelow = prevBelow.getLowerRightPixel();
+          curBelow = curAbove.getBelowPixel();
 
           prevMiddle.setRightPixel(curAbove);
           curAbove.setLeftPixel(prevMiddle);
@@ -522,7 +1375,7 @@ public class DefaultSeamManipulator implements SeamManipulator, Iterable<Pixel>
         else {
           curAbove = prevAbove.getRightPixel();
           curMiddle = curAbove.createPixelWithBelow();
-          curBelow = prevBelow.getRightPixel();
+          curBelow = curAbove.getBelowPixel();
 
           prevMiddle.setRightPixel(curMiddle);
           curMiddle.setLeftPixel(prevMiddle);
@@ -531,18 +1384,22 @@ public class DefaultSeamManipulator implements SeamManipulator, Iterable<Pixel>
         curMiddle.setAbovePixel(curAbove);
         curMiddle.setBelowPixel(curBelow);
         curBelow.setAbovePixel(curMiddle);
+        insertedPixels[i] = curMiddle;
 
         prevAbove = curAbove;
         prevMiddle = curMiddle;
         prevBelow = curBelow;
         prevY = y;
       }
+      pixelIndex.insertHorizontalSeam(coordinates, insertedPixels);
+      recordInsertedSeam(coordinates, false);
       imageHeight += 1;
-      storeCurrentState();
+      energyMapCorner = null;
+      costMatrixCorner = null;
     }
   }
 
-  private void removeSeam(Seam toRemove) {
+  void removeSeam(Seam toRemove) {
     if (toRemove == null) {
       throw new IllegalArgumentException("Given seam can't be null!");
     }
@@ -552,57 +1409,47 @@ public class DefaultSeamManipulator implements SeamManipulator, Iterable<Pixel>
     else {
       imageHeight -= 1;
     }
+    recordRemovedSeam(toRemove.getCoordinates(), toRemove.isVerticalSeam());
+    isSourceImage = false;
+    if (maskPixelCount > 0) {
+      for (Pixel pixel : toRemove.getPixels()) {
+        if (pixel.isMask()) {
+          maskPixelCount -= 1;
+        }
+      }
+    }
     toRemove.remove();
-    storeCurrentState();
+    seamRemoved(toRemove, pixelIndex);
+    upperLeftCorner = pixelIndex.getPixel(0, 0);
   }
 
   @Override
   public void resize(int newWidth, int newHeight, Mask areaToProtect) {
-    applyMask(areaToProtect, DefaultSeamManipulator.maskValue);
+    applyMask(areaToProtect, maskValue);
     resize(newWidth, newHeight);
   }
 
   @Override
   public void removeArea(Mask areaToRemove) {
-    applyMask(areaToRemove, -DefaultSeamManipulator.maskValue);
+    applyMask(areaToRemove, -maskValue);
 
     int horzToRemove = areaToRemove.getMaxX() - areaToRemove.getMinX() + 1;
     int vertToRemove = areaToRemove.getMaxY() - areaToRemove.getMinY() + 1;
 
-    BooleanSupplier hasMask = () -> {
-        for (Pixel pixel : this) {
-          if (pixel.isMask()) {
-            return true;
-          }
-        }
-        return false;
-    };
-
-    while (hasMask.getAsBoolean()) {
-      Seam seam;
+    startAreaRemoval(maskPixelCount);
+    while (maskPixelCount > 0) {
       if (horzToRemove > vertToRemove) {
-        seam = findMinimumHorizontalSeam();
-        imageHeight -= 1;
+        removeSeam(findMinimumHorizontalSeam());
         horzToRemove -= 1;
       }
       else {
-        seam = findMinimumVerticalSeam();
-        imageWidth -= 1;
+        removeSeam(findMinimumVerticalSeam());
         vertToRemove -= 1;
       }
-      seam.remove();
-      storeCurrentState();
+      updateAreaRemovalProgress(maskPixelCount);
     }
   }
 
-  @Override
-  public void replaceArea(Mask areaToRemove) {
-    int startingWidth = imageWidth;
-    int startingHeight = imageHeight;
-    removeArea(areaToRemove);
-    resize(startingWidth, startingHeight);
-  }
-
   @Override
   public BufferedImage getCurrentImage() {
     RowColumnIterator rowColumnIterator = new RowColumnIterator(upperLeftCorner);
@@ -611,8 +1458,7 @@ public class DefaultSeamManipulator implements SeamManipulator, Iterable<Pixel>
       int x = rowColumnIterator.getX();
       int y = rowColumnIterator.getY();
       Pixel currentPixel = rowColumnIterator.next();
-      Color currentColor = currentPixel.getColor();
-      toReturn.setRGB(x, y, currentColor.getRGB());
+      toReturn.setRGB(x, y, currentPixel.getRGB());
     }
     return toReturn;
   }
@@ -640,7 +1486,7 @@ public class DefaultSeamManipulator implements SeamManipulator, Iterable<Pixel>
   @Override
   public BufferedImage getCurrentCostMatrix() {
     computeEnergyMap(upperLeftCorner);
-    computeHorizontalCostMatrix(new HorizontalEnergy(), upperLeftCorner);
+    computeHorizontalCostMatrix(horizontalCostMatrix, pixelIndex);
     RowColumnIterator rowColumnIterator = new RowColumnIterator(upperLeftCorner);
     BufferedImage toReturn = new BufferedImage(imageWidth, imageHeight, BufferedImageType);
     while (rowColumnIterator.hasNext()) {
@@ -658,74 +1504,6 @@ public class DefaultSeamManipulator implements SeamManipulator, Iterable<Pixel>
     return toReturn;
   }
 
-  private void storeCurrentState() {
-    if (record) {
-      previousStates.add(getCurrentImage());
-    }
-  }
-
-  @Override
-  public void saveCurrentImage(Path filePath) throws IOException {
-    validFilePath(filePath.getParent());
-    ImageIO.write(getCurrentImage(), "png", filePath.toFile());
-  }
-
-  private BufferedImage placeOnLargerImage(BufferedImage toConvert, int x, int y) {
-    if (!(0 < x && x >= toConvert.getWidth())) {
-      throw new IllegalArgumentException("Given x value is not in range of given image!");
-    }
-    else if (!(0 < y && x >= toConvert.getHeight())) {
-      throw new IllegalArgumentException("Given y value is not in range of given image!");
-    }
-
-    BufferedImage toReturn = new BufferedImage(x, y, BufferedImage.TYPE_3BYTE_BGR);
-
-    for (int row = 0; row < toConvert.getHeight(); row += 1) {
-      for (int column = 1; column < toConvert.getWidth(); column += 1) {
-        toReturn.setRGB(column, row, toConvert.getRGB(column, row));
-      }
-    }
-    return toReturn;
-  }
-
-  @Override
-  public void saveCurrentProcess(Path filePath) throws IOException {
-    if (!record) {
-      throw new IllegalArgumentException("This seam manipulator has been set not to record!");
-    }
-
-    validFilePath(filePath.getParent());
-    SeekableByteChannel out = null;
-
-    BufferedImage start = previousStates.get(0);
-    BufferedImage end = previousStates.get(previousStates.size() - 1);
-    int widthToUse = Math.max(start.getWidth(), end.getWidth());
-    int heightToUse = Math.max(start.getHeight(), end.getHeight());
-
-    if (widthToUse % 2 == 1) {
-      widthToUse += 1;
-    }
-
-    if (heightToUse % 2 == 1) {
-      heightToUse += 1;
-    }
-
-    try {
-      out = NIOUtils.writableFileChannel(filePath.toString());
-      AWTSequenceEncoder encoder = new AWTSequenceEncoder(out, Rational.R(25, 1));
-      for (BufferedImage bufferedImage : previousStates) {
-        bufferedImage = placeOnLargerImage(bufferedImage, widthToUse, heightToUse);
-        // Encode the image
-        encoder.encodeImage(bufferedImage);
-      }
-      // Finalize the encoding, i.e. clear the buffers, write the header, etc.
-      encoder.finish();
-    }
-    finally {
-      NIOUtils.closeQuietly(out);
-    }
-  }
-
   @Override
   public Iterator<Pixel> iterator() {
     return new RowColumnIterator(upperLeftCorner);
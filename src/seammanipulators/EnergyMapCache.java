@@ -0,0 +1,270 @@
+package seammanipulators;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * Remembers the energy maps, and first cost matrices, of images already loaded, so an image
+ * retargeted again - to another size, or with another mask - can skip computing them from
+ * nothing. One cache may be shared by every SeamManipulator of the process, on any thread.
+ *
+ * Each table is kept under the content of the image it belongs to - a 64 bit hash of its size and
+ * every one of its pixels - along with the energy function, and cost function, it was computed
+ * with. Tables are held as primitive arrays, and the least recently used are evicted once they
+ * take up more than the cache's given number of bytes.
+ */
+public class EnergyMapCache {
+
+  /**
+   * Name of the energy map table of an image, as opposed to one of its cost matrices.
+   */
+  static final String energyMapTable = "energy map";
+
+  /**
+   * Rough bytes taken up by a table besides its energies, counted towards the cache's size.
+   */
+  private static final long tableOverhead = 96;
+
+  private final long maxBytes;
+
+  /**
+   * Cached tables, iterated least recently used first.
+   */
+  private final LinkedHashMap<TableKey, double[]> tables =
+      new LinkedHashMap<>(16, 0.75f, true);
+
+  private long bytes = 0;
+
+  private long hits = 0;
+
+  private long misses = 0;
+
+  private long evictions = 0;
+
+  /**
+   * @param maxBytes most bytes the cached tables may take up
+   * @throws IllegalArgumentException if the given {@param maxBytes} is less than 1
+   */
+  public EnergyMapCache(long maxBytes) {
+    if (maxBytes < 1) {
+      throw new IllegalArgumentException("Given byte limit must be at least 1!");
+    }
+    this.maxBytes = maxBytes;
+  }
+
+  /**
+   * Content of an image, and the energy function its tables were computed with.
+   */
+  static final class Key {
+
+    private final long contentHash;
+
+    private final int width;
+
+    private final int height;
+
+    private final String energyFunction;
+
+    private Key(long contentHash, int width, int height, String energyFunction) {
+      this.contentHash = contentHash;
+      this.width = width;
+      this.height = height;
+      this.energyFunction = energyFunction;
+    }
+
+    @Override
+    public boolean equals(Object other) {
+      if (!(other instanceof Key)) {
+        return false;
+      }
+      Key key = (Key)other;
+      return contentHash == key.contentHash && width == key.width && height == key.height
+          && energyFunction.equals(key.energyFunction);
+    }
+
+    @Override
+    public int hashCode() {
+      return Objects.hash(contentHash, width, height, energyFunction);
+    }
+  }
+
+  private static final class TableKey {
+
+    private final Key key;
+
+    private final String table;
+
+    private TableKey(Key key, String table) {
+      this.key = key;
+      this.table = table;
+    }
+
+    @Override
+    public boolean equals(Object other) {
+      if (!(other instanceof TableKey)) {
+        return false;
+      }
+      TableKey tableKey = (TableKey)other;
+      return key.equals(tableKey.key) && table.equals(tableKey.table);
+    }
+
+    @Override
+    public int hashCode() {
+      return key.hashCode() * 31 + table.hashCode();
+    }
+  }
+
+  /**
+   * Starts the key of an image, to be given every one of its pixels, row by row, with
+   * {@link #hashPixel(long, int)} before being finished by {@link #getKey(long, int, int, Class)}.
+   *
+   * @return hash of no pixels
+   */
+  static long startHash() {
+    return 0xCBF29CE484222325L;
+  }
+
+  /**
+   * @param hash hash of the pixels before the given one
+   * @param rgb packed color of the next pixel
+   * @return hash of the pixels up to and including the given one
+   */
+  static long hashPixel(long hash, int rgb) {
+    return (hash ^ rgb) * 0x100000001B3L;
+  }
+
+  /**
+   * @param hash hash of every pixel of the image
+   * @param width width of the image
+   * @param height height of the image
+   * @param energyFunction class of the energy function the image's tables are computed with
+   * @return key of the image's tables
+   */
+  static Key getKey(long hash, int width, int height, Class<?> energyFunction) {
+    if (energyFunction == null) {
+      throw new IllegalArgumentException("Given energy function can't be null!");
+    }
+
+    // Mixed so images differing in only a few pixels spread over every bit
+    long contentHash = hash ^ ((long)width << 32 | height);
+    contentHash = (contentHash ^ (contentHash >>> 33)) * 0xFF51AFD7ED558CCDL;
+    contentHash = (contentHash ^ (contentHash >>> 33)) * 0xC4CEB9FE1A85EC53L;
+    contentHash ^= contentHash >>> 33;
+    return new Key(contentHash, width, height, energyFunction.getName());
+  }
+
+  /**
+   * Finds a table of the image of the given {@param key}, and marks it as the most recently used.
+   *
+   * @param key key of the image
+   * @param table {@link #energyMapTable}, or the class name of the cost function of the table
+   * @return energies of the table, row by row, not to be modified, or null if it isn't cached
+   */
+  synchronized double[] find(Key key, String table) {
+    if (key == null) {
+      throw new IllegalArgumentException("Given key can't be null!");
+    }
+    else if (table == null) {
+      throw new IllegalArgumentException("Given table can't be null!");
+    }
+
+    double[] energies = tables.get(new TableKey(key, table));
+    if (energies == null) {
+      misses += 1;
+    }
+    else {
+      hits += 1;
+    }
+    return energies;
+  }
+
+  /**
+   * Caches a table of the image of the given {@param key}, evicting the least recently used
+   * tables until the cache is back within its byte limit. Tables larger than the limit by
+   * themselves aren't cached.
+   *
+   * @param key key of the image
+   * @param table {@link #energyMapTable}, or the class name of the cost function of the table
+   * @param energies energies of the table, row by row, no longer to be modified
+   */
+  synchronized void put(Key key, String table, double[] energies) {
+    if (key == null) {
+      throw new IllegalArgumentException("Given key can't be null!");
+    }
+    else if (table == null) {
+      throw new IllegalArgumentException("Given table can't be null!");
+    }
+    else if (energies == null) {
+      throw new IllegalArgumentException("Given energies can't be null!");
+    }
+    else if (energies.length != key.width * key.height) {
+      throw new IllegalArgumentException("Given energies must cover the whole image!");
+    }
+
+    long tableBytes = getBytes(energies);
+    if (tableBytes > maxBytes) {
+      return;
+    }
+    double[] replaced = tables.put(new TableKey(key, table), energies);
+    if (replaced != null) {
+      bytes -= getBytes(replaced);
+    }
+    bytes += tableBytes;
+
+    while (bytes > maxBytes) {
+      Map.Entry<TableKey, double[]> eldest = tables.entrySet().iterator().next();
+      bytes -= getBytes(eldest.getValue());
+      tables.remove(eldest.getKey());
+      evictions += 1;
+    }
+  }
+
+  private static long getBytes(double[] energies) {
+    return (long)energies.length * Double.BYTES + tableOverhead;
+  }
+
+  /**
+   * @return number of tables found in the cache
+   */
+  public synchronized long getHits() {
+    return hits;
+  }
+
+  /**
+   * @return number of tables looked for but not found in the cache
+   */
+  public synchronized long getMisses() {
+    return misses;
+  }
+
+  /**
+   * @return number of tables evicted to keep the cache within its byte limit
+   */
+  public synchronized long getEvictions() {
+    return evictions;
+  }
+
+  /**
+   * @return rough bytes taken up by the tables currently cached
+   */
+  public synchronized long getBytes() {
+    return bytes;
+  }
+
+  public long getMaxBytes() {
+    return maxBytes;
+  }
+
+  /**
+   * @return number of tables currently cached
+   */
+  public synchronized int size() {
+    return tables.size();
+  }
+
+  public synchronized void clear() {
+    tables.clear();
+    bytes = 0;
+  }
+}
@@ -0,0 +1,327 @@
+package seammanipulators;
+
+import costmatricies.horizontal.IntHorizontalCostMatrix;
+import costmatricies.horizontal.IntHorizontalEnergy;
+import costmatricies.vertical.IntVerticalCostMatrix;
+import costmatricies.vertical.IntVerticalEnergy;
+import energymaps.EnergyMapMaker;
+import energymaps.IntEnergyMapMaker;
+import java.awt.Color;
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.nio.file.Path;
+import masks.Mask;
+import pixel.IntPackedImage;
+import seams.LoggedSeam;
+import utility.FenwickSeamAdjuster;
+import utility.SeamAdjuster;
+
+/**
+ * SeamManipulator that stores the image being carved as an IntPackedImage, with fixed point int
+ * energies and costs rather than doubles - half the memory of an ArraySeamManipulator's energy map
+ * and cost matrix, and a cost matrix computed with integer arithmetic alone. With energy
+ * functions whose energies are exact in fixed point, such as the AverageSurroundingGradient, it
+ * finds and removes the same seams as an ArraySeamManipulator that doesn't plan with a transport
+ * map, taking as many seams from each cost matrix as its seam batch fraction allows. Seams can't
+ * be planned with a transport map, so shrinking both dimensions always removes them greedily.
+ */
+public class IntSeamManipulator extends AbstractSeamManipulator {
+
+  private IntPackedImage image;
+
+  private final IntEnergyMapMaker energyMapMaker;
+
+  private final IntVerticalCostMatrix verticalCostMatrix = new IntVerticalEnergy();
+
+  private final IntHorizontalCostMatrix horizontalCostMatrix = new IntHorizontalEnergy();
+
+  /**
+   * Loads the image at the given {@param inputFilePath} to be carved.
+   *
+   * @param inputFilePath file path of the image to carve
+   * @param energyMapMaker energy function to use, must also be an IntEnergyMapMaker
+   * @param record if every intermediate state should be kept for {@link #saveCurrentProcess(Path)}
+   * @throws IllegalArgumentException if the given {@param energyMapMaker} is null or can't compute
+   *                                  fixed point energies
+   * @throws IOException if the given {@param inputFilePath} does not exist or can't be read
+   */
+  public IntSeamManipulator(Path inputFilePath, EnergyMapMaker energyMapMaker, boolean record)
+      throws IOException {
+    this(readImage(inputFilePath), energyMapMaker, record);
+  }
+
+  /**
+   * Carves the given image, already loaded.
+   *
+   * @param loadedImage image to carve
+   * @param energyMapMaker energy function to use, must also be an IntEnergyMapMaker
+   * @param record if every intermediate state should be kept for {@link #saveCurrentProcess(Path)}
+   * @throws IllegalArgumentException if the given {@param loadedImage} or {@param energyMapMaker}
+   *                                  is null, or the energy map can't compute fixed point energies
+   */
+  public IntSeamManipulator(BufferedImage loadedImage, EnergyMapMaker energyMapMaker,
+      boolean record) {
+    super(loadedImage, record);
+
+    if (energyMapMaker == null) {
+      throw new IllegalArgumentException("Given energy map can't be null!");
+    }
+    else if (!(energyMapMaker instanceof IntEnergyMapMaker)) {
+      throw new IllegalArgumentException("Given energy map must be able to compute fixed point "
+          + "energies!");
+    }
+    this.energyMapMaker = (IntEnergyMapMaker)energyMapMaker;
+
+    image = new IntPackedImage(loadedImage);
+  }
+
+  private void applyMask(Mask maskToApply, double valueToApply) {
+    validMask(maskToApply);
+
+    int fixedPointValue = (int)Math.round(valueToApply * IntEnergyMapMaker.ENERGY_SCALE);
+    maskToApply.forEachRun((y, fromX, toX) -> image.makeMaskRun(y, fromX, toX, fixedPointValue));
+  }
+
+  private int[] findMinimumVerticalSeam(IntPackedImage image) {
+    image.computeEnergyMap(energyMapMaker);
+    image.computeVerticalCostMatrix(verticalCostMatrix);
+    return image.findMinimumVerticalSeam();
+  }
+
+  private int[] findMinimumHorizontalSeam(IntPackedImage image) {
+    image.computeEnergyMap(energyMapMaker);
+    image.computeHorizontalCostMatrix(horizontalCostMatrix);
+    return image.findMinimumHorizontalSeam();
+  }
+
+  private int[][] findMinimumVerticalSeams(IntPackedImage image, int count) {
+    image.computeEnergyMap(energyMapMaker);
+    image.computeVerticalCostMatrix(verticalCostMatrix);
+    return image.findMinimumVerticalSeams(count);
+  }
+
+  private int[][] findMinimumHorizontalSeams(IntPackedImage image, int count) {
+    image.computeEnergyMap(energyMapMaker);
+    image.computeHorizontalCostMatrix(horizontalCostMatrix);
+    return image.findMinimumHorizontalSeams(count);
+  }
+
+  private void removeVerticalSeam(int[] seam) {
+    recordRemovedSeam(seam, true);
+    image.removeVerticalSeam(seam);
+    imageWidth -= 1;
+  }
+
+  private void removeHorizontalSeam(int[] seam) {
+    recordRemovedSeam(seam, false);
+    image.removeHorizontalSeam(seam);
+    imageHeight -= 1;
+  }
+
+  @Override
+  protected int getCurrentRGB(int x, int y) {
+    return image.getRGB(x, y);
+  }
+
+  @Override
+  protected double computeSeamEnergy(int[] seam, boolean isVerticalSeam) {
+    return image.computeSeamEnergy(energyMapMaker, seam, isVerticalSeam);
+  }
+
+  @Override
+  protected void removeCachedSeam(LoggedSeam seam) {
+    if (seam.isVerticalSeam()) {
+      removeVerticalSeam(seam.getPositions());
+    }
+    else {
+      removeHorizontalSeam(seam.getPositions());
+    }
+  }
+
+  @Override
+  public void resize(int newWidth, int newHeight) {
+    validNewSize(newWidth, newHeight);
+    if (startCachedResize(newWidth, newHeight)) {
+      return;
+    }
+
+    // Downsize then upsize
+    while (imageWidth > newWidth || imageHeight > newHeight) {
+      if (imageWidth > newWidth && imageHeight > newHeight) {
+        // Remove which ever seam removes less average energy, both found from one energy map
+        image.computeEnergyMap(energyMapMaker);
+        image.computeVerticalCostMatrix(verticalCostMatrix);
+        int[] verticalSeam = image.findMinimumVerticalSeam();
+        double verticalEnergy = image.getAverageEnergy(verticalSeam, true);
+        image.computeHorizontalCostMatrix(horizontalCostMatrix);
+        int[] horizontalSeam = image.findMinimumHorizontalSeam();
+        double horizontalEnergy = image.getAverageEnergy(horizontalSeam, false);
+        if (verticalEnergy < horizontalEnergy) {
+          removeVerticalSeam(verticalSeam);
+        }
+        else {
+          removeHorizontalSeam(horizontalSeam);
+        }
+      }
+      else if (imageWidth > newWidth) {
+        int batchSize = getSeamBatchSize(imageWidth, imageWidth - newWidth);
+        for (int[] seam : findMinimumVerticalSeams(image, batchSize)) {
+          removeVerticalSeam(seam);
+        }
+      }
+      else if (imageHeight > newHeight) {
+        int batchSize = getSeamBatchSize(imageHeight, imageHeight - newHeight);
+        for (int[] seam : findMinimumHorizontalSeams(image, batchSize)) {
+          removeHorizontalSeam(seam);
+        }
+      }
+    }
+    finishCachedResize();
+
+    if (imageWidth < newWidth || imageHeight < newHeight) {
+      // Room for the final size up front, so each stage inserts its seams in place
+      image.ensureCapacity(newWidth, newHeight);
+    }
+    // Seams to duplicate are found on a copy of the image at the start of each stage, kept from
+    // one stage to the next
+    IntPackedImage copiedImage = null;
+    while (imageWidth < newWidth || imageHeight < newHeight) {
+      if (copiedImage == null) {
+        copiedImage = image.copy();
+      }
+      else {
+        image.copyInto(copiedImage);
+      }
+
+      if (imageWidth < newWidth) {
+        int widthDifference = getEnlargementStageSize(imageWidth, newWidth - imageWidth);
+        int[][] seamsToAdd = new int[widthDifference][];
+        SeamAdjuster removalSeamAdjuster = new FenwickSeamAdjuster(imageWidth);
+        int i = 0;
+        while (i < widthDifference) {
+          int batchSize = getSeamBatchSize(copiedImage.getWidth(), widthDifference - i);
+          for (int[] toAdd : findMinimumVerticalSeams(copiedImage, batchSize)) {
+            copiedImage.removeVerticalSeam(toAdd);
+            removalSeamAdjuster.adjustPositionsInclusive(toAdd);
+            seamsToAdd[i] = toAdd;
+            i += 1;
+          }
+        }
+        insertVerticalSeams(seamsToAdd);
+      }
+      else if (imageHeight < newHeight) {
+        int heightDifference = getEnlargementStageSize(imageHeight, newHeight - imageHeight);
+        int[][] seamsToAdd = new int[heightDifference][];
+        SeamAdjuster removalSeamAdjuster = new FenwickSeamAdjuster(imageHeight);
+        int i = 0;
+        while (i < heightDifference) {
+          int batchSize = getSeamBatchSize(copiedImage.getHeight(), heightDifference - i);
+          for (int[] toAdd : findMinimumHorizontalSeams(copiedImage, batchSize)) {
+            copiedImage.removeHorizontalSeam(toAdd);
+            removalSeamAdjuster.adjustPositionsInclusive(toAdd);
+            seamsToAdd[i] = toAdd;
+            i += 1;
+          }
+        }
+        insertHorizontalSeams(seamsToAdd);
+      }
+    }
+  }
+
+  private void insertVerticalSeams(int[]... seamsToAdd) {
+    SeamAdjuster upscalingSeamAdjuster = new FenwickSeamAdjuster(imageWidth);
+    for (int[] seam : seamsToAdd) {
+      if (seamsToAdd.length > 1) {
+        upscalingSeamAdjuster.adjustPositionsExclusive(seam);
+      }
+      recordInsertedSeam(seam, true);
+      image.insertVerticalSeam(seam);
+      imageWidth += 1;
+    }
+  }
+
+  private void insertHorizontalSeams(int[]... seamsToAdd) {
+    SeamAdjuster upscalingSeamAdjuster = new FenwickSeamAdjuster(imageHeight);
+    for (int[] seam : seamsToAdd) {
+      if (seamsToAdd.length > 1) {
+        upscalingSeamAdjuster.adjustPositionsExclusive(seam);
+      }
+      recordInsertedSeam(seam, false);
+      image.insertHorizontalSeam(seam);
+      imageHeight += 1;
+    }
+  }
+
+  @Override
+  public void resize(int newWidth, int newHeight, Mask areaToProtect) {
+    applyMask(areaToProtect, maskValue);
+    resize(newWidth, newHeight);
+  }
+
+  @Override
+  public void removeArea(Mask areaToRemove) {
+    applyMask(areaToRemove, -maskValue);
+
+    int horzToRemove = areaToRemove.getMaxX() - areaToRemove.getMinX() + 1;
+    int vertToRemove = areaToRemove.getMaxY() - areaToRemove.getMinY() + 1;
+
+    startAreaRemoval(image.getMaskCount());
+    while (image.hasMask()) {
+      if (horzToRemove > vertToRemove) {
+        removeHorizontalSeam(findMinimumHorizontalSeam(image));
+        horzToRemove -= 1;
+      }
+      else {
+        removeVerticalSeam(findMinimumVerticalSeam(image));
+        vertToRemove -= 1;
+      }
+      updateAreaRemovalProgress(image.getMaskCount());
+    }
+  }
+
+  @Override
+  public BufferedImage getCurrentImage() {
+    return image.toBufferedImage(BufferedImageType);
+  }
+
+  @Override
+  public BufferedImage getCurrentEnergyMap() {
+    image.computeEnergyMap(energyMapMaker);
+    int maxEnergy = 0;
+    for (int y = 0; y < imageHeight; y += 1) {
+      for (int x = 0; x < imageWidth; x += 1) {
+        maxEnergy = Math.max(maxEnergy, image.getEnergyMapEnergy(x, y));
+      }
+    }
+
+    BufferedImage toReturn = new BufferedImage(imageWidth, imageHeight, BufferedImageType);
+    for (int y = 0; y < imageHeight; y += 1) {
+      for (int x = 0; x < imageWidth; x += 1) {
+        int currentEnergy = Math.max(0, image.getEnergyMapEnergy(x, y));
+        toReturn.setRGB(x, y, Color.HSBtoRGB(0, 0, (float)currentEnergy / maxEnergy));
+      }
+    }
+    return toReturn;
+  }
+
+  @Override
+  public BufferedImage getCurrentCostMatrix() {
+    image.computeEnergyMap(energyMapMaker);
+    image.computeHorizontalCostMatrix(horizontalCostMatrix);
+    int maxCost = 0;
+    for (int y = 0; y < imageHeight; y += 1) {
+      for (int x = 0; x < imageWidth; x += 1) {
+        maxCost = Math.max(maxCost, image.getCostMatrixEnergy(x, y));
+      }
+    }
+
+    BufferedImage toReturn = new BufferedImage(imageWidth, imageHeight, BufferedImageType);
+    for (int y = 0; y < imageHeight; y += 1) {
+      for (int x = 0; x < imageWidth; x += 1) {
+        int currentCost = Math.max(0, image.getCostMatrixEnergy(x, y));
+        toReturn.setRGB(x, y, Color.HSBtoRGB(0, 0, (float)currentCost / maxCost));
+      }
+    }
+    return toReturn;
+  }
+}
@@ -0,0 +1,157 @@
+package seammanipulators;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Grid of fixed size cells kept in a memory mapped file rather than on the heap, cell (column,
+ * row) at cell {@code row * stride + column}. The file is mapped once, in segments of whole rows
+ * of at most a gigabyte each, so rasters far larger than the heap - or than physical memory - can
+ * be read and written a row at a time, with the operating system paging the file in and out.
+ */
+class MappedRaster implements Closeable {
+
+  private static final long maxSegmentBytes = 1L << 30;
+
+  private final Path filePath;
+
+  private final FileChannel channel;
+
+  private final MappedByteBuffer[] segments;
+
+  private final int stride;
+
+  private final int cellBytes;
+
+  private final int segmentRows;
+
+  /**
+   * Creates the file at the given {@param filePath} and maps it, every cell starting at 0.
+   *
+   * @param filePath file path of the raster's file, which must not exist yet
+   * @param rows number of rows in the raster
+   * @param stride number of cells in each row
+   * @param cellBytes bytes in each cell
+   * @throws IOException if the file can't be created or mapped
+   */
+  MappedRaster(Path filePath, int rows, int stride, int cellBytes) throws IOException {
+    if (filePath == null) {
+      throw new IllegalArgumentException("Given file path can't be null!");
+    }
+    else if (rows < 1 || stride < 1 || cellBytes < 1) {
+      throw new IllegalArgumentException("Given dimensions must be at least 1!");
+    }
+
+    long rowBytes = (long)stride * cellBytes;
+    if (rowBytes > maxSegmentBytes) {
+      throw new IllegalArgumentException("Given rows are too long to map!");
+    }
+    this.filePath = filePath;
+    this.stride = stride;
+    this.cellBytes = cellBytes;
+    segmentRows = (int)Math.min(rows, maxSegmentBytes / rowBytes);
+
+    channel = FileChannel.open(filePath, StandardOpenOption.CREATE_NEW, StandardOpenOption.READ,
+        StandardOpenOption.WRITE);
+    segments = new MappedByteBuffer[(rows + segmentRows - 1) / segmentRows];
+    for (int i = 0; i < segments.length; i += 1) {
+      int firstRow = i * segmentRows;
+      int lastRow = Math.min(rows, firstRow + segmentRows);
+      segments[i] = channel.map(FileChannel.MapMode.READ_WRITE, firstRow * rowBytes,
+          (lastRow - firstRow) * rowBytes);
+    }
+  }
+
+  int getStride() {
+    return stride;
+  }
+
+  private MappedByteBuffer getSegment(int row) {
+    return segments[row / segmentRows];
+  }
+
+  private int getOffset(int row, int column) {
+    return ((row % segmentRows) * stride + column) * cellBytes;
+  }
+
+  int getInt(int row, int column) {
+    return getSegment(row).getInt(getOffset(row, column));
+  }
+
+  void putInt(int row, int column, int value) {
+    getSegment(row).putInt(getOffset(row, column), value);
+  }
+
+  double getDouble(int row, int column) {
+    return getSegment(row).getDouble(getOffset(row, column));
+  }
+
+  void putDouble(int row, int column, double value) {
+    getSegment(row).putDouble(getOffset(row, column), value);
+  }
+
+  byte getByte(int row, int column) {
+    return getSegment(row).get(getOffset(row, column));
+  }
+
+  void putByte(int row, int column, byte value) {
+    getSegment(row).put(getOffset(row, column), value);
+  }
+
+  /**
+   * Copies the given number of int cells of the given row, from the given column on, into the
+   * given array.
+   */
+  void getInts(int row, int column, int[] destination, int offset, int length) {
+    MappedByteBuffer segment = getSegment(row);
+    int position = getOffset(row, column);
+    for (int i = 0; i < length; i += 1) {
+      destination[offset + i] = segment.getInt(position + 4 * i);
+    }
+  }
+
+  /**
+   * Copies the given number of ints from the given array into the given row, from the given column
+   * on.
+   */
+  void putInts(int row, int column, int[] source, int offset, int length) {
+    MappedByteBuffer segment = getSegment(row);
+    int position = getOffset(row, column);
+    for (int i = 0; i < length; i += 1) {
+      segment.putInt(position + 4 * i, source[offset + i]);
+    }
+  }
+
+  /**
+   * Shifts the cells of the given row from {@code column + 1} up to {@param rowLength} one cell to
+   * the left, overwriting the cell at {@param column}.
+   *
+   * @param buffer scratch space of at least {@code rowLength * cellBytes} bytes
+   */
+  void removeCell(int row, int column, int rowLength, byte[] buffer) {
+    MappedByteBuffer segment = getSegment(row).duplicate();
+    int position = getOffset(row, column);
+    int toMove = (rowLength - column - 1) * cellBytes;
+    segment.position(position + cellBytes);
+    segment.get(buffer, 0, toMove);
+    segment.position(position);
+    segment.put(buffer, 0, toMove);
+  }
+
+  /**
+   * Unmaps the raster, as far as the garbage collector allows, and deletes its file.
+   */
+  @Override
+  public void close() throws IOException {
+    for (int i = 0; i < segments.length; i += 1) {
+      segments[i] = null;
+    }
+    channel.close();
+    Files.deleteIfExists(filePath);
+  }
+}
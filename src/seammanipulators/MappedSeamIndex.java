@@ -0,0 +1,273 @@
+package seammanipulators;
+
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.zip.CRC32;
+import seams.LoggedSeam;
+
+/**
+ * SeamIndex saved by {@link SeamIndex#write(Path)} and memory mapped from disk, so it can carve the
+ * image it was made from without finding its seams again or loading the index onto the heap. Any
+ * number of processes can map the same file and share its pages.
+ *
+ * The file is big-endian and laid out as:
+ * <pre>
+ *   int    magic number, "SIDX"
+ *   int    format version
+ *   int    width of the source image
+ *   int    height of the source image
+ *   int    BufferedImage type of the source image
+ *   int    bytes per removal step, 2 if both dimensions are at most 65536 and 4 otherwise
+ *   long   CRC32 of the source image's ARGB pixels, row by row
+ *   step   vertical removal step of every pixel, row by row
+ *   step   horizontal removal step of every pixel, row by row
+ *   seam   each removed vertical seam, in order of removal
+ *   seam   each removed horizontal seam, in order of removal
+ * </pre>
+ * A seam is its int position in the first row (or column) followed by the offset of every other
+ * row's position from the one before, 2 bits each and 4 to a byte starting from the low bits - 0
+ * for -1, 1 for 0 and 2 for +1 - padded to a whole byte. Positions are those in the carved image
+ * the seam was removed from, as with LoggedSeams.
+ */
+public class MappedSeamIndex {
+
+  static final int MAGIC = 0x53494458;
+
+  static final int VERSION = 1;
+
+  static final int HEADER_BYTES = 32;
+
+  private final MappedByteBuffer buffer;
+
+  private final int width;
+
+  private final int height;
+
+  private final int bufferedImageType;
+
+  private final int stepBytes;
+
+  private final long sourceChecksum;
+
+  private final int verticalOrderOffset;
+
+  private final int horizontalOrderOffset;
+
+  private final int verticalSeamsOffset;
+
+  private final int horizontalSeamsOffset;
+
+  /**
+   * Maps the seam index at the given {@param filePath} into memory.
+   *
+   * @param filePath file path of the seam index
+   * @throws IOException if the given {@param filePath} can't be read or isn't a seam index
+   */
+  public MappedSeamIndex(Path filePath) throws IOException {
+    if (filePath == null) {
+      throw new IllegalArgumentException("Given file path can't be null!");
+    }
+
+    try (FileChannel channel = FileChannel.open(filePath, StandardOpenOption.READ)) {
+      if (channel.size() < HEADER_BYTES || channel.size() > Integer.MAX_VALUE) {
+        throw new IOException("Given file isn't a seam index that can be mapped!");
+      }
+      buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+    }
+
+    if (buffer.getInt(0) != MAGIC) {
+      throw new IOException("Given file isn't a seam index!");
+    }
+    else if (buffer.getInt(4) != VERSION) {
+      throw new IOException("Given seam index has an unsupported version!");
+    }
+    width = buffer.getInt(8);
+    height = buffer.getInt(12);
+    bufferedImageType = buffer.getInt(16);
+    stepBytes = buffer.getInt(20);
+    sourceChecksum = buffer.getLong(24);
+    if (width < 1 || height < 1 || (stepBytes != 2 && stepBytes != 4)) {
+      throw new IOException("Given seam index has a malformed header!");
+    }
+
+    long orderBytes = (long)width * height * stepBytes;
+    long verticalSeamBytes = seamBytes(height) * (width - 1);
+    long horizontalSeamBytes = seamBytes(width) * (height - 1);
+    if (HEADER_BYTES + 2 * orderBytes + verticalSeamBytes + horizontalSeamBytes
+        != buffer.capacity()) {
+      throw new IOException("Given seam index is truncated!");
+    }
+    verticalOrderOffset = HEADER_BYTES;
+    horizontalOrderOffset = (int)(verticalOrderOffset + orderBytes);
+    verticalSeamsOffset = (int)(horizontalOrderOffset + orderBytes);
+    horizontalSeamsOffset = (int)(verticalSeamsOffset + verticalSeamBytes);
+  }
+
+  /**
+   * @return bytes taken by a stored seam spanning the given number of rows or columns
+   */
+  static long seamBytes(int seamLength) {
+    return 4 + (seamLength + 2) / 4;
+  }
+
+  /**
+   * @return bytes per removal step for an image of the given dimensions
+   */
+  static int stepBytes(int width, int height) {
+    return Math.max(width, height) <= 65536 ? 2 : 4;
+  }
+
+  /**
+   * @return CRC32 of the given ARGB pixels
+   */
+  static long checksum(int[] pixels) {
+    CRC32 crc = new CRC32();
+    byte[] bytes = new byte[4 * Math.min(pixels.length, 4096)];
+    int idx = 0;
+    while (idx < pixels.length) {
+      int count = Math.min(pixels.length - idx, bytes.length / 4);
+      for (int i = 0; i < count; i += 1) {
+        int pixel = pixels[idx + i];
+        bytes[4 * i] = (byte)(pixel >>> 24);
+        bytes[4 * i + 1] = (byte)(pixel >>> 16);
+        bytes[4 * i + 2] = (byte)(pixel >>> 8);
+        bytes[4 * i + 3] = (byte)pixel;
+      }
+      crc.update(bytes, 0, 4 * count);
+      idx += count;
+    }
+    return crc.getValue();
+  }
+
+  public int getWidth() {
+    return width;
+  }
+
+  public int getHeight() {
+    return height;
+  }
+
+  /**
+   * @return the given image's pixels, if it is the image the index was made from
+   * @throws IllegalArgumentException if the given {@param sourceImage} is null or isn't the image
+   *                                  the index was made from
+   */
+  private int[] getSourcePixels(BufferedImage sourceImage) {
+    if (sourceImage == null) {
+      throw new IllegalArgumentException("Given image can't be null!");
+    }
+    else if (sourceImage.getWidth() != width || sourceImage.getHeight() != height) {
+      throw new IllegalArgumentException("Given image must be the image the index was made from!");
+    }
+
+    int[] pixels = sourceImage.getRGB(0, 0, width, height, null, 0, width);
+    if (checksum(pixels) != sourceChecksum) {
+      throw new IllegalArgumentException("Given image must be the image the index was made from!");
+    }
+    return pixels;
+  }
+
+  private int getStep(int orderOffset, int idx) {
+    if (stepBytes == 2) {
+      return buffer.getShort(orderOffset + 2 * idx) & 0xFFFF;
+    }
+    return buffer.getInt(orderOffset + 4 * idx);
+  }
+
+  /**
+   * Carves the given image down to the given width, keeping the pixels of each row removed last
+   * by vertical seams.
+   *
+   * @param sourceImage image the index was made from
+   * @param newWidth width to carve the image to, at most the image's width
+   * @return the carved image
+   */
+  public BufferedImage getImageOfWidth(BufferedImage sourceImage, int newWidth) {
+    if (newWidth < 1 || newWidth > width) {
+      throw new IllegalArgumentException("Given width must be between 1 and the image's width!");
+    }
+    int[] pixels = getSourcePixels(sourceImage);
+
+    int firstKept = width - newWidth;
+    int[] carvedPixels = new int[newWidth * height];
+    int carvedIdx = 0;
+    for (int idx = 0; idx < pixels.length; idx += 1) {
+      if (getStep(verticalOrderOffset, idx) >= firstKept) {
+        carvedPixels[carvedIdx] = pixels[idx];
+        carvedIdx += 1;
+      }
+    }
+
+    BufferedImage toReturn = new BufferedImage(newWidth, height, bufferedImageType);
+    toReturn.setRGB(0, 0, newWidth, height, carvedPixels, 0, newWidth);
+    return toReturn;
+  }
+
+  /**
+   * Carves the given image down to the given height, keeping the pixels of each column removed
+   * last by horizontal seams.
+   *
+   * @param sourceImage image the index was made from
+   * @param newHeight height to carve the image to, at most the image's height
+   * @return the carved image
+   */
+  public BufferedImage getImageOfHeight(BufferedImage sourceImage, int newHeight) {
+    if (newHeight < 1 || newHeight > height) {
+      throw new IllegalArgumentException("Given height must be between 1 and the image's height!");
+    }
+    int[] pixels = getSourcePixels(sourceImage);
+
+    int firstKept = height - newHeight;
+    int[] carvedPixels = new int[width * newHeight];
+    int[] carvedRows = new int[width];
+    for (int y = 0; y < height; y += 1) {
+      for (int x = 0; x < width; x += 1) {
+        int idx = y * width + x;
+        if (getStep(horizontalOrderOffset, idx) >= firstKept) {
+          carvedPixels[carvedRows[x] * width + x] = pixels[idx];
+          carvedRows[x] += 1;
+        }
+      }
+    }
+
+    BufferedImage toReturn = new BufferedImage(width, newHeight, bufferedImageType);
+    toReturn.setRGB(0, 0, width, newHeight, carvedPixels, 0, width);
+    return toReturn;
+  }
+
+  /**
+   * @param step order the seam was removed in, from 0
+   * @return the vertical seam removed at the given step
+   */
+  public LoggedSeam getVerticalSeam(int step) {
+    if (step < 0 || step >= width - 1) {
+      throw new IllegalArgumentException("Given step must be less than the image's width - 1!");
+    }
+    return readSeam(verticalSeamsOffset + (int)(step * seamBytes(height)), height, true);
+  }
+
+  /**
+   * @param step order the seam was removed in, from 0
+   * @return the horizontal seam removed at the given step
+   */
+  public LoggedSeam getHorizontalSeam(int step) {
+    if (step < 0 || step >= height - 1) {
+      throw new IllegalArgumentException("Given step must be less than the image's height - 1!");
+    }
+    return readSeam(horizontalSeamsOffset + (int)(step * seamBytes(width)), width, false);
+  }
+
+  private LoggedSeam readSeam(int offset, int seamLength, boolean isVerticalSeam) {
+    int[] seam = new int[seamLength];
+    seam[0] = buffer.getInt(offset);
+    for (int i = 1; i < seamLength; i += 1) {
+      int packed = buffer.get(offset + 4 + (i - 1) / 4);
+      seam[i] = seam[i - 1] + ((packed >> (2 * ((i - 1) % 4))) & 3) - 1;
+    }
+    return new LoggedSeam(seam, isVerticalSeam, false);
+  }
+}
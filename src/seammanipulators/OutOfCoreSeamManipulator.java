@@ -0,0 +1,377 @@
+package seammanipulators;
+
+import energymaps.EnergyMapMaker;
+import energymaps.PackedEnergyMapMaker;
+import java.awt.Rectangle;
+import java.awt.image.BufferedImage;
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Iterator;
+import javax.imageio.ImageIO;
+import javax.imageio.ImageReadParam;
+import javax.imageio.ImageReader;
+import javax.imageio.stream.ImageInputStream;
+import pixel.PackedColors;
+
+/**
+ * Shrinks images too large to hold in memory. The image's pixels, the energy of every pixel and a
+ * one byte backpointer per pixel - which of the three pixels above each pixel its least cost seam
+ * comes from - are kept in memory mapped files in a work directory, and every pass over them works
+ * through the image a band of rows at a time, so only a band and a few rows of costs are ever held
+ * on the heap however large the image is.
+ *
+ * Finds the same vertical seams as the ArraySeamManipulator, only recomputing the energies of the
+ * pixels next to the last seam removed. Horizontal seams are found as vertical seams of the
+ * transposed image, after every vertical seam has been removed, so they generally differ from
+ * those of the other seam manipulators, default settings included. Energies are computed on the
+ * transposed pixels, and the AverageSurroundingGradient leaves out the pixel below each pixel,
+ * which once transposed is the pixel to its right rather than the one below it.
+ */
+public class OutOfCoreSeamManipulator implements Closeable {
+
+  /**
+   * Cost of a pixel outside of the image, matching that of a BorderPixel.
+   */
+  private static final double borderEnergy = Integer.MAX_VALUE;
+
+  private final PackedEnergyMapMaker energyMapMaker;
+
+  private final Path workDirectory;
+
+  private final int bandHeight;
+
+  private MappedRaster pixels;
+
+  private MappedRaster energies;
+
+  private MappedRaster backpointers;
+
+  private int width;
+
+  private int height;
+
+  private int rasterCount = 0;
+
+  /**
+   * Last vertical seam removed, if the energies of every other pixel are still current, or null if
+   * every energy must be recomputed.
+   */
+  private int[] lastRemovedSeam;
+
+  private boolean energiesComputed = false;
+
+  /**
+   * Copies the image at the given {@param inputFilePath} into a new work directory inside the
+   * given {@param workDirectory}, decoding a band of rows at a time.
+   *
+   * @param inputFilePath file path of the image to carve
+   * @param workDirectory directory to keep the image's mapped files in while carving
+   * @param energyMapMaker energy function to use, must also be a PackedEnergyMapMaker
+   * @param bandHeight number of rows to hold on the heap at once
+   * @throws IllegalArgumentException if the given {@param energyMapMaker} is null or can't work on
+   *                                  packed images, or the given {@param bandHeight} is less than 1
+   * @throws IOException if the given {@param inputFilePath} does not exist or can't be read, or
+   *                     the work directory can't be written to
+   */
+  public OutOfCoreSeamManipulator(Path inputFilePath, Path workDirectory,
+      EnergyMapMaker energyMapMaker, int bandHeight) throws IOException {
+    AbstractSeamManipulator.validFilePath(inputFilePath);
+    AbstractSeamManipulator.validFilePath(workDirectory);
+    if (energyMapMaker == null) {
+      throw new IllegalArgumentException("Given energy map can't be null!");
+    }
+    else if (!(energyMapMaker instanceof PackedEnergyMapMaker)) {
+      throw new IllegalArgumentException("Given energy map must be able to work on packed "
+          + "images!");
+    }
+    else if (bandHeight < 1) {
+      throw new IllegalArgumentException("Given band height must be at least 1!");
+    }
+    this.energyMapMaker = (PackedEnergyMapMaker)energyMapMaker;
+    this.bandHeight = bandHeight;
+    this.workDirectory = Files.createTempDirectory(workDirectory, "carving");
+
+    try {
+      loadImage(inputFilePath);
+    }
+    catch (IOException | RuntimeException e) {
+      close();
+      throw e;
+    }
+  }
+
+  private void loadImage(Path inputFilePath) throws IOException {
+    try (ImageInputStream in = ImageIO.createImageInputStream(inputFilePath.toFile())) {
+      Iterator<ImageReader> readers = ImageIO.getImageReaders(in);
+      if (!readers.hasNext()) {
+        throw new IOException("Given file path isn't an image that can be read!");
+      }
+      ImageReader reader = readers.next();
+      try {
+        reader.setInput(in);
+        width = reader.getWidth(0);
+        height = reader.getHeight(0);
+        pixels = new MappedRaster(nextRasterPath("pixels"), height, width, 4);
+        createEnergyRasters(height, width);
+
+        int[] band = new int[bandHeight * width];
+        for (int bandStart = 0; bandStart < height; bandStart += bandHeight) {
+          int rows = Math.min(bandHeight, height - bandStart);
+          ImageReadParam param = reader.getDefaultReadParam();
+          param.setSourceRegion(new Rectangle(0, bandStart, width, rows));
+          BufferedImage bandImage = reader.read(0, param);
+          bandImage.getRGB(0, 0, width, rows, band, 0, width);
+          for (int row = 0; row < rows; row += 1) {
+            for (int x = 0; x < width; x += 1) {
+              band[row * width + x] |= PackedColors.BLACK;
+            }
+            pixels.putInts(bandStart + row, 0, band, row * width, width);
+          }
+        }
+      }
+      finally {
+        reader.dispose();
+      }
+    }
+  }
+
+  /**
+   * Replaces the mapped energies and backpointers with empty ones of the given size.
+   */
+  private void createEnergyRasters(int rows, int stride) throws IOException {
+    closeEnergyRasters();
+    energies = new MappedRaster(nextRasterPath("energies"), rows, stride, 8);
+    backpointers = new MappedRaster(nextRasterPath("backpointers"), rows, stride, 1);
+    energiesComputed = false;
+    lastRemovedSeam = null;
+  }
+
+  private Path nextRasterPath(String name) {
+    rasterCount += 1;
+    return workDirectory.resolve(name + rasterCount + ".raw");
+  }
+
+  private void closeEnergyRasters() throws IOException {
+    if (energies != null) {
+      energies.close();
+      backpointers.close();
+    }
+  }
+
+  public int getWidth() {
+    return width;
+  }
+
+  public int getHeight() {
+    return height;
+  }
+
+  /**
+   * Shrinks the image to the given size, first removing every vertical seam needed then every
+   * horizontal seam.
+   *
+   * @param newWidth width to shrink the image to, at most its current width
+   * @param newHeight height to shrink the image to, at most its current height
+   * @throws IOException if the mapped files can't be written to
+   */
+  public void resize(int newWidth, int newHeight) throws IOException {
+    if (newWidth < 1 || newWidth > width) {
+      throw new IllegalArgumentException("Given new width must be between 1 and the current "
+          + "width!");
+    }
+    else if (newHeight < 1 || newHeight > height) {
+      throw new IllegalArgumentException("Given new height must be between 1 and the current "
+          + "height!");
+    }
+
+    while (width > newWidth) {
+      removeVerticalSeam(findMinimumVerticalSeam());
+    }
+
+    if (height > newHeight) {
+      transpose();
+      while (width > newHeight) {
+        removeVerticalSeam(findMinimumVerticalSeam());
+      }
+      transpose();
+    }
+  }
+
+  /**
+   * Range of columns of the given row whose energies went out of date when the last seam was
+   * removed - those whose neighbors in the rows around it were on either side of the seam.
+   *
+   * @return first column out of date and the column after the last, or the whole row if every
+   *         energy is out of date
+   */
+  private int[] getOutOfDateColumns(int row) {
+    if (!energiesComputed) {
+      return new int[] {0, width};
+    }
+    else if (lastRemovedSeam == null) {
+      return new int[] {0, 0};
+    }
+
+    int first = lastRemovedSeam[row];
+    int last = lastRemovedSeam[row];
+    for (int nearRow = Math.max(0, row - 1); nearRow <= Math.min(height - 1, row + 1);
+        nearRow += 1) {
+      first = Math.min(first, lastRemovedSeam[nearRow]);
+      last = Math.max(last, lastRemovedSeam[nearRow]);
+    }
+    return new int[] {Math.max(0, first - 1), Math.min(width, last + 1)};
+  }
+
+  /**
+   * Brings the energy map up to date and computes the least cost of a vertical seam reaching each
+   * pixel, a band of rows at a time, keeping only a backpointer per pixel, then traces the least
+   * cost seam back up the backpointers. Ties are broken the same way as the PackedImage.
+   *
+   * @return x coordinate of the seam in each row
+   */
+  private int[] findMinimumVerticalSeam() {
+    int[] band = new int[(bandHeight + 2) * width];
+    double[] rowEnergies = new double[width];
+    double[] previousCosts = new double[width];
+    double[] currentCosts = new double[width];
+
+    for (int bandStart = 0; bandStart < height; bandStart += bandHeight) {
+      int bandEnd = Math.min(height, bandStart + bandHeight);
+      // The rows either side of the band are needed for the energies of its first and last rows
+      int haloStart = Math.max(0, bandStart - 1);
+      int haloEnd = Math.min(height, bandEnd + 1);
+      for (int row = haloStart; row < haloEnd; row += 1) {
+        pixels.getInts(row, 0, band, (row - haloStart) * width, width);
+      }
+
+      for (int row = bandStart; row < bandEnd; row += 1) {
+        int[] outOfDate = getOutOfDateColumns(row);
+        if (outOfDate[0] < outOfDate[1]) {
+          energyMapMaker.computeEnergy(band, width, width, haloEnd - haloStart, row - haloStart,
+              outOfDate[0], outOfDate[1], rowEnergies);
+          for (int x = outOfDate[0]; x < outOfDate[1]; x += 1) {
+            energies.putDouble(row, x, rowEnergies[x]);
+          }
+        }
+
+        for (int x = 0; x < width; x += 1) {
+          double energy = energies.getDouble(row, x);
+          if (row == 0) {
+            currentCosts[x] = energy;
+            continue;
+          }
+
+          double beforeCost = x > 0 ? previousCosts[x - 1] : borderEnergy;
+          double centerCost = previousCosts[x];
+          double afterCost = x < width - 1 ? previousCosts[x + 1] : borderEnergy;
+          double minCost = Math.min(beforeCost, Math.min(centerCost, afterCost));
+
+          byte backpointer = 0;
+          if (Double.compare(minCost, beforeCost) == 0) {
+            backpointer = -1;
+          }
+          else if (Double.compare(minCost, afterCost) == 0) {
+            backpointer = 1;
+          }
+          backpointers.putByte(row, x, backpointer);
+          currentCosts[x] = energy + minCost;
+        }
+
+        double[] swap = previousCosts;
+        previousCosts = currentCosts;
+        currentCosts = swap;
+      }
+    }
+    energiesComputed = true;
+    lastRemovedSeam = null;
+
+    int[] seam = new int[height];
+    int currentX = -1;
+    double currentCost = borderEnergy;
+    for (int x = 0; x < width; x += 1) {
+      if (previousCosts[x] < currentCost) {
+        currentX = x;
+        currentCost = previousCosts[x];
+      }
+    }
+    seam[height - 1] = currentX;
+    for (int row = height - 1; row > 0; row -= 1) {
+      seam[row - 1] = seam[row] + backpointers.getByte(row, seam[row]);
+    }
+    return seam;
+  }
+
+  private void removeVerticalSeam(int[] seam) {
+    byte[] buffer = new byte[width * 8];
+    for (int row = 0; row < height; row += 1) {
+      pixels.removeCell(row, seam[row], width, buffer);
+      energies.removeCell(row, seam[row], width, buffer);
+    }
+    width -= 1;
+    lastRemovedSeam = seam;
+  }
+
+  /**
+   * Swaps the rows and columns of the image, copying it into new mapped files a band of rows at a
+   * time. Every energy is recomputed afterwards.
+   */
+  private void transpose() throws IOException {
+    MappedRaster transposed = new MappedRaster(nextRasterPath("transposed"), width, height, 4);
+    int[] band = new int[bandHeight * width];
+    int[] column = new int[bandHeight];
+    for (int bandStart = 0; bandStart < height; bandStart += bandHeight) {
+      int rows = Math.min(bandHeight, height - bandStart);
+      for (int row = 0; row < rows; row += 1) {
+        pixels.getInts(bandStart + row, 0, band, row * width, width);
+      }
+      for (int x = 0; x < width; x += 1) {
+        for (int row = 0; row < rows; row += 1) {
+          column[row] = band[row * width + x];
+        }
+        transposed.putInts(x, bandStart, column, 0, rows);
+      }
+    }
+
+    pixels.close();
+    pixels = transposed;
+    int transposedWidth = height;
+    height = width;
+    width = transposedWidth;
+    createEnergyRasters(height, width);
+  }
+
+  /**
+   * Saves the current image as a PNG, a row at a time.
+   *
+   * @param filePath file path to save the image to
+   * @throws IOException if the image can't be written to the given {@param filePath}
+   */
+  public void saveCurrentImage(Path filePath) throws IOException {
+    if (filePath == null) {
+      throw new IllegalArgumentException("Given file path can't be null!");
+    }
+    AbstractSeamManipulator.validFilePath(filePath.toAbsolutePath().getParent());
+
+    int[] row = new int[width];
+    try (StreamingPngWriter writer = new StreamingPngWriter(filePath, width, height)) {
+      for (int y = 0; y < height; y += 1) {
+        pixels.getInts(y, 0, row, 0, width);
+        writer.writeRow(row, 0);
+      }
+    }
+  }
+
+  /**
+   * Deletes the mapped files and the work directory.
+   */
+  @Override
+  public void close() throws IOException {
+    if (pixels != null) {
+      pixels.close();
+    }
+    closeEnergyRasters();
+    Files.deleteIfExists(workDirectory);
+  }
+}
@@ -0,0 +1,60 @@
+package seammanipulators;
+
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.image.BufferedImage;
+import pixel.PackedImage;
+
+/**
+ * A single video frame reused for every state of a carving process. Each state is drawn onto its
+ * upper left corner, cropped if it doesn't fit, and the rest of the frame is filled black.
+ */
+class PaddedFrame {
+
+  private final BufferedImage frame;
+
+  private final Graphics2D frameGraphics;
+
+  /**
+   * @param width width of the frame, rounded up to be even as the video encoder needs
+   * @param height height of the frame, rounded up to be even as the video encoder needs
+   * @throws IllegalArgumentException if the given {@param width} or {@param height} is less than 1
+   */
+  PaddedFrame(int width, int height) {
+    if (width < 1 || height < 1) {
+      throw new IllegalArgumentException("Given frame width and height must be at least 1!");
+    }
+
+    frame = new BufferedImage(width + width % 2, height + height % 2,
+        BufferedImage.TYPE_3BYTE_BGR);
+    frameGraphics = frame.createGraphics();
+    frameGraphics.setColor(Color.BLACK);
+  }
+
+  /**
+   * Draws the given state onto the frame.
+   *
+   * @param image state to draw
+   * @return the frame, only valid until the next state is drawn
+   */
+  BufferedImage draw(PackedImage image) {
+    if (image == null) {
+      throw new IllegalArgumentException("Given image can't be null!");
+    }
+
+    int width = image.getWidth();
+    int height = image.getHeight();
+    if (width < frame.getWidth()) {
+      frameGraphics.fillRect(width, 0, frame.getWidth() - width, frame.getHeight());
+    }
+    if (height < frame.getHeight()) {
+      frameGraphics.fillRect(0, height, frame.getWidth(), frame.getHeight() - height);
+    }
+    image.drawOnto(frame);
+    return frame;
+  }
+
+  void dispose() {
+    frameGraphics.dispose();
+  }
+}
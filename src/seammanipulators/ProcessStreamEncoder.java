@@ -0,0 +1,168 @@
+package seammanipulators;
+
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.nio.file.Path;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import org.jcodec.api.awt.AWTSequenceEncoder;
+import org.jcodec.common.io.NIOUtils;
+import org.jcodec.common.io.SeekableByteChannel;
+import org.jcodec.common.model.Rational;
+import pixel.PackedImage;
+import seams.LoggedSeam;
+
+/**
+ * Encodes the process of carving an image into a video while the carving is still going on. Each
+ * seam removed or inserted is handed through a bounded queue to an encoder thread, which repeats
+ * the change on its own copy of the image and encodes the result into a single reused frame. The
+ * carving thread only waits on the encoder when the queue is full.
+ */
+class ProcessStreamEncoder {
+
+  /**
+   * Most seams waiting to be encoded before the carving thread waits for the encoder to catch up.
+   */
+  private static final int queueCapacity = 256;
+
+  /**
+   * Marks the end of the process in the queue.
+   */
+  private static final LoggedSeam endOfProcess = new LoggedSeam(new int[]{0}, true, false);
+
+  private final BlockingQueue<LoggedSeam> seams = new ArrayBlockingQueue<>(queueCapacity);
+
+  private final PackedImage image;
+
+  private final PaddedFrame frame;
+
+  private final SeekableByteChannel out;
+
+  private final AWTSequenceEncoder encoder;
+
+  private final Thread encoderThread;
+
+  /**
+   * First exception the encoder thread ran into, after which it only drains the queue.
+   */
+  private volatile Exception failure;
+
+  /**
+   * Starts encoding the process, from the given starting image, to the given file.
+   *
+   * @param startingImage first frame of the process
+   * @param filePath file path to save the video to
+   * @param frameWidth width of the video, rounded up to be even; wider states are cropped
+   * @param frameHeight height of the video, rounded up to be even; taller states are cropped
+   * @throws IOException if the given {@param filePath} can't be written to
+   */
+  ProcessStreamEncoder(BufferedImage startingImage, Path filePath, int frameWidth, int frameHeight)
+      throws IOException {
+    if (startingImage == null) {
+      throw new IllegalArgumentException("Given image can't be null!");
+    }
+    else if (filePath == null) {
+      throw new IllegalArgumentException("Given file path can't be null!");
+    }
+
+    frame = new PaddedFrame(frameWidth, frameHeight);
+    image = new PackedImage(startingImage);
+
+    out = NIOUtils.writableFileChannel(filePath.toString());
+    try {
+      encoder = new AWTSequenceEncoder(out, Rational.R(25, 1));
+    }
+    catch (IOException e) {
+      NIOUtils.closeQuietly(out);
+      throw e;
+    }
+
+    encoderThread = new Thread(this::encode, "process-stream-encoder");
+    encoderThread.setDaemon(true);
+    encoderThread.start();
+  }
+
+  /**
+   * Hands the given seam to the encoder thread, waiting for room in the queue if it is full.
+   *
+   * @param loggedSeam seam just removed from or inserted into the image
+   */
+  void add(LoggedSeam loggedSeam) {
+    if (loggedSeam == null) {
+      throw new IllegalArgumentException("Given seam can't be null!");
+    }
+
+    try {
+      seams.put(loggedSeam);
+    }
+    catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new IllegalStateException("Interrupted while waiting to encode the process!", e);
+    }
+  }
+
+  /**
+   * Waits for every seam added so far to be encoded, then finishes the video.
+   *
+   * @throws IOException if any frame of the video could not be encoded or written
+   */
+  void finish() throws IOException {
+    try {
+      seams.put(endOfProcess);
+      encoderThread.join();
+    }
+    catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new InterruptedIOException("Interrupted while waiting to encode the process!");
+    }
+    finally {
+      frame.dispose();
+    }
+
+    if (failure != null) {
+      throw new IOException("Could not encode the process!", failure);
+    }
+  }
+
+  private void encode() {
+    boolean reachedEnd = false;
+    try {
+      encodeCurrentState();
+      for (LoggedSeam loggedSeam = takeSeam(); loggedSeam != endOfProcess;
+          loggedSeam = takeSeam()) {
+        if (failure == null && loggedSeam != null) {
+          loggedSeam.applyTo(image);
+          encodeCurrentState();
+        }
+      }
+      reachedEnd = true;
+      if (failure == null) {
+        encoder.finish();
+      }
+    }
+    catch (IOException | RuntimeException e) {
+      failure = e;
+      // Keep draining so the carving thread never waits on a full queue
+      while (!reachedEnd && takeSeam() != endOfProcess) {
+      }
+    }
+    finally {
+      NIOUtils.closeQuietly(out);
+    }
+  }
+
+  private LoggedSeam takeSeam() {
+    try {
+      return seams.take();
+    }
+    catch (InterruptedException e) {
+      failure = e;
+      return null;
+    }
+  }
+
+  private void encodeCurrentState() throws IOException {
+    encoder.encodeImage(frame.draw(image));
+  }
+}
@@ -0,0 +1,179 @@
+package seammanipulators;
+
+import energymaps.PackedEnergyMapMaker;
+import pixel.PackedImage;
+import seams.LoggedSeam;
+
+/**
+ * Finds seams coarse to fine, for images too large to search in full for every seam. The image and
+ * its energy map are downsampled once, seams are found in the downsampled image, and each is
+ * refined at full size within a narrow corridor around its upsampled path, so a full size seam
+ * only needs the energy map and cost matrix of its corridor. Each seam found in the downsampled
+ * image stands in for as many full size seams as the scale it was downsampled by, after which it is
+ * removed from the downsampled image and the next is found.
+ *
+ * The downsampled energies are never recomputed, only shifted as seams are removed, so they drift
+ * from those of the full size image near each removed seam. The refined seams are the least cost
+ * seams of their corridors, but not always of the image.
+ */
+class PyramidSeamFinder {
+
+  private final PackedEnergyMapMaker energyMapMaker;
+
+  private final int scale;
+
+  private final int corridorRadius;
+
+  /**
+   * Image the downsampled image was made from, and the size it should be by the next search if
+   * the last seam found was removed from it.
+   */
+  private PackedImage image;
+
+  private int expectedWidth;
+
+  private int expectedHeight;
+
+  private PackedImage coarseImage;
+
+  /**
+   * Seam of the downsampled image the full size seams are being refined from, or null if a new
+   * one must be found.
+   */
+  private LoggedSeam coarseSeam;
+
+  private int seamsLeft;
+
+  /**
+   * @param energyMapMaker energy function to use
+   * @param scale width and height of the block of pixels averaged into each downsampled pixel
+   * @param corridorRadius pixels either side of the upsampled path a full size seam can stray
+   * @throws IllegalArgumentException if the given {@param energyMapMaker} is null, the given
+   *                                  {@param scale} is less than 2 or the given
+   *                                  {@param corridorRadius} is negative
+   */
+  PyramidSeamFinder(PackedEnergyMapMaker energyMapMaker, int scale, int corridorRadius) {
+    if (energyMapMaker == null) {
+      throw new IllegalArgumentException("Given energy map can't be null!");
+    }
+    else if (scale < 2) {
+      throw new IllegalArgumentException("Given scale must be at least 2!");
+    }
+    else if (corridorRadius < 0) {
+      throw new IllegalArgumentException("Given corridor radius can't be negative!");
+    }
+    this.energyMapMaker = energyMapMaker;
+    this.scale = scale;
+    this.corridorRadius = corridorRadius;
+  }
+
+  /**
+   * Finds the next seam to remove from the given image. If both vertical and horizontal seams are
+   * allowed, whichever removes less average energy in the downsampled image is refined. The
+   * downsampled image is remade whenever the given image was changed by anything other than
+   * removing the last seam found.
+   *
+   * @param image image to find the seam in
+   * @param canBeVertical if the seam can be vertical
+   * @param canBeHorizontal if the seam can be horizontal
+   * @return the seam found
+   */
+  LoggedSeam findMinimumSeam(PackedImage image, boolean canBeVertical, boolean canBeHorizontal) {
+    if (image == null) {
+      throw new IllegalArgumentException("Given image can't be null!");
+    }
+    else if (!canBeVertical && !canBeHorizontal) {
+      throw new IllegalArgumentException("Given seam must be allowed to be vertical or "
+          + "horizontal!");
+    }
+
+    if (image != this.image || image.getWidth() != expectedWidth
+        || image.getHeight() != expectedHeight) {
+      this.image = image;
+      image.computeEnergyMap(energyMapMaker);
+      coarseImage = image.downsample(scale);
+      coarseSeam = null;
+    }
+    else if (coarseSeam != null && (seamsLeft == 0
+        || (coarseSeam.isVerticalSeam() ? !canBeVertical : !canBeHorizontal))) {
+      coarseSeam.applyTo(coarseImage);
+      coarseSeam = null;
+    }
+
+    if (coarseSeam == null) {
+      boolean coarseVertical = canBeVertical && coarseImage.getWidth() > 1;
+      boolean coarseHorizontal = canBeHorizontal && coarseImage.getHeight() > 1;
+      if (!coarseVertical && !coarseHorizontal) {
+        // Too small to downsample, so search in full and start over next time
+        this.image = null;
+        image.computeEnergyMap(energyMapMaker);
+        return findLeastCostSeam(image, canBeVertical, canBeHorizontal);
+      }
+      coarseSeam = findLeastCostSeam(coarseImage, coarseVertical, coarseHorizontal);
+      seamsLeft = scale;
+    }
+
+    boolean isVerticalSeam = coarseSeam.isVerticalSeam();
+    int[] corridorCenters = upsample(coarseSeam.getPositions(),
+        isVerticalSeam ? image.getHeight() : image.getWidth(),
+        isVerticalSeam ? image.getWidth() : image.getHeight());
+    int[] seam = isVerticalSeam
+        ? image.findMinimumVerticalSeamInCorridor(energyMapMaker, corridorCenters, corridorRadius)
+        : image.findMinimumHorizontalSeamInCorridor(energyMapMaker, corridorCenters,
+            corridorRadius);
+
+    seamsLeft -= 1;
+    expectedWidth = image.getWidth() - (isVerticalSeam ? 1 : 0);
+    expectedHeight = image.getHeight() - (isVerticalSeam ? 0 : 1);
+    return new LoggedSeam(seam, isVerticalSeam, false);
+  }
+
+  /**
+   * Finds the least cost seam of the given image from its current energy map, choosing between a
+   * vertical and horizontal seam the same way the seam manipulators do.
+   */
+  private static LoggedSeam findLeastCostSeam(PackedImage image, boolean canBeVertical,
+      boolean canBeHorizontal) {
+    int[] verticalSeam = null;
+    double verticalEnergy = 0;
+    if (canBeVertical) {
+      image.computeVerticalCostMatrix();
+      verticalSeam = image.findMinimumVerticalSeam();
+      verticalEnergy = image.getAverageEnergy(verticalSeam, true);
+    }
+    if (canBeHorizontal) {
+      image.computeHorizontalCostMatrix();
+      int[] horizontalSeam = image.findMinimumHorizontalSeam();
+      double horizontalEnergy = image.getAverageEnergy(horizontalSeam, false);
+      if (verticalSeam == null || !(verticalEnergy < horizontalEnergy)) {
+        return new LoggedSeam(horizontalSeam, false, false);
+      }
+    }
+    return new LoggedSeam(verticalSeam, true, false);
+  }
+
+  /**
+   * Scales the given seam of the downsampled image up to full size, interpolating between the
+   * centers of the downsampled rows (or columns) so each position is within one pixel of the one
+   * before.
+   *
+   * @param coarseSeam position of the seam in each downsampled row or column
+   * @param lineCount number of full size rows, or columns, to scale the seam to
+   * @param lineLength width, or height, of the full size image
+   * @return position of the scaled seam in each full size row or column
+   */
+  private int[] upsample(int[] coarseSeam, int lineCount, int lineLength) {
+    int[] centers = new int[lineCount];
+    for (int line = 0; line < lineCount; line += 1) {
+      double coarseLine = Math.max(0, Math.min(coarseSeam.length - 1,
+          (line + 0.5) / scale - 0.5));
+      int before = (int)coarseLine;
+      int after = Math.min(coarseSeam.length - 1, before + 1);
+      double coarsePosn = coarseSeam[before]
+          + (coarseLine - before) * (coarseSeam[after] - coarseSeam[before]);
+      centers[line] = (int)Math.min(lineLength - 1,
+          Math.round(coarsePosn * scale + (scale - 1) / 2.0));
+    }
+    return centers;
+  }
+}
@@ -0,0 +1,358 @@
+package seammanipulators;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.IntBinaryOperator;
+import pixel.PackedColors;
+import seams.LoggedSeam;
+
+/**
+ * Remembers the seams removed by recent resizes, so a resize of an image nearly identical to one
+ * already resized - the next frame of a static shot, or the next photo of a burst - can remove the
+ * same seams again rather than finding every seam from nothing.
+ *
+ * Each image is summarised by a signature: a downsampled grey copy of it, the average brightness
+ * of a grid of up to {@link #samplesPerSide} by {@link #samplesPerSide} pixels spread over each
+ * block of pixels, so making a signature reads a bounded number of pixels per block and computes
+ * no energies. An image matches a cached resize to the same size if it is the same size and the
+ * blocks of the two signatures differ in total by no more than a given fraction of the cached
+ * signature's total brightness. The least recently used resize is evicted once the cache is full.
+ * A cache may be shared between SeamManipulators on different threads.
+ *
+ * Alongside each seam, the cache keeps the average energy the seam had when removed. A matching
+ * resize is only trusted a seam at a time: each seam is only removed again while its energy in
+ * the new image is within a given tolerance of the energy it was cached with, see
+ * {@link Entry#isWithinBound(int, double)}.
+ */
+public class SeamCache {
+
+  /**
+   * Most pixels sampled along each side of a block for its signature.
+   */
+  static final int samplesPerSide = 4;
+
+  /**
+   * Rise in the energy of a cached seam allowed by default, as a fraction of its energy when
+   * cached, enough for the noise of another frame of the same shot but not for an edge moving
+   * into the seam's path.
+   */
+  public static final double defaultSeamEnergyTolerance = 1;
+
+  private final int capacity;
+
+  private final double similarityThreshold;
+
+  private final int blockSize;
+
+  private final double seamEnergyTolerance;
+
+  /**
+   * Cached resizes, each under the order it was added in, iterated least recently used first.
+   */
+  private final LinkedHashMap<Long, Entry> entries;
+
+  private long nextEntryId = 0;
+
+  private long hits = 0;
+
+  private long misses = 0;
+
+  private long rejections = 0;
+
+  /**
+   * @param capacity most resizes to remember
+   * @param similarityThreshold largest difference between two signatures, as a fraction of the
+   *                            cached signature's total brightness, for their images to match
+   * @param blockSize width and height of the block of pixels averaged into each block of a
+   *                  signature
+   * @throws IllegalArgumentException if the given {@param capacity} or {@param blockSize} is less
+   *                                  than 1, or the given {@param similarityThreshold} is negative
+   */
+  public SeamCache(int capacity, double similarityThreshold, int blockSize) {
+    this(capacity, similarityThreshold, blockSize, defaultSeamEnergyTolerance);
+  }
+
+  /**
+   * @param capacity most resizes to remember
+   * @param similarityThreshold largest difference between two signatures, as a fraction of the
+   *                            cached signature's total brightness, for their images to match
+   * @param blockSize width and height of the block of pixels averaged into each block of a
+   *                  signature
+   * @param seamEnergyTolerance largest rise in the energy of a cached seam, as a fraction of its
+   *                            energy when cached, for it to be removed again
+   * @throws IllegalArgumentException if the given {@param capacity} or {@param blockSize} is less
+   *                                  than 1, or the given {@param similarityThreshold} or
+   *                                  {@param seamEnergyTolerance} is negative
+   */
+  public SeamCache(int capacity, double similarityThreshold, int blockSize,
+      double seamEnergyTolerance) {
+    if (capacity < 1) {
+      throw new IllegalArgumentException("Given capacity must be at least 1!");
+    }
+    else if (!(similarityThreshold >= 0)) {
+      throw new IllegalArgumentException("Given similarity threshold can't be negative!");
+    }
+    else if (blockSize < 1) {
+      throw new IllegalArgumentException("Given block size must be at least 1!");
+    }
+    else if (!(seamEnergyTolerance >= 0)) {
+      throw new IllegalArgumentException("Given seam energy tolerance can't be negative!");
+    }
+    this.capacity = capacity;
+    this.similarityThreshold = similarityThreshold;
+    this.blockSize = blockSize;
+    this.seamEnergyTolerance = seamEnergyTolerance;
+    entries = new LinkedHashMap<Long, Entry>(16, 0.75f, true) {
+      @Override
+      protected boolean removeEldestEntry(Map.Entry<Long, Entry> eldest) {
+        return size() > SeamCache.this.capacity;
+      }
+    };
+  }
+
+  /**
+   * Summary of an image about to be resized, and the size it is being resized to.
+   */
+  static final class Signature {
+
+    private final int width;
+
+    private final int height;
+
+    private final int newWidth;
+
+    private final int newHeight;
+
+    private final int[] blockBrightnesses;
+
+    private final long totalBrightness;
+
+    private Signature(int width, int height, int newWidth, int newHeight,
+        int[] blockBrightnesses) {
+      this.width = width;
+      this.height = height;
+      this.newWidth = newWidth;
+      this.newHeight = newHeight;
+      this.blockBrightnesses = blockBrightnesses;
+      long totalBrightness = 0;
+      for (int blockBrightness : blockBrightnesses) {
+        totalBrightness += blockBrightness;
+      }
+      this.totalBrightness = totalBrightness;
+    }
+
+    private boolean isSameResize(Signature other) {
+      return width == other.width && height == other.height && newWidth == other.newWidth
+          && newHeight == other.newHeight;
+    }
+
+    /**
+     * @return total difference between the blocks of this and the given signature, as a fraction
+     *         of this signature's total brightness
+     */
+    private double getDifference(Signature other) {
+      long difference = 0;
+      for (int i = 0; i < blockBrightnesses.length; i += 1) {
+        difference += Math.abs(blockBrightnesses[i] - other.blockBrightnesses[i]);
+      }
+      if (totalBrightness == 0) {
+        return difference == 0 ? 0 : Double.POSITIVE_INFINITY;
+      }
+      return (double)difference / totalBrightness;
+    }
+  }
+
+  /**
+   * A cached resize: the seams it removed, in order, and the energy each had when removed.
+   */
+  static final class Entry {
+
+    private final Signature signature;
+
+    private final List<LoggedSeam> removedSeams;
+
+    private final double[] seamEnergies;
+
+    private final double averageSeamEnergy;
+
+    private final double seamEnergyTolerance;
+
+    private Entry(Signature signature, List<LoggedSeam> removedSeams, double[] seamEnergies,
+        double seamEnergyTolerance) {
+      this.signature = signature;
+      this.removedSeams = removedSeams;
+      this.seamEnergies = seamEnergies;
+      this.seamEnergyTolerance = seamEnergyTolerance;
+      double totalEnergy = 0;
+      for (double seamEnergy : seamEnergies) {
+        totalEnergy += seamEnergy;
+      }
+      averageSeamEnergy = seamEnergies.length == 0 ? 0 : totalEnergy / seamEnergies.length;
+    }
+
+    List<LoggedSeam> getRemovedSeams() {
+      return removedSeams;
+    }
+
+    /**
+     * @param seam index of the seam in the order it was removed
+     * @param energy average energy of the seam in the image being resized
+     * @return if the seam is still cheap enough to remove, its energy rising by no more than the
+     *         seam energy tolerance's fraction of its energy when cached - or of the average
+     *         energy of the cached seams, if more, so seams through flat areas aren't held to
+     *         nothing
+     */
+    boolean isWithinBound(int seam, double energy) {
+      return energy <= seamEnergies[seam]
+          + seamEnergyTolerance * Math.max(seamEnergies[seam], averageSeamEnergy);
+    }
+  }
+
+  /**
+   * @param width width of the image
+   * @param height height of the image
+   * @param newWidth width the image is being resized to
+   * @param newHeight height the image is being resized to
+   * @param colors packed color of the pixel at the given x and y coordinates of the image
+   * @return signature of the given image
+   */
+  Signature getSignature(int width, int height, int newWidth, int newHeight,
+      IntBinaryOperator colors) {
+    if (colors == null) {
+      throw new IllegalArgumentException("Given colors can't be null!");
+    }
+
+    int blockColumns = (width + blockSize - 1) / blockSize;
+    int blockRows = (height + blockSize - 1) / blockSize;
+    int sampleStep = Math.max(1, blockSize / samplesPerSide);
+    int[] blockBrightnesses = new int[blockColumns * blockRows];
+    for (int blockRow = 0; blockRow < blockRows; blockRow += 1) {
+      int fromY = blockRow * blockSize;
+      int toY = Math.min(height, fromY + blockSize);
+      for (int blockColumn = 0; blockColumn < blockColumns; blockColumn += 1) {
+        int fromX = blockColumn * blockSize;
+        int toX = Math.min(width, fromX + blockSize);
+        int brightness = 0;
+        int samples = 0;
+        for (int y = fromY; y < toY; y += sampleStep) {
+          for (int x = fromX; x < toX; x += sampleStep) {
+            int rgb = colors.applyAsInt(x, y);
+            brightness += PackedColors.getRed(rgb) + PackedColors.getGreen(rgb)
+                + PackedColors.getBlue(rgb);
+            samples += 1;
+          }
+        }
+        blockBrightnesses[blockRow * blockColumns + blockColumn] = brightness / (samples * 3);
+      }
+    }
+    return new Signature(width, height, newWidth, newHeight, blockBrightnesses);
+  }
+
+  /**
+   * Finds the cached resize whose image is most like that of the given {@param signature}, and
+   * marks it as the most recently used.
+   *
+   * @param signature signature of the image being resized
+   * @return the matching resize, or null if none matches
+   */
+  synchronized Entry find(Signature signature) {
+    if (signature == null) {
+      throw new IllegalArgumentException("Given signature can't be null!");
+    }
+
+    Long closestId = null;
+    double closestDifference = similarityThreshold;
+    for (Map.Entry<Long, Entry> entry : entries.entrySet()) {
+      Signature cached = entry.getValue().signature;
+      if (cached.isSameResize(signature)) {
+        double difference = cached.getDifference(signature);
+        if (difference <= closestDifference) {
+          closestId = entry.getKey();
+          closestDifference = difference;
+        }
+      }
+    }
+
+    if (closestId == null) {
+      misses += 1;
+      return null;
+    }
+    hits += 1;
+    return entries.get(closestId);
+  }
+
+  /**
+   * Counts a resize found by {@link #find(Signature)} that was abandoned part of the way through,
+   * as one of its seams was no longer within its bound.
+   */
+  synchronized void reject() {
+    rejections += 1;
+  }
+
+  /**
+   * Caches the seams removed to resize the image of the given {@param signature}, evicting the
+   * least recently used resize if full.
+   *
+   * @param signature signature of the image that was resized
+   * @param removedSeams every seam removed by the resize, in order
+   * @param seamEnergies average energy of each seam when it was removed
+   */
+  synchronized void put(Signature signature, List<LoggedSeam> removedSeams,
+      List<Double> seamEnergies) {
+    if (signature == null) {
+      throw new IllegalArgumentException("Given signature can't be null!");
+    }
+    else if (removedSeams == null || seamEnergies == null) {
+      throw new IllegalArgumentException("Given seams can't be null!");
+    }
+    else if (removedSeams.size() != seamEnergies.size()) {
+      throw new IllegalArgumentException("Given seams must each have an energy!");
+    }
+
+    double[] energies = new double[seamEnergies.size()];
+    for (int i = 0; i < energies.length; i += 1) {
+      energies[i] = seamEnergies.get(i);
+    }
+    entries.put(nextEntryId, new Entry(signature,
+        Collections.unmodifiableList(new ArrayList<>(removedSeams)), energies,
+        seamEnergyTolerance));
+    nextEntryId += 1;
+  }
+
+  /**
+   * @return number of resizes that matched a cached resize, including those rejected part of the
+   *         way through
+   */
+  public synchronized long getHits() {
+    return hits;
+  }
+
+  /**
+   * @return number of resizes that found no cached seams to remove
+   */
+  public synchronized long getMisses() {
+    return misses;
+  }
+
+  /**
+   * @return number of resizes that matched a cached resize, but found one of its seams no longer
+   *         within its bound and carved the rest of the image themselves
+   */
+  public synchronized long getRejections() {
+    return rejections;
+  }
+
+  /**
+   * @return number of resizes currently cached
+   */
+  public synchronized int size() {
+    return entries.size();
+  }
+
+  public synchronized void clear() {
+    entries.clear();
+  }
+}
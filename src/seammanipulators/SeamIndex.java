@@ -0,0 +1,259 @@
+package seammanipulators;
+
+import energymaps.EnergyMapMaker;
+import java.awt.image.BufferedImage;
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import seams.LoggedSeam;
+import seams.Seam;
+import utility.Coordinate;
+
+/**
+ * Precomputed order in which every pixel of an image is removed by vertical seams, and separately
+ * by horizontal seams, when the image is carved all the way down to a single column or row. Found
+ * once with the same seams a DefaultSeamManipulator removes, after which the image can be carved
+ * to any smaller width, or any smaller height, in a single pass over its pixels - keeping the
+ * pixels of each row (or column) that are removed last. Can be saved with {@link #write(Path)}
+ * and memory mapped back in as a MappedSeamIndex.
+ */
+public class SeamIndex {
+
+  private final int[] pixels;
+
+  private final int width;
+
+  private final int height;
+
+  private final int bufferedImageType;
+
+  /**
+   * Step at which each pixel is removed by a vertical seam, pixel (x, y) at index
+   * {@code y * width + x}. The pixel of each row never removed has step {@code width - 1}.
+   */
+  private final int[] verticalRemovalOrder;
+
+  /**
+   * Step at which each pixel is removed by a horizontal seam, pixel (x, y) at index
+   * {@code y * width + x}. The pixel of each column never removed has step {@code height - 1}.
+   */
+  private final int[] horizontalRemovalOrder;
+
+  /**
+   * Vertical seams in the order they were removed.
+   */
+  private final LoggedSeam[] verticalSeams;
+
+  /**
+   * Horizontal seams in the order they were removed.
+   */
+  private final LoggedSeam[] horizontalSeams;
+
+  /**
+   * Loads the image at the given {@param inputFilePath} and finds the order its pixels are
+   * removed in.
+   *
+   * @param inputFilePath file path of the image to index
+   * @param energyMapMaker energy function to use
+   * @throws IOException if the given {@param inputFilePath} does not exist or can't be read
+   */
+  public SeamIndex(Path inputFilePath, EnergyMapMaker energyMapMaker) throws IOException {
+    this(AbstractSeamManipulator.readImage(inputFilePath), energyMapMaker);
+  }
+
+  public SeamIndex(BufferedImage image, EnergyMapMaker energyMapMaker) {
+    if (image == null) {
+      throw new IllegalArgumentException("Given image can't be null!");
+    }
+    else if (energyMapMaker == null) {
+      throw new IllegalArgumentException("Given energy map can't be null!");
+    }
+
+    width = image.getWidth();
+    height = image.getHeight();
+    bufferedImageType = image.getType();
+    pixels = image.getRGB(0, 0, width, height, null, 0, width);
+    verticalSeams = new LoggedSeam[width - 1];
+    horizontalSeams = new LoggedSeam[height - 1];
+    verticalRemovalOrder = findRemovalOrder(image, energyMapMaker, true, verticalSeams);
+    horizontalRemovalOrder = findRemovalOrder(image, energyMapMaker, false, horizontalSeams);
+  }
+
+  /**
+   * Removes every seam but one from the given image in one direction, noting the step at which
+   * each pixel is removed and each seam removed in {@param removedSeams}.
+   */
+  private static int[] findRemovalOrder(BufferedImage image, EnergyMapMaker energyMapMaker,
+      boolean isVerticalSeam, LoggedSeam[] removedSeams) {
+    int width = image.getWidth();
+    int height = image.getHeight();
+    int lineCount = isVerticalSeam ? height : width;
+    int lineLength = isVerticalSeam ? width : height;
+
+    // Where each pixel now in each row, or column, of the carved image started out
+    int[][] originalPositions = new int[lineCount][lineLength];
+    for (int line = 0; line < lineCount; line += 1) {
+      for (int posn = 0; posn < lineLength; posn += 1) {
+        originalPositions[line][posn] = posn;
+      }
+    }
+
+    DefaultSeamManipulator seamManipulator = new DefaultSeamManipulator(image, energyMapMaker,
+        false);
+    seamManipulator.setIncrementalEnergyMap(true);
+    seamManipulator.setIncrementalCostMatrix(true);
+
+    int[] removalOrder = new int[width * height];
+    for (int step = 0; step < lineLength - 1; step += 1) {
+      Seam toRemove = isVerticalSeam ? seamManipulator.findMinimumVerticalSeam()
+          : seamManipulator.findMinimumHorizontalSeam();
+      Coordinate[] coordinates = toRemove.getCoordinates();
+      int[] seam = new int[lineCount];
+      for (int line = 0; line < lineCount; line += 1) {
+        int posn = isVerticalSeam ? coordinates[line].getX() : coordinates[line].getY();
+        seam[line] = posn;
+        int[] positions = originalPositions[line];
+        int originalPosn = positions[posn];
+        removalOrder[isVerticalSeam ? line * width + originalPosn : originalPosn * width + line]
+            = step;
+        System.arraycopy(positions, posn + 1, positions, posn, lineLength - step - posn - 1);
+      }
+      removedSeams[step] = new LoggedSeam(seam, isVerticalSeam, false);
+      seamManipulator.removeSeam(toRemove);
+    }
+
+    for (int line = 0; line < lineCount; line += 1) {
+      int originalPosn = originalPositions[line][0];
+      removalOrder[isVerticalSeam ? line * width + originalPosn : originalPosn * width + line]
+          = lineLength - 1;
+    }
+    return removalOrder;
+  }
+
+  public int getWidth() {
+    return width;
+  }
+
+  public int getHeight() {
+    return height;
+  }
+
+  /**
+   * Saves the index to the given {@param filePath} in the format read by MappedSeamIndex.
+   *
+   * @param filePath file path to save the index to
+   * @throws IOException if the index can't be written to the given {@param filePath}
+   */
+  public void write(Path filePath) throws IOException {
+    if (filePath == null) {
+      throw new IllegalArgumentException("Given file path can't be null!");
+    }
+
+    int stepBytes = MappedSeamIndex.stepBytes(width, height);
+    try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(
+        Files.newOutputStream(filePath)))) {
+      out.writeInt(MappedSeamIndex.MAGIC);
+      out.writeInt(MappedSeamIndex.VERSION);
+      out.writeInt(width);
+      out.writeInt(height);
+      out.writeInt(bufferedImageType);
+      out.writeInt(stepBytes);
+      out.writeLong(MappedSeamIndex.checksum(pixels));
+      writeRemovalOrder(out, verticalRemovalOrder, stepBytes);
+      writeRemovalOrder(out, horizontalRemovalOrder, stepBytes);
+      for (LoggedSeam seam : verticalSeams) {
+        writeSeam(out, seam);
+      }
+      for (LoggedSeam seam : horizontalSeams) {
+        writeSeam(out, seam);
+      }
+    }
+  }
+
+  private static void writeRemovalOrder(DataOutputStream out, int[] removalOrder, int stepBytes)
+      throws IOException {
+    for (int step : removalOrder) {
+      if (stepBytes == 2) {
+        out.writeShort(step);
+      }
+      else {
+        out.writeInt(step);
+      }
+    }
+  }
+
+  /**
+   * Writes the given seam's first position then 2 bits for the offset of each following one.
+   */
+  private static void writeSeam(DataOutputStream out, LoggedSeam loggedSeam) throws IOException {
+    int[] seam = loggedSeam.getPositions();
+    out.writeInt(seam[0]);
+    int packed = 0;
+    for (int i = 1; i < seam.length; i += 1) {
+      packed |= (seam[i] - seam[i - 1] + 1) << (2 * ((i - 1) % 4));
+      if ((i - 1) % 4 == 3 || i == seam.length - 1) {
+        out.writeByte(packed);
+        packed = 0;
+      }
+    }
+  }
+
+  /**
+   * Carves the image down to the given width, keeping the pixels of each row removed last by
+   * vertical seams.
+   *
+   * @param newWidth width to carve the image to, at most the image's width
+   * @return the carved image
+   */
+  public BufferedImage getImageOfWidth(int newWidth) {
+    if (newWidth < 1 || newWidth > width) {
+      throw new IllegalArgumentException("Given width must be between 1 and the image's width!");
+    }
+
+    int firstKept = width - newWidth;
+    int[] carvedPixels = new int[newWidth * height];
+    int carvedIdx = 0;
+    for (int idx = 0; idx < pixels.length; idx += 1) {
+      if (verticalRemovalOrder[idx] >= firstKept) {
+        carvedPixels[carvedIdx] = pixels[idx];
+        carvedIdx += 1;
+      }
+    }
+
+    BufferedImage toReturn = new BufferedImage(newWidth, height, bufferedImageType);
+    toReturn.setRGB(0, 0, newWidth, height, carvedPixels, 0, newWidth);
+    return toReturn;
+  }
+
+  /**
+   * Carves the image down to the given height, keeping the pixels of each column removed last by
+   * horizontal seams.
+   *
+   * @param newHeight height to carve the image to, at most the image's height
+   * @return the carved image
+   */
+  public BufferedImage getImageOfHeight(int newHeight) {
+    if (newHeight < 1 || newHeight > height) {
+      throw new IllegalArgumentException("Given height must be between 1 and the image's height!");
+    }
+
+    int firstKept = height - newHeight;
+    int[] carvedPixels = new int[width * newHeight];
+    int[] carvedRows = new int[width];
+    for (int y = 0; y < height; y += 1) {
+      for (int x = 0; x < width; x += 1) {
+        int idx = y * width + x;
+        if (horizontalRemovalOrder[idx] >= firstKept) {
+          carvedPixels[carvedRows[x] * width + x] = pixels[idx];
+          carvedRows[x] += 1;
+        }
+      }
+    }
+
+    BufferedImage toReturn = new BufferedImage(width, newHeight, bufferedImageType);
+    toReturn.setRGB(0, 0, width, newHeight, carvedPixels, 0, width);
+    return toReturn;
+  }
+}
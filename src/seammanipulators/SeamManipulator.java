@@ -22,6 +22,8 @@ public interface SeamManipulator {
 
   void replaceArea(Mask areaToRemove);
 
+  double getAreaRemovalProgress();
+
   BufferedImage getCurrentImage();
 
   BufferedImage getCurrentEnergyMap();
@@ -31,4 +33,8 @@ public interface SeamManipulator {
   void saveCurrentImage(Path filePath) throws IOException;
 
   void saveCurrentProcess(Path filePath) throws IOException;
+
+  void startProcessStream(Path filePath, int frameWidth, int frameHeight) throws IOException;
+
+  void finishProcessStream() throws IOException;
 }
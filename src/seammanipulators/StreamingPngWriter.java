@@ -0,0 +1,143 @@
+package seammanipulators;
+
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.zip.CRC32;
+import java.util.zip.Deflater;
+import java.util.zip.DeflaterOutputStream;
+
+/**
+ * Writes an 8-bit RGB PNG a row at a time, so an image never has to be held in memory all at once
+ * to be saved. Rows are compressed as they are written and flushed to the file in chunks.
+ */
+class StreamingPngWriter implements Closeable {
+
+  private static final byte[] signature = {(byte)0x89, 'P', 'N', 'G', '\r', '\n', 0x1A, '\n'};
+
+  private static final int chunkBytes = 1 << 16;
+
+  private final DataOutputStream out;
+
+  private final ByteArrayOutputStream compressedRows = new ByteArrayOutputStream();
+
+  private final Deflater deflater = new Deflater(Deflater.BEST_SPEED);
+
+  private final DeflaterOutputStream compressor;
+
+  private final byte[] rowBytes;
+
+  private final int width;
+
+  private final int height;
+
+  private int rowsWritten = 0;
+
+  /**
+   * Creates the PNG at the given {@param filePath} and writes its header.
+   *
+   * @param filePath file path to write the PNG to
+   * @param width width of the image
+   * @param height height of the image
+   * @throws IOException if the given {@param filePath} can't be written to
+   */
+  StreamingPngWriter(Path filePath, int width, int height) throws IOException {
+    if (filePath == null) {
+      throw new IllegalArgumentException("Given file path can't be null!");
+    }
+    else if (width < 1 || height < 1) {
+      throw new IllegalArgumentException("Given width and height must be at least 1!");
+    }
+
+    this.width = width;
+    this.height = height;
+    rowBytes = new byte[1 + 3 * width];
+    compressor = new DeflaterOutputStream(compressedRows, deflater);
+    out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(filePath)));
+    out.write(signature);
+
+    ByteArrayOutputStream header = new ByteArrayOutputStream();
+    DataOutputStream headerData = new DataOutputStream(header);
+    headerData.writeInt(width);
+    headerData.writeInt(height);
+    // 8 bits per channel, truecolor, deflate, adaptive filtering, no interlace
+    headerData.write(new byte[] {8, 2, 0, 0, 0});
+    writeChunk("IHDR", header.toByteArray(), header.size());
+  }
+
+  /**
+   * Writes the next row of the image.
+   *
+   * @param pixels packed ARGB colors of the row, alpha ignored
+   * @param offset index of the row's first pixel in {@param pixels}
+   * @throws IOException if the row can't be written
+   */
+  void writeRow(int[] pixels, int offset) throws IOException {
+    if (pixels == null) {
+      throw new IllegalArgumentException("Given pixels can't be null!");
+    }
+    else if (rowsWritten == height) {
+      throw new IllegalStateException("Every row of the image has already been written!");
+    }
+
+    // Filter type 0, each row written as is
+    rowBytes[0] = 0;
+    for (int x = 0; x < width; x += 1) {
+      int rgb = pixels[offset + x];
+      rowBytes[1 + 3 * x] = (byte)(rgb >> 16);
+      rowBytes[2 + 3 * x] = (byte)(rgb >> 8);
+      rowBytes[3 + 3 * x] = (byte)rgb;
+    }
+    compressor.write(rowBytes);
+    rowsWritten += 1;
+
+    if (compressedRows.size() >= chunkBytes) {
+      writeCompressedRows();
+    }
+  }
+
+  private void writeCompressedRows() throws IOException {
+    writeChunk("IDAT", compressedRows.toByteArray(), compressedRows.size());
+    compressedRows.reset();
+  }
+
+  private void writeChunk(String type, byte[] data, int length) throws IOException {
+    byte[] typeBytes = type.getBytes(StandardCharsets.US_ASCII);
+    CRC32 crc = new CRC32();
+    crc.update(typeBytes);
+    crc.update(data, 0, length);
+
+    out.writeInt(length);
+    out.write(typeBytes);
+    out.write(data, 0, length);
+    out.writeInt((int)crc.getValue());
+  }
+
+  /**
+   * Finishes the PNG, which must have had every row written.
+   *
+   * @throws IOException if the PNG can't be finished, or not every row was written
+   */
+  @Override
+  public void close() throws IOException {
+    try {
+      if (rowsWritten != height) {
+        throw new IOException("Only " + rowsWritten + " of the image's " + height
+            + " rows were written!");
+      }
+      compressor.finish();
+      writeCompressedRows();
+      writeChunk("IEND", new byte[0], 0);
+    }
+    finally {
+      // The stream doesn't end a Deflater it was given, so its native memory is freed here
+      deflater.end();
+      out.close();
+    }
+  }
+}
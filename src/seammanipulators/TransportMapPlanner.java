@@ -0,0 +1,214 @@
+package seammanipulators;
+
+import energymaps.PackedEnergyMapMaker;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import pixel.PackedImage;
+import seams.LoggedSeam;
+
+/**
+ * Plans the order to remove a number of vertical and horizontal seams in with the optimal seam
+ * ordering transport map of Avidan and Shamir. Entry (r, c) of the map is the least total energy
+ * of any order of removing r horizontal and c vertical seams, found from the cheaper of removing
+ * one more horizontal seam from the image of entry (r - 1, c) or one more vertical seam from the
+ * image of entry (r, c - 1), where a seam's energy is the sum of the energies of its pixels.
+ *
+ * The map is filled a line at a time along its longer side, keeping only the images of the latest
+ * line, so at most one image per seam removed in the direction with fewer seams. Each entry's
+ * energy map and cost matrices are updated from those of the image it was derived from, around
+ * the seam removed, rather than computed again. The seam chosen for each entry is kept as a
+ * LoggedSeam so the cheapest order can be read back without finding any seam again.
+ */
+class TransportMapPlanner {
+
+  /**
+   * Bytes a PackedImage holds per pixel while planning - its packed color, energy, both costs and
+   * mask.
+   */
+  private static final int bytesPerPixel = 29;
+
+  /**
+   * Bytes a chosen seam holds besides its positions - the LoggedSeam, its position array's header
+   * and the reference to it.
+   */
+  private static final int seamOverhead = 48;
+
+  private final PackedEnergyMapMaker energyMapMaker;
+
+  TransportMapPlanner(PackedEnergyMapMaker energyMapMaker) {
+    if (energyMapMaker == null) {
+      throw new IllegalArgumentException("Given energy map can't be null!");
+    }
+    this.energyMapMaker = energyMapMaker;
+  }
+
+  /**
+   * Estimates the memory needed to plan the removal of the given number of seams from an image of
+   * the given size.
+   *
+   * @return estimated memory needed in bytes
+   */
+  static long estimateMemory(int width, int height, int verticalSeams, int horizontalSeams) {
+    long images = (long)(Math.min(verticalSeams, horizontalSeams) + 1) * width * height
+        * bytesPerPixel;
+    long seamBytes = (long)Integer.BYTES * Math.max(width, height) + seamOverhead;
+    long seams = (long)(verticalSeams + 1) * (horizontalSeams + 1) * seamBytes;
+    return images + seams;
+  }
+
+  /**
+   * @param width width of the image being shrunk
+   * @param height height of the image being shrunk
+   * @param newWidth width the image is being shrunk to
+   * @param newHeight height the image is being shrunk to
+   * @param memoryBudget most memory to plan with in bytes
+   * @return if the seams to shrink the image with should be planned with a transport map
+   */
+  static boolean isWithinBudget(int width, int height, int newWidth, int newHeight,
+      long memoryBudget) {
+    return width > newWidth && height > newHeight
+        && estimateMemory(width, height, width - newWidth, height - newHeight) <= memoryBudget;
+  }
+
+  /**
+   * Finds the order of removing the given number of vertical and horizontal seams from the given
+   * image that removes the least total energy. The given image is left unchanged.
+   *
+   * @param image image to remove the seams from
+   * @param verticalSeams number of vertical seams to remove
+   * @param horizontalSeams number of horizontal seams to remove
+   * @return the seams to remove, in the order to remove them
+   */
+  List<LoggedSeam> plan(PackedImage image, int verticalSeams, int horizontalSeams) {
+    if (image == null) {
+      throw new IllegalArgumentException("Given image can't be null!");
+    }
+    else if (verticalSeams < 0 || verticalSeams >= image.getWidth()) {
+      throw new IllegalArgumentException("Given number of vertical seams must leave at least one "
+          + "column of the image!");
+    }
+    else if (horizontalSeams < 0 || horizontalSeams >= image.getHeight()) {
+      throw new IllegalArgumentException("Given number of horizontal seams must leave at least "
+          + "one row of the image!");
+    }
+
+    // Lines of the map run along its longer side, so the fewest images are kept at once
+    boolean byRow = verticalSeams <= horizontalSeams;
+    int lines = (byRow ? horizontalSeams : verticalSeams) + 1;
+    int lineLength = (byRow ? verticalSeams : horizontalSeams) + 1;
+
+    // Images, least seams and least total energies of the latest entry at each position of a line
+    PackedImage[] images = new PackedImage[lineLength];
+    int[][] leastVerticalSeams = new int[lineLength][];
+    double[] leastVerticalEnergies = new double[lineLength];
+    int[][] leastHorizontalSeams = new int[lineLength][];
+    double[] leastHorizontalEnergies = new double[lineLength];
+    double[] totalEnergies = new double[lineLength];
+    LoggedSeam[][] chosenSeams = new LoggedSeam[horizontalSeams + 1][verticalSeams + 1];
+
+    for (int line = 0; line < lines; line += 1) {
+      for (int posn = 0; posn < lineLength; posn += 1) {
+        int row = byRow ? line : posn;
+        int column = byRow ? posn : line;
+        // Entries above and to the left, held either by the previous line at this position or by
+        // this line at the position before
+        int aboveIdx = byRow ? posn : posn - 1;
+        int leftIdx = byRow ? posn - 1 : posn;
+        boolean needsVerticalSeam = column < verticalSeams;
+        boolean needsHorizontalSeam = row < horizontalSeams;
+
+        PackedImage currentImage;
+        if (row == 0 && column == 0) {
+          currentImage = image.copy();
+          totalEnergies[posn] = 0;
+          currentImage.computeEnergyMap(energyMapMaker);
+          if (needsVerticalSeam) {
+            currentImage.computeVerticalCostMatrix();
+          }
+          if (needsHorizontalSeam) {
+            currentImage.swapCostMatrices();
+            currentImage.computeHorizontalCostMatrix();
+            currentImage.swapCostMatrices();
+          }
+        }
+        else {
+          double fromAbove = row > 0
+              ? totalEnergies[aboveIdx] + leastHorizontalEnergies[aboveIdx]
+              : Double.POSITIVE_INFINITY;
+          double fromLeft = column > 0
+              ? totalEnergies[leftIdx] + leastVerticalEnergies[leftIdx] : Double.POSITIVE_INFINITY;
+
+          // Remove which ever seam leads to less total energy, horizontal on ties like resize
+          boolean isVerticalSeam = fromLeft < fromAbove;
+          int sourceIdx = isVerticalSeam ? leftIdx : aboveIdx;
+          int[] seam = isVerticalSeam ? leastVerticalSeams[sourceIdx]
+              : leastHorizontalSeams[sourceIdx];
+          // The previous line's entry is only ever needed by this entry, so is reused in place, or
+          // let go of before copying so no more than a line of images is held at once
+          if (sourceIdx == posn) {
+            currentImage = images[posn];
+          }
+          else {
+            images[posn] = null;
+            currentImage = images[sourceIdx].copy();
+          }
+          if (isVerticalSeam) {
+            currentImage.removeVerticalSeam(seam);
+          }
+          else {
+            currentImage.removeHorizontalSeam(seam);
+          }
+          chosenSeams[row][column] = new LoggedSeam(seam, isVerticalSeam, false);
+          totalEnergies[posn] = isVerticalSeam ? fromLeft : fromAbove;
+
+          // Neither cost matrix is needed again once no entry after this one needs its seams
+          if (needsVerticalSeam || needsHorizontalSeam) {
+            currentImage.updateEnergyMap(energyMapMaker, seam, isVerticalSeam);
+          }
+          if (needsVerticalSeam) {
+            currentImage.updateVerticalCostMatrix(seam, isVerticalSeam);
+          }
+          if (needsHorizontalSeam) {
+            currentImage.swapCostMatrices();
+            currentImage.updateHorizontalCostMatrix(seam, isVerticalSeam);
+            currentImage.swapCostMatrices();
+          }
+        }
+
+        if (needsVerticalSeam) {
+          int[] seam = currentImage.findMinimumVerticalSeam();
+          int lastRow = currentImage.getHeight() - 1;
+          leastVerticalSeams[posn] = seam;
+          leastVerticalEnergies[posn] = currentImage.getCostMatrixEnergy(seam[lastRow], lastRow);
+        }
+        if (needsHorizontalSeam) {
+          currentImage.swapCostMatrices();
+          int[] seam = currentImage.findMinimumHorizontalSeam();
+          int lastColumn = currentImage.getWidth() - 1;
+          leastHorizontalSeams[posn] = seam;
+          leastHorizontalEnergies[posn] = currentImage.getCostMatrixEnergy(lastColumn,
+              seam[lastColumn]);
+          currentImage.swapCostMatrices();
+        }
+        images[posn] = currentImage;
+      }
+    }
+
+    List<LoggedSeam> plannedSeams = new ArrayList<>();
+    int row = horizontalSeams;
+    int column = verticalSeams;
+    while (row > 0 || column > 0) {
+      LoggedSeam chosenSeam = chosenSeams[row][column];
+      plannedSeams.add(chosenSeam);
+      if (chosenSeam.isVerticalSeam()) {
+        column -= 1;
+      }
+      else {
+        row -= 1;
+      }
+    }
+    Collections.reverse(plannedSeams);
+    return plannedSeams;
+  }
+}
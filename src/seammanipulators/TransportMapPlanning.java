@@ -0,0 +1,22 @@
+package seammanipulators;
+
+/**
+ * A SeamManipulator that can plan the order of seam removals when shrinking both dimensions of the
+ * image with the optimal seam ordering transport map of Avidan and Shamir, rather than greedily
+ * removing whichever of the least vertical and horizontal seam removes less energy.
+ */
+public interface TransportMapPlanning {
+
+  /**
+   * Sets the most memory that may be used to plan the order of seam removals with a transport
+   * map. The transport map finds the order that removes the least total energy, but has to find a
+   * seam for every combination of the number of vertical and horizontal seams removed, holding a
+   * copy of the image for every seam removed in the direction with fewer seams as it does.
+   * Resizes that would need more memory than this fall back to the greedy order.
+   *
+   * @param transportMapMemoryBudget most memory to plan with in bytes, or 0 to always remove seams
+   *                                 in the greedy order, as is the default
+   * @throws IllegalArgumentException if the given {@param transportMapMemoryBudget} is negative
+   */
+  void setTransportMapMemoryBudget(long transportMapMemoryBudget);
+}
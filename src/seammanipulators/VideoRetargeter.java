@@ -0,0 +1,161 @@
+package seammanipulators;
+
+import energymaps.EnergyMapMaker;
+import energymaps.PackedEnergyMapMaker;
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.nio.file.Path;
+import org.jcodec.api.FrameGrab;
+import org.jcodec.api.JCodecException;
+import org.jcodec.api.awt.AWTSequenceEncoder;
+import org.jcodec.common.io.NIOUtils;
+import org.jcodec.common.io.SeekableByteChannel;
+import org.jcodec.common.model.Picture;
+import org.jcodec.common.model.Rational;
+import org.jcodec.scale.AWTUtil;
+import pixel.PackedImage;
+
+/**
+ * Retargets a video to a smaller size frame by frame, after Rubinstein, Shamir and Avidan, decoding
+ * each frame, carving it and encoding it before the next is decoded, so only a frame at a time is
+ * ever held in memory however long the video is.
+ *
+ * Carving every frame independently makes seams jump about from one frame to the next, which
+ * shows as jitter. Instead each seam of a frame is searched for only within a corridor around the
+ * same seam of the frame before - the first vertical seam around the last frame's first vertical
+ * seam, and so on - keeping the seams, and the content they leave behind, steady over time. As only
+ * the corridors' energies and costs are computed, carving such a frame is also far quicker than
+ * carving it in full. Every key frame, and any frame whose size differs from the frame before, is
+ * carved in full, letting the seams follow cuts and other sudden changes.
+ */
+public class VideoRetargeter {
+
+  private final PackedEnergyMapMaker energyMapMaker;
+
+  private final int corridorRadius;
+
+  private final int keyFrameInterval;
+
+  /**
+   * @param energyMapMaker energy function to use, must also be a PackedEnergyMapMaker
+   * @param corridorRadius pixels either side of the last frame's seam a seam can stray
+   * @param keyFrameInterval number of frames from one frame carved in full to the next, or 0 to
+   *                         only carve the first frame in full
+   * @throws IllegalArgumentException if the given {@param energyMapMaker} is null or can't work on
+   *                                  packed images, or either number is negative
+   */
+  public VideoRetargeter(EnergyMapMaker energyMapMaker, int corridorRadius,
+      int keyFrameInterval) {
+    if (energyMapMaker == null) {
+      throw new IllegalArgumentException("Given energy map can't be null!");
+    }
+    else if (!(energyMapMaker instanceof PackedEnergyMapMaker)) {
+      throw new IllegalArgumentException("Given energy map must be able to work on packed "
+          + "images!");
+    }
+    else if (corridorRadius < 0) {
+      throw new IllegalArgumentException("Given corridor radius can't be negative!");
+    }
+    else if (keyFrameInterval < 0) {
+      throw new IllegalArgumentException("Given key frame interval can't be negative!");
+    }
+    this.energyMapMaker = (PackedEnergyMapMaker)energyMapMaker;
+    this.corridorRadius = corridorRadius;
+    this.keyFrameInterval = keyFrameInterval;
+  }
+
+  /**
+   * Retargets every frame of the video at the given {@param inputFilePath} to the given size,
+   * removing vertical seams then horizontal seams, and encodes them into a new video at the given
+   * {@param outputFilePath}.
+   *
+   * @param inputFilePath file path of the video to retarget
+   * @param outputFilePath file path to save the retargeted video to
+   * @param newWidth width to retarget to, even and at most the video's width
+   * @param newHeight height to retarget to, even and at most the video's height
+   * @param framesPerSecond frame rate of the retargeted video
+   * @return number of frames retargeted
+   * @throws IOException if the input video can't be decoded or the output video can't be written
+   */
+  public int retarget(Path inputFilePath, Path outputFilePath, int newWidth, int newHeight,
+      int framesPerSecond) throws IOException {
+    AbstractSeamManipulator.validFilePath(inputFilePath);
+    if (outputFilePath == null) {
+      throw new IllegalArgumentException("Given file path can't be null!");
+    }
+    else if (newWidth < 2 || newHeight < 2 || newWidth % 2 == 1 || newHeight % 2 == 1) {
+      throw new IllegalArgumentException("Given size must be even for the video to be encoded!");
+    }
+    else if (framesPerSecond < 1) {
+      throw new IllegalArgumentException("Given frame rate must be at least 1!");
+    }
+    AbstractSeamManipulator.validFilePath(outputFilePath.toAbsolutePath().getParent());
+
+    SeekableByteChannel in = null;
+    SeekableByteChannel out = null;
+    try {
+      in = NIOUtils.readableChannel(inputFilePath.toFile());
+      FrameGrab frameGrab = FrameGrab.createFrameGrab(in);
+      out = NIOUtils.writableFileChannel(outputFilePath.toString());
+      AWTSequenceEncoder encoder = new AWTSequenceEncoder(out, Rational.R(framesPerSecond, 1));
+
+      int[][] lastVerticalSeams = null;
+      int[][] lastHorizontalSeams = null;
+      int frameCount = 0;
+      Picture picture = frameGrab.getNativeFrame();
+      while (picture != null) {
+        BufferedImage frame = AWTUtil.toBufferedImage(picture);
+        if (newWidth > frame.getWidth() || newHeight > frame.getHeight()) {
+          throw new IllegalArgumentException("Given size must be no larger than the video's!");
+        }
+
+        boolean isKeyFrame = lastVerticalSeams == null
+            || (keyFrameInterval > 0 && frameCount % keyFrameInterval == 0)
+            || lastVerticalSeams.length != frame.getWidth() - newWidth
+            || lastHorizontalSeams.length != frame.getHeight() - newHeight
+            || (lastVerticalSeams.length > 0 && lastVerticalSeams[0].length != frame.getHeight())
+            || (lastHorizontalSeams.length > 0 && lastHorizontalSeams[0].length != newWidth);
+        PackedImage image = new PackedImage(frame);
+        int[][] verticalSeams = new int[frame.getWidth() - newWidth][];
+        for (int i = 0; i < verticalSeams.length; i += 1) {
+          verticalSeams[i] = isKeyFrame ? findMinimumSeam(image, true)
+              : image.findMinimumVerticalSeamInCorridor(energyMapMaker, lastVerticalSeams[i],
+                  corridorRadius);
+          image.removeVerticalSeam(verticalSeams[i]);
+        }
+        int[][] horizontalSeams = new int[frame.getHeight() - newHeight][];
+        for (int i = 0; i < horizontalSeams.length; i += 1) {
+          horizontalSeams[i] = isKeyFrame ? findMinimumSeam(image, false)
+              : image.findMinimumHorizontalSeamInCorridor(energyMapMaker, lastHorizontalSeams[i],
+                  corridorRadius);
+          image.removeHorizontalSeam(horizontalSeams[i]);
+        }
+
+        encoder.encodeImage(image.toBufferedImage(BufferedImage.TYPE_3BYTE_BGR));
+        lastVerticalSeams = verticalSeams;
+        lastHorizontalSeams = horizontalSeams;
+        frameCount += 1;
+        picture = frameGrab.getNativeFrame();
+      }
+      encoder.finish();
+      return frameCount;
+    }
+    catch (JCodecException e) {
+      throw new IOException("Given file path isn't a video that can be decoded!", e);
+    }
+    finally {
+      NIOUtils.closeQuietly(in);
+      NIOUtils.closeQuietly(out);
+    }
+  }
+
+  private int[] findMinimumSeam(PackedImage image, boolean isVerticalSeam) {
+    image.computeEnergyMap(energyMapMaker);
+    if (isVerticalSeam) {
+      image.computeVerticalCostMatrix();
+      return image.findMinimumVerticalSeam();
+    }
+    image.computeHorizontalCostMatrix();
+    return image.findMinimumHorizontalSeam();
+  }
+}
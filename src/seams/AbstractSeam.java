@@ -2,7 +2,6 @@ package seams;
 
 import java.awt.Color;
 import java.util.ArrayList;
-import java.util.Arrays;
 import java.util.Collections;
 import java.util.List;
 import utility.Coordinate;
@@ -47,9 +46,15 @@ public abstract class AbstractSeam implements Seam {
 
   @Override
   public Coordinate[] getCoordinates() {
-    Coordinate[] toReturn = new Coordinate[coordinates.size()];
-    Collections.reverse(coordinates);
-    toReturn = coordinates.toArray(toReturn);
-    return toReturn;
+    List<Coordinate> toReturn = new ArrayList<>(coordinates);
+    Collections.reverse(toReturn);
+    return toReturn.toArray(new Coordinate[toReturn.size()]);
+  }
+
+  @Override
+  public Pixel[] getPixels() {
+    List<Pixel> toReturn = new ArrayList<>(pixels);
+    Collections.reverse(toReturn);
+    return toReturn.toArray(new Pixel[toReturn.size()]);
   }
 }
@@ -0,0 +1,107 @@
+package seams;
+
+import pixel.PackedImage;
+
+/**
+ * Compact, immutable record of a single seam removed from or inserted into an image - the seam's
+ * position in the first row (or column) plus the offset of every following row's position from
+ * the one before, a byte per row - that can be applied to a PackedImage to repeat the change.
+ *
+ * Vertical seams are given as the x coordinate of the seam in each row, from the top row down, and
+ * horizontal seams as the y coordinate of the seam in each column, from the left column right.
+ * Inserted seams are given as the seam the new pixels were inserted to the right of, or below.
+ */
+public final class LoggedSeam {
+
+  private final boolean isVerticalSeam;
+
+  private final boolean isInsertion;
+
+  private final int start;
+
+  private final byte[] offsets;
+
+  /**
+   * @param seam position of the seam in each row or column
+   * @param isVerticalSeam if the seam is vertical
+   * @param isInsertion if the seam is being inserted rather than removed
+   * @throws IllegalArgumentException if the given {@param seam} is null, empty, has a negative
+   *                                  position or is not connected
+   */
+  public LoggedSeam(int[] seam, boolean isVerticalSeam, boolean isInsertion) {
+    if (seam == null) {
+      throw new IllegalArgumentException("Given seam can't be null!");
+    }
+    else if (seam.length == 0) {
+      throw new IllegalArgumentException("Given seam can't be empty!");
+    }
+
+    offsets = new byte[seam.length - 1];
+    for (int i = 0; i < seam.length; i += 1) {
+      if (seam[i] < 0) {
+        throw new IllegalArgumentException("Given seam must be in the bounds of the image!");
+      }
+      else if (i > 0 && Math.abs(seam[i] - seam[i - 1]) > 1) {
+        throw new IllegalArgumentException("Given seam must be connected!");
+      }
+      else if (i > 0) {
+        offsets[i - 1] = (byte)(seam[i] - seam[i - 1]);
+      }
+    }
+    this.isVerticalSeam = isVerticalSeam;
+    this.isInsertion = isInsertion;
+    start = seam[0];
+  }
+
+  public boolean isVerticalSeam() {
+    return isVerticalSeam;
+  }
+
+  public boolean isInsertion() {
+    return isInsertion;
+  }
+
+  /**
+   * @return number of rows, or columns, the seam spans
+   */
+  public int getLength() {
+    return offsets.length + 1;
+  }
+
+  /**
+   * @return position of the seam in each row or column
+   */
+  public int[] getPositions() {
+    int[] seam = new int[offsets.length + 1];
+    seam[0] = start;
+    for (int i = 0; i < offsets.length; i += 1) {
+      seam[i + 1] = seam[i] + offsets[i];
+    }
+    return seam;
+  }
+
+  /**
+   * Removes or inserts this seam in the given image.
+   *
+   * @param image image to change
+   */
+  public void applyTo(PackedImage image) {
+    if (image == null) {
+      throw new IllegalArgumentException("Given image can't be null!");
+    }
+
+    int[] seam = getPositions();
+    if (isVerticalSeam && isInsertion) {
+      image.insertVerticalSeam(seam);
+    }
+    else if (isVerticalSeam) {
+      image.removeVerticalSeam(seam);
+    }
+    else if (isInsertion) {
+      image.insertHorizontalSeam(seam);
+    }
+    else {
+      image.removeHorizontalSeam(seam);
+    }
+  }
+}
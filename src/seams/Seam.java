@@ -16,5 +16,16 @@ public interface Seam {
 
   boolean isVerticalSeam();
 
+  /**
+   * Returns the coordinates of this seam's pixels, from the top row down for a vertical seam or
+   * from the left column right for a horizontal seam.
+   * @return coordinates of this seam's pixels
+   */
   Coordinate[] getCoordinates();
+
+  /**
+   * Returns this seam's pixels, in the same order as {@link #getCoordinates()}.
+   * @return this seam's pixels
+   */
+  Pixel[] getPixels();
 }
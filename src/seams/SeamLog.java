@@ -0,0 +1,155 @@
+package seams;
+
+import java.awt.image.BufferedImage;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import pixel.PackedImage;
+
+/**
+ * Compact record of every state an image goes through while being carved - the original image
+ * followed by each seam removed from or inserted into it, as LoggedSeams - that can be replayed to
+ * produce each of those states in turn. The log grows with the length of each seam rather than the
+ * area of each state.
+ */
+public class SeamLog {
+
+  private final int[] originalPixels;
+
+  private final int originalWidth;
+
+  private final int originalHeight;
+
+  private final List<LoggedSeam> loggedSeams = new ArrayList<>();
+
+  private int width;
+
+  private int height;
+
+  private int maxWidth;
+
+  private int maxHeight;
+
+  public SeamLog(BufferedImage originalImage) {
+    if (originalImage == null) {
+      throw new IllegalArgumentException("Given image can't be null!");
+    }
+
+    originalWidth = originalImage.getWidth();
+    originalHeight = originalImage.getHeight();
+    originalPixels = originalImage.getRGB(0, 0, originalWidth, originalHeight, null, 0,
+        originalWidth);
+    width = originalWidth;
+    height = originalHeight;
+    maxWidth = width;
+    maxHeight = height;
+  }
+
+  /**
+   * @return number of states in the log, including the original image
+   */
+  public int getFrameCount() {
+    return loggedSeams.size() + 1;
+  }
+
+  /**
+   * @return largest width of any state in the log
+   */
+  public int getMaxWidth() {
+    return maxWidth;
+  }
+
+  /**
+   * @return largest height of any state in the log
+   */
+  public int getMaxHeight() {
+    return maxHeight;
+  }
+
+  /**
+   * Adds a seam removed from or inserted into the latest state in the log.
+   *
+   * @param loggedSeam seam to add
+   * @throws IllegalArgumentException if the given {@param loggedSeam} is null or doesn't span the
+   *                                  latest state in the log
+   */
+  public void add(LoggedSeam loggedSeam) {
+    if (loggedSeam == null) {
+      throw new IllegalArgumentException("Given seam can't be null!");
+    }
+    else if (loggedSeam.getLength() != (loggedSeam.isVerticalSeam() ? height : width)) {
+      throw new IllegalArgumentException("Given seam must span the entire image!");
+    }
+    loggedSeams.add(loggedSeam);
+
+    int change = loggedSeam.isInsertion() ? 1 : -1;
+    if (loggedSeam.isVerticalSeam()) {
+      width += change;
+      maxWidth = Math.max(maxWidth, width);
+    }
+    else {
+      height += change;
+      maxHeight = Math.max(maxHeight, height);
+    }
+  }
+
+  /**
+   * Replays the log, producing each state one at a time - the original image first - so only the
+   * state being produced is ever held in memory.
+   *
+   * @param bufferedImageType type of the images to produce
+   * @return iterator over every state in the log
+   */
+  public Iterator<BufferedImage> replay(int bufferedImageType) {
+    Iterator<PackedImage> states = replay();
+    return new Iterator<BufferedImage>() {
+
+      @Override
+      public boolean hasNext() {
+        return states.hasNext();
+      }
+
+      @Override
+      public BufferedImage next() {
+        return states.next().toBufferedImage(bufferedImageType);
+      }
+    };
+  }
+
+  /**
+   * Replays the log into a single PackedImage, changed in place from one state to the next, so
+   * no image is allocated per state.
+   *
+   * @return iterator over every state in the log, each the same PackedImage, only valid until the
+   *         next state is produced
+   */
+  public Iterator<PackedImage> replay() {
+    return new Iterator<PackedImage>() {
+
+      private PackedImage image;
+
+      private int nextSeam = 0;
+
+      @Override
+      public boolean hasNext() {
+        return image == null || nextSeam < loggedSeams.size();
+      }
+
+      @Override
+      public PackedImage next() {
+        if (!hasNext()) {
+          throw new NoSuchElementException("No more states to replay!");
+        }
+        else if (image == null) {
+          image = new PackedImage(originalPixels, originalWidth, originalHeight);
+        }
+        else {
+          loggedSeams.get(nextSeam).applyTo(image);
+          nextSeam += 1;
+        }
+        return image;
+      }
+    };
+  }
+}
@@ -25,6 +25,10 @@ public class DefaultSeamAdjuster implements SeamAdjuster {
   }
 
   private void addValueTo(int idx) throws IllegalArgumentException {
+    // Adjusting exclusively from the last coordinate leaves nothing after it to adjust
+    if (idx == coordinateValuesLength) {
+      return;
+    }
     inCoordinateRange(idx);
     for (int i = idx; i < coordinateValuesLength; i += 1) {
       coordinateValues[i] += adjustmentValue;
@@ -102,4 +106,32 @@ public class DefaultSeamAdjuster implements SeamAdjuster {
     int adjustmentStart = adjustCoordinatesByY(toAdjust);
     addValueTo(adjustmentStart + 1);
   }
+
+  private int adjustPositions(int[] toAdjust) {
+    if (toAdjust == null) {
+      throw new IllegalArgumentException("Given array can't be null!");
+    }
+    else if (toAdjust.length == 0) {
+      throw new IllegalArgumentException("Given position array must contain positions to adjust!");
+    }
+
+    int position = toAdjust[0];
+    int valueToAdjustBy = getValueAt(position);
+    for (int i = 0; i < toAdjust.length; i += 1) {
+      toAdjust[i] += valueToAdjustBy;
+    }
+    return position;
+  }
+
+  @Override
+  public void adjustPositionsInclusive(int[] toAdjust) {
+    int adjustmentStart = adjustPositions(toAdjust);
+    addValueTo(adjustmentStart);
+  }
+
+  @Override
+  public void adjustPositionsExclusive(int[] toAdjust) {
+    int adjustmentStart = adjustPositions(toAdjust);
+    addValueTo(adjustmentStart + 1);
+  }
 }
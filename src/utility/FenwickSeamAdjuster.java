@@ -0,0 +1,127 @@
+package utility;
+
+/**
+ * SeamAdjuster that keeps the offset of every coordinate in a Binary Indexed (Fenwick) Tree, so
+ * each seam adjusts its coordinates, and then every coordinate after it, in O(log n) rather than
+ * the O(n) of the DefaultSeamAdjuster. Results are the same as the DefaultSeamAdjuster's.
+ */
+public class FenwickSeamAdjuster implements SeamAdjuster {
+
+  private final int coordinateRange;
+
+  /**
+   * Tree of the differences between the offsets of consecutive coordinates, where index i, from
+   * 1, holds the sum of the differences from i less its lowest set bit up to i.
+   */
+  private final int[] tree;
+
+  public FenwickSeamAdjuster(int coordinateRange) {
+    if (coordinateRange < 1) {
+      throw new IllegalArgumentException("Given coordinate range must contain at least one value!");
+    }
+    this.coordinateRange = coordinateRange;
+    tree = new int[coordinateRange + 1];
+  }
+
+  private void inCoordinateRange(int toCheck) {
+    if (toCheck < 0 || toCheck >= coordinateRange) {
+      throw new IllegalArgumentException("Given index, " + toCheck + " is out of the range of "
+          + "this SeamAdjuster [0, " + (coordinateRange - 1) + "]!");
+    }
+  }
+
+  /**
+   * Adds 1 to the offset of every coordinate from the given {@param idx} on.
+   */
+  private void addValueFrom(int idx) {
+    // Adjusting exclusively from the last coordinate leaves nothing after it to adjust
+    if (idx == coordinateRange) {
+      return;
+    }
+    inCoordinateRange(idx);
+    for (int i = idx + 1; i <= coordinateRange; i += i & -i) {
+      tree[i] += 1;
+    }
+  }
+
+  private int getValueAt(int idx) {
+    inCoordinateRange(idx);
+    int value = 0;
+    for (int i = idx + 1; i > 0; i -= i & -i) {
+      value += tree[i];
+    }
+    return value;
+  }
+
+  private void validCoordinateArray(Coordinate[] coordinates) {
+    if (coordinates == null) {
+      throw new IllegalArgumentException("Given array can't be null!");
+    }
+    else if (coordinates.length == 0) {
+      throw new IllegalArgumentException("Given coordinate array must contain coordinates to "
+          + "adjust!");
+    }
+  }
+
+  private int adjustCoordinates(Coordinate[] toAdjust, boolean byX) {
+    validCoordinateArray(toAdjust);
+
+    int start = byX ? toAdjust[0].getX() : toAdjust[0].getY();
+    int valueToAdjustBy = getValueAt(start);
+    if (valueToAdjustBy != 0) {
+      for (int i = 0; i < toAdjust.length; i += 1) {
+        Coordinate oldCoordinate = toAdjust[i];
+        toAdjust[i] = byX ? new Coordinate(oldCoordinate.getX() + valueToAdjustBy,
+            oldCoordinate.getY())
+            : new Coordinate(oldCoordinate.getX(), oldCoordinate.getY() + valueToAdjustBy);
+      }
+    }
+    return start;
+  }
+
+  @Override
+  public void adjustCoordinatesByXInclusive(Coordinate[] toAdjust) {
+    addValueFrom(adjustCoordinates(toAdjust, true));
+  }
+
+  @Override
+  public void adjustCoordinatesByXExclusive(Coordinate[] toAdjust) {
+    addValueFrom(adjustCoordinates(toAdjust, true) + 1);
+  }
+
+  @Override
+  public void adjustCoordinatesByYInclusive(Coordinate[] toAdjust) {
+    addValueFrom(adjustCoordinates(toAdjust, false));
+  }
+
+  @Override
+  public void adjustCoordinatesByYExclusive(Coordinate[] toAdjust) {
+    addValueFrom(adjustCoordinates(toAdjust, false) + 1);
+  }
+
+  private int adjustPositions(int[] toAdjust) {
+    if (toAdjust == null) {
+      throw new IllegalArgumentException("Given array can't be null!");
+    }
+    else if (toAdjust.length == 0) {
+      throw new IllegalArgumentException("Given position array must contain positions to adjust!");
+    }
+
+    int start = toAdjust[0];
+    int valueToAdjustBy = getValueAt(start);
+    for (int i = 0; i < toAdjust.length; i += 1) {
+      toAdjust[i] += valueToAdjustBy;
+    }
+    return start;
+  }
+
+  @Override
+  public void adjustPositionsInclusive(int[] toAdjust) {
+    addValueFrom(adjustPositions(toAdjust));
+  }
+
+  @Override
+  public void adjustPositionsExclusive(int[] toAdjust) {
+    addValueFrom(adjustPositions(toAdjust) + 1);
+  }
+}
@@ -10,4 +10,21 @@ public interface SeamAdjuster {
 
   void adjustCoordinatesByYExclusive(Coordinate[] toAdjust);
 
+  /**
+   * Adjusts, in place, the positions of a seam - the x coordinate in each row of a vertical seam,
+   * or the y coordinate in each column of a horizontal seam - as
+   * {@link #adjustCoordinatesByXInclusive(Coordinate[])} does their Coordinates.
+   *
+   * @param toAdjust positions of the seam to adjust
+   */
+  void adjustPositionsInclusive(int[] toAdjust);
+
+  /**
+   * Adjusts, in place, the positions of a seam as
+   * {@link #adjustCoordinatesByXExclusive(Coordinate[])} does their Coordinates.
+   *
+   * @param toAdjust positions of the seam to adjust
+   */
+  void adjustPositionsExclusive(int[] toAdjust);
+
 }